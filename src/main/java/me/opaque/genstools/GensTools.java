@@ -6,10 +6,14 @@ import me.opaque.genstools.enchants.EnchantmentApplicability;
 import me.opaque.genstools.gui.MenuManager;
 import me.opaque.genstools.listeners.CubeEventListener;
 import me.opaque.genstools.listeners.PersistenceListener;
+import me.opaque.genstools.listeners.ToolCacheListener;
 import me.opaque.genstools.listeners.ToolEventListener;
+import me.opaque.genstools.manager.AreaBreakEngine;
 import me.opaque.genstools.manager.ConfigManager;
+import me.opaque.genstools.manager.DropLedgerManager;
 import me.opaque.genstools.manager.EnchantmentCubeManager;
 import me.opaque.genstools.manager.ToolManager;
+import me.opaque.genstools.manager.ToolStateCache;
 import me.opaque.genstools.persistence.ToolPersistenceManager;
 import me.opaque.genstools.utils.LoreManager;
 import me.opaque.genstools.utils.MessageManager;
@@ -29,6 +33,9 @@ public class GensTools extends JavaPlugin {
     private LoreManager loreManager;
     private EnchantmentCubeManager enchantmentCubeManager;
     private ToolPersistenceManager toolPersistenceManager;
+    private ToolStateCache toolStateCache;
+    private AreaBreakEngine areaBreakEngine;
+    private DropLedgerManager dropLedgerManager;
     private NumberFormatter numberFormatter;
 
     @Override
@@ -52,9 +59,12 @@ public class GensTools extends JavaPlugin {
         messageManager = new MessageManager(this);
         menuManager = new MenuManager(this);
         numberFormatter = new NumberFormatter(this);
+        areaBreakEngine = new AreaBreakEngine(this);
+        dropLedgerManager = new DropLedgerManager(this);
 
         // Initialize persistence system
         toolPersistenceManager = new ToolPersistenceManager(this);
+        toolStateCache = new ToolStateCache(this);
 
         EnchantmentApplicability.initialize();
 
@@ -64,6 +74,7 @@ public class GensTools extends JavaPlugin {
         // Register event listeners
         getServer().getPluginManager().registerEvents(new ToolEventListener(this), this);
         getServer().getPluginManager().registerEvents(new PersistenceListener(this), this);
+        getServer().getPluginManager().registerEvents(new ToolCacheListener(this), this);
         getServer().getPluginManager().registerEvents(new CubeEventListener(this), this);
 
         getLogger().info(Utils.colorize("&9&lGensTools has been enabled!"));
@@ -75,6 +86,22 @@ public class GensTools extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        // Finish queued area breaks so no blocks are left behind
+        if (areaBreakEngine != null) {
+            areaBreakEngine.shutdown();
+        }
+        if (dropLedgerManager != null) {
+            dropLedgerManager.shutdown();
+        }
+
+        // Write cached tool data back to items before saving
+        if (toolStateCache != null) {
+            toolStateCache.shutdown();
+        }
+        if (loreManager != null) {
+            loreManager.renderPendingUpdates();
+        }
+
         // Shutdown persistence system
         if (toolPersistenceManager != null) {
             toolPersistenceManager.shutdown();
@@ -119,6 +146,18 @@ public class GensTools extends JavaPlugin {
         return toolPersistenceManager;
     }
 
+    public ToolStateCache getToolStateCache() {
+        return toolStateCache;
+    }
+
+    public AreaBreakEngine getAreaBreakEngine() {
+        return areaBreakEngine;
+    }
+
+    public DropLedgerManager getDropLedgerManager() {
+        return dropLedgerManager;
+    }
+
     public NumberFormatter getNumberFormatter() {
         return numberFormatter;
     }
@@ -2,7 +2,13 @@ package me.opaque.genstools.commands;
 
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.gui.DropLedgerMenu;
 import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.persistence.SaveExecutor;
+import me.opaque.genstools.persistence.StorageBenchmark;
+import me.opaque.genstools.persistence.ToolIndex;
+import me.opaque.genstools.persistence.ToolJournal;
+import me.opaque.genstools.utils.LoreManager;
 import me.opaque.genstools.utils.NumberFormatter;
 import me.opaque.genstools.utils.Utils;
 import net.md_5.bungee.api.ChatColor;
@@ -20,6 +26,7 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class GensToolsCommand implements CommandExecutor, TabCompleter {
@@ -157,7 +164,7 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                 }
 
                 ItemStack levelToolItem = levelTarget.getInventory().getItemInMainHand();
-                if (setToolLevel(levelToolItem, newLevel)) {
+                if (setToolLevel(levelTarget, levelToolItem, newLevel)) {
                     sender.sendMessage(ChatColor.GREEN + "Set tool level to " + newLevel);
 
                     // Play sound and show effects if not sender
@@ -178,9 +185,9 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                     return true;
                 }
 
-                int expAmount;
+                long expAmount;
                 try {
-                    expAmount = Integer.parseInt(args[1]);
+                    expAmount = Long.parseLong(args[1]);
                 } catch (NumberFormatException e) {
                     sender.sendMessage(ChatColor.RED + "Invalid exp amount!");
                     return true;
@@ -207,7 +214,7 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                 }
 
                 ItemStack expToolItem = expTarget.getInventory().getItemInMainHand();
-                if (setToolExp(expToolItem, expAmount)) {
+                if (setToolExp(expTarget, expToolItem, expAmount)) {
                     sender.sendMessage(ChatColor.GREEN + "Set tool EXP to " + expAmount);
 
                     // Notify target if not sender
@@ -227,9 +234,9 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                     return true;
                 }
 
-                int addExpAmount;
+                long addExpAmount;
                 try {
-                    addExpAmount = Integer.parseInt(args[1]);
+                    addExpAmount = Long.parseLong(args[1]);
                 } catch (NumberFormatException e) {
                     sender.sendMessage(ChatColor.RED + "Invalid exp amount!");
                     return true;
@@ -256,7 +263,7 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                 }
 
                 ItemStack addExpToolItem = addExpTarget.getInventory().getItemInMainHand();
-                boolean leveledUp = addToolExp(addExpToolItem, addExpAmount);
+                boolean leveledUp = addToolExp(addExpTarget, addExpToolItem, addExpAmount);
 
                 if (leveledUp) {
                     int currentLevel = getToolLevel(addExpToolItem);
@@ -298,8 +305,8 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
 
                 String infoToolType = GensTool.getToolId(infoItem);
                 int infoToolLevel = GensTool.getToolLevel(infoItem);
-                int infoToolExp = GensTool.getToolExp(infoItem);
-                int infoRequiredExp = GensTool.calculateRequiredExp(infoToolLevel);
+                long infoToolExp = GensTool.getToolExp(infoItem);
+                long infoRequiredExp = GensTool.calculateRequiredExp(infoToolLevel);
 
                 sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.header"));
                 sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.type",
@@ -307,7 +314,9 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                 sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.level",
                         "level", infoToolLevel));
 
-                int infoPercent = (int) Math.round((double) infoToolExp / infoRequiredExp * 100);
+                // Tools at the maximum level need no more experience
+                int infoPercent = infoRequiredExp > 0
+                        ? (int) Math.round((double) infoToolExp / infoRequiredExp * 100) : 100;
                 sender.sendMessage(plugin.getMessageManager().getMessage("commands.info.exp",
                         "exp", infoToolExp,
                         "required", infoRequiredExp,
@@ -346,6 +355,26 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
                 sender.sendMessage(plugin.getMessageManager().getMessage("commands.reload.success"));
                 return true;
 
+            case "stats":
+                if (!hasPermission(sender, "genstools.command.stats")) return true;
+
+                sendStats(sender);
+                return true;
+
+            case "autosell":
+                if (!hasPermission(sender, "genstools.command.autosell")) return true;
+                if (!(sender instanceof Player autoSellPlayer)) {
+                    sender.sendMessage("This command can only be used by players.");
+                    return true;
+                }
+                if (!plugin.getDropLedgerManager().isEnabled()) {
+                    sender.sendMessage(ChatColor.RED + "Auto sell is disabled on this server.");
+                    return true;
+                }
+
+                new DropLedgerMenu(plugin, autoSellPlayer).open();
+                return true;
+
             case "help":
                 sendHelp(sender);
                 return true;
@@ -399,6 +428,15 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
             case "backup":
                 handleBackupCommand(sender, args);
                 break;
+            case "migrate":
+                handleMigrateCommand(sender, args);
+                break;
+            case "benchmark":
+                handleBenchmarkCommand(sender, args);
+                break;
+            case "query":
+                handleQueryCommand(sender, args);
+                break;
             default:
                 showPersistenceHelp(sender);
                 break;
@@ -431,11 +469,112 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        boolean success = GensTools.getInstance().getToolPersistenceManager().getStorage().createBackup();
-        if (success) {
-            sender.sendMessage(ChatColor.GREEN + "Tool data backup created successfully.");
+        sender.sendMessage(ChatColor.YELLOW + "Creating tool data backup...");
+        GensTools.getInstance().getToolPersistenceManager().getBackupScheduler().backupNow().thenAccept(success ->
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (success) {
+                        sender.sendMessage(ChatColor.GREEN + "Tool data backup created successfully.");
+                    } else {
+                        sender.sendMessage(ChatColor.RED + "Failed to create tool data backup. Check console for details.");
+                    }
+                }));
+    }
+
+    private void handleMigrateCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("genstools.admin.persistence.migrate")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to use this command.");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Migrating YAML tool data...");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            int migrated = plugin.getToolPersistenceManager().migrateFromYaml();
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (migrated < 0) {
+                    sender.sendMessage(ChatColor.RED + "Tool data is already stored as YAML. Change persistence.storage-type first.");
+                } else {
+                    sender.sendMessage(ChatColor.GREEN + "Migrated tool data of " + migrated + " players.");
+                }
+            });
+        });
+    }
+
+    private void handleBenchmarkCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("genstools.admin.persistence.benchmark")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to use this command.");
+            return;
+        }
+
+        int players = 500;
+        if (args.length > 2) {
+            try {
+                players = Math.max(1, Math.min(10000, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Invalid number: " + args[2]);
+                return;
+            }
+        }
+
+        int playerCount = players;
+        sender.sendMessage(ChatColor.YELLOW + "Benchmarking storages with " + playerCount + " players...");
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> messages = new ArrayList<>();
+            try {
+                for (String result : StorageBenchmark.run(plugin, playerCount)) {
+                    messages.add(ChatColor.YELLOW + result);
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Storage benchmark failed", e);
+                messages.add(ChatColor.RED + "Benchmark failed: " + e.getMessage());
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> messages.forEach(sender::sendMessage));
+        });
+    }
+
+    private void handleQueryCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("genstools.admin.persistence.query")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to use this command.");
+            return;
+        }
+
+        if (args.length < 4 || !(args[2].equalsIgnoreCase("tool") || args[2].equalsIgnoreCase("enchant"))) {
+            sender.sendMessage(ChatColor.RED + "Usage: /genstools persistence query <tool <toolId> | enchant <enchantId> [minLevel]>");
+            return;
+        }
+
+        ToolIndex index = plugin.getToolPersistenceManager().getToolIndex();
+        if (index.isRebuilding()) {
+            sender.sendMessage(ChatColor.YELLOW + "The tool index is still being rebuilt, results may be incomplete.");
+        }
+        Map<UUID, Integer> results;
+        if (args[2].equalsIgnoreCase("tool")) {
+            results = index.findToolOwners(args[3]);
+            sender.sendMessage(ChatColor.YELLOW + "Tool " + args[3] + ": " + ChatColor.GRAY
+                    + index.countTools(args[3]) + " tools owned by " + results.size() + " players");
         } else {
-            sender.sendMessage(ChatColor.RED + "Failed to create tool data backup. Check console for details.");
+            int minLevel = 1;
+            if (args.length > 4) {
+                try {
+                    minLevel = Integer.parseInt(args[4]);
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(ChatColor.RED + "Invalid number: " + args[4]);
+                    return;
+                }
+            }
+            results = index.findEnchantOwners(args[3], minLevel);
+            sender.sendMessage(ChatColor.YELLOW + "Enchant " + args[3] + " level " + minLevel + "+: " + ChatColor.GRAY
+                    + results.size() + " players");
+        }
+
+        int shown = 0;
+        for (Map.Entry<UUID, Integer> entry : results.entrySet()) {
+            if (shown++ == 10) {
+                sender.sendMessage(ChatColor.GRAY + "... and " + (results.size() - 10) + " more");
+                break;
+            }
+            String name = Bukkit.getOfflinePlayer(entry.getKey()).getName();
+            sender.sendMessage(ChatColor.YELLOW + "- " + (name != null ? name : entry.getKey().toString())
+                    + ChatColor.GRAY + " (" + entry.getValue() + ")");
         }
     }
 
@@ -444,6 +583,35 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "/genstools persistence save " + ChatColor.GRAY + "- Save all pending tool data");
         sender.sendMessage(ChatColor.YELLOW + "/genstools persistence reload " + ChatColor.GRAY + "- Reload the persistence system");
         sender.sendMessage(ChatColor.YELLOW + "/genstools persistence backup " + ChatColor.GRAY + "- Create a backup of all tool data");
+        sender.sendMessage(ChatColor.YELLOW + "/genstools persistence migrate " + ChatColor.GRAY + "- Copy YAML tool data into the configured storage");
+        sender.sendMessage(ChatColor.YELLOW + "/genstools persistence benchmark [players] " + ChatColor.GRAY + "- Compare YAML and binary storage speed");
+        sender.sendMessage(ChatColor.YELLOW + "/genstools persistence query tool <toolId> " + ChatColor.GRAY + "- Find the players owning a tool");
+        sender.sendMessage(ChatColor.YELLOW + "/genstools persistence query enchant <enchantId> [minLevel] " + ChatColor.GRAY + "- Find the players with an enchant level");
+    }
+
+    private void sendStats(CommandSender sender) {
+        sender.sendMessage(ChatColor.GOLD + "=== GensTools Statistics ===");
+
+        LoreManager loreManager = plugin.getLoreManager();
+        sender.sendMessage(ChatColor.YELLOW + "Lore renders: " + ChatColor.WHITE + loreManager.getRenderCount() +
+                ChatColor.GRAY + " (" + loreManager.getCoalescedCount() + " saved by coalescing)");
+        sender.sendMessage(ChatColor.YELLOW + "Lore sections reused: " + ChatColor.WHITE + loreManager.getSectionCacheHits());
+        sender.sendMessage(ChatColor.YELLOW + "Queued area blocks: " + ChatColor.WHITE +
+                plugin.getAreaBreakEngine().getPendingBlocks());
+
+        sender.sendMessage(ChatColor.YELLOW + "Tool data loads: " + ChatColor.WHITE +
+                plugin.getToolPersistenceManager().getLoadLatency().summary());
+
+        SaveExecutor saveExecutor = plugin.getToolPersistenceManager().getSaveExecutor();
+        sender.sendMessage(ChatColor.YELLOW + "Tool data saves: " + ChatColor.WHITE +
+                saveExecutor.getSaveLatency().summary() + ChatColor.GRAY + " (" + saveExecutor.getQueueDepth() +
+                " queued, p95 wait " + String.format("%.1fms", saveExecutor.getWaitLatency().getPercentile(95)) + ")");
+
+        ToolJournal journal = plugin.getToolPersistenceManager().getJournal();
+        if (journal != null) {
+            sender.sendMessage(ChatColor.YELLOW + "Journal size: " + ChatColor.WHITE +
+                    Utils.formatNumber(journal.getPendingBytes()) + " bytes");
+        }
     }
 
     private void sendHelp(CommandSender sender) {
@@ -477,6 +645,12 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
         if (sender.hasPermission("genstools.command.reload"))
             sender.sendMessage(ChatColor.YELLOW + "/genstools reload " + ChatColor.GRAY + "- Reload config");
 
+        if (sender.hasPermission("genstools.command.stats"))
+            sender.sendMessage(ChatColor.YELLOW + "/genstools stats " + ChatColor.GRAY + "- Show performance statistics");
+
+        if (sender.hasPermission("genstools.command.autosell"))
+            sender.sendMessage(ChatColor.YELLOW + "/genstools autosell " + ChatColor.GRAY + "- Open the auto sell menu");
+
         sender.sendMessage(ChatColor.YELLOW + "/genstools help " + ChatColor.GRAY + "- Show this help message");
     }
 
@@ -495,6 +669,8 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("genstools.command.addexp")) subcommands.add("addexp");
             if (sender.hasPermission("genstools.command.info")) subcommands.add("info");
             if (sender.hasPermission("genstools.command.reload")) subcommands.add("reload");
+            if (sender.hasPermission("genstools.command.stats")) subcommands.add("stats");
+            if (sender.hasPermission("genstools.command.autosell")) subcommands.add("autosell");
             // Inside the if (args.length == 1) block
             if (sender.hasPermission("genstools.command.givecube")) subcommands.add("givecube");
             subcommands.add("help");
@@ -606,7 +782,7 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
         return GensTool.getLevel(item);
     }
 
-    private int getToolExp(ItemStack item) {
+    private long getToolExp(ItemStack item) {
         return GensTool.getExperience(item);
     }
 
@@ -614,63 +790,20 @@ public class GensToolsCommand implements CommandExecutor, TabCompleter {
         return GensTool.getEnchantments(item);
     }
 
-    private boolean setToolLevel(ItemStack item, int level) {
-        if (!isGensTool(item)) {
-            return false;
-        }
-
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Set new level
-        container.set(me.opaque.genstools.tools.GensTool.KEY_LEVEL, PersistentDataType.INTEGER, level);
-
-        // Reset experience to 0
-        container.set(me.opaque.genstools.tools.GensTool.KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
-
-        // Update lore
-        me.opaque.genstools.tools.GensTool.updateLore(meta, level, 0, calculateRequiredExp(level));
-        item.setItemMeta(meta);
-
-        return true;
+    private boolean setToolLevel(Player owner, ItemStack item, int level) {
+        return GensTool.setLevel(owner, item, level);
     }
 
-    private boolean setToolExp(ItemStack item, int exp) {
-        if (!isGensTool(item)) {
-            return false;
-        }
-
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        int level = container.getOrDefault(me.opaque.genstools.tools.GensTool.KEY_LEVEL, PersistentDataType.INTEGER, 1);
-        int requiredExp = calculateRequiredExp(level);
-
-        // Cap exp at required amount to prevent issues
-        if (exp > requiredExp) {
-            exp = requiredExp;
-        }
-
-        // Set new exp
-        container.set(me.opaque.genstools.tools.GensTool.KEY_EXPERIENCE, PersistentDataType.INTEGER, exp);
-
-        // Update lore
-        me.opaque.genstools.tools.GensTool.updateLore(meta, level, exp, requiredExp);
-        item.setItemMeta(meta);
-
-        return true;
+    private boolean setToolExp(Player owner, ItemStack item, long exp) {
+        return GensTool.setExperience(owner, item, exp);
     }
 
-    private boolean addToolExp(ItemStack item, int amount) {
+    private boolean addToolExp(Player owner, ItemStack item, long amount) {
         if (!isGensTool(item)) {
             return false;
         }
 
-        return me.opaque.genstools.tools.GensTool.addExperience(item, amount);
-    }
-
-    private int calculateRequiredExp(int level) {
-        return 1000 + (level * 500);
+        return me.opaque.genstools.tools.GensTool.addExperience(owner, item, amount);
     }
 
     private String toRoman(int number) {
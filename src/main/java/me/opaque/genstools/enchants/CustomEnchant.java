@@ -1,6 +1,8 @@
 package me.opaque.genstools.enchants;
 
-import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
 
 public abstract class CustomEnchant {
     private final String id;
@@ -56,19 +58,35 @@ public abstract class CustomEnchant {
     }
 
     /**
-     * Handle the effect of this enchantment for a specific event
+     * Handle a block broken with a tool that has this enchantment
      *
-     * @param event The event to process
-     * @param level The level of this enchantment
+     * @param event The block break event
+     * @param context The player, tool and enchantment level
      * @return true if the enchantment had an effect, false otherwise
      */
-    public abstract boolean handleEffect(Event event, int level);
+    public boolean onBlockBreak(BlockBreakEvent event, EnchantContext context) {
+        return false;
+    }
 
     /**
-     * Check if this enchantment can handle the given event type
+     * Handle an entity damaged with a tool that has this enchantment
      *
-     * @param eventClass The event class to check
-     * @return true if this enchantment can handle the event, false otherwise
+     * @param event The damage event
+     * @param context The player, tool and enchantment level
+     * @return true if the enchantment had an effect, false otherwise
      */
-    public abstract boolean canHandleEvent(Class<? extends Event> eventClass);
-}
\ No newline at end of file
+    public boolean onDamage(EntityDamageByEntityEvent event, EnchantContext context) {
+        return false;
+    }
+
+    /**
+     * Handle an entity killed with a tool that has this enchantment
+     *
+     * @param event The death event
+     * @param context The player, tool and enchantment level
+     * @return true if the enchantment had an effect, false otherwise
+     */
+    public boolean onKill(EntityDeathEvent event, EnchantContext context) {
+        return false;
+    }
+}
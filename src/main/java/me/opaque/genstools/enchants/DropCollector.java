@@ -0,0 +1,141 @@
+package me.opaque.genstools.enchants;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Collects the drops enchantments produce for one block break or area, merged by
+ * material and item meta, and hands them to the player in a single inventory insert.
+ */
+public class DropCollector {
+    // Plain drops without item meta, by material
+    private final Map<Material, Integer> plainDrops = new EnumMap<>(Material.class);
+    // Drops with item meta, with the amount 1 stack as key
+    private final Map<ItemStack, Integer> metaDrops = new LinkedHashMap<>();
+
+    /**
+     * Add a number of plain items
+     *
+     * @param material The item material
+     * @param amount The amount
+     */
+    public void add(Material material, int amount) {
+        if (amount > 0) {
+            plainDrops.merge(material, amount, Integer::sum);
+        }
+    }
+
+    /**
+     * Add a drop, merging it with similar drops
+     *
+     * @param drop The drop
+     */
+    public void add(ItemStack drop) {
+        if (drop == null || drop.getType().isAir() || drop.getAmount() <= 0) {
+            return;
+        }
+
+        if (!drop.hasItemMeta()) {
+            add(drop.getType(), drop.getAmount());
+            return;
+        }
+
+        ItemStack key = drop.clone();
+        key.setAmount(1);
+        metaDrops.merge(key, drop.getAmount(), Integer::sum);
+    }
+
+    /**
+     * Move plain drops out of this collector, for drops that go somewhere other than the inventory
+     *
+     * @param filter Which materials to move
+     * @param sink Receives each moved material and amount
+     */
+    public void transferPlainDrops(Predicate<Material> filter, ObjIntConsumer<Material> sink) {
+        Iterator<Map.Entry<Material, Integer>> iterator = plainDrops.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Material, Integer> entry = iterator.next();
+            if (filter.test(entry.getKey())) {
+                sink.accept(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Check if nothing has been collected
+     *
+     * @return true if there are no drops
+     */
+    public boolean isEmpty() {
+        return plainDrops.isEmpty() && metaDrops.isEmpty();
+    }
+
+    /**
+     * Give all drops to a player in one insert. What doesn't fit is dropped at the
+     * location, merged into as few stacks as possible.
+     *
+     * @param player The player, or null to drop everything
+     * @param dropLocation Where to drop items that don't fit
+     */
+    public void commit(Player player, Location dropLocation) {
+        if (isEmpty()) {
+            return;
+        }
+
+        List<ItemStack> stacks = toStacks();
+        plainDrops.clear();
+        metaDrops.clear();
+
+        if (player != null && player.isOnline()) {
+            Map<Integer, ItemStack> leftover = player.getInventory().addItem(stacks.toArray(new ItemStack[0]));
+            if (leftover.isEmpty()) {
+                return;
+            }
+
+            // Partially inserted stacks come back separately, merge them again
+            DropCollector merged = new DropCollector();
+            leftover.values().forEach(merged::add);
+            stacks = merged.toStacks();
+        }
+
+        for (ItemStack stack : stacks) {
+            dropLocation.getWorld().dropItemNaturally(dropLocation, stack);
+        }
+    }
+
+    /**
+     * Split the collected drops into stacks of at most the max stack size
+     */
+    private List<ItemStack> toStacks() {
+        List<ItemStack> stacks = new ArrayList<>();
+        for (Map.Entry<Material, Integer> entry : plainDrops.entrySet()) {
+            addStacks(stacks, new ItemStack(entry.getKey()), entry.getValue());
+        }
+        for (Map.Entry<ItemStack, Integer> entry : metaDrops.entrySet()) {
+            addStacks(stacks, entry.getKey(), entry.getValue());
+        }
+        return stacks;
+    }
+
+    private static void addStacks(List<ItemStack> stacks, ItemStack template, int amount) {
+        int maxStack = template.getMaxStackSize();
+        while (amount > 0) {
+            ItemStack stack = template.clone();
+            stack.setAmount(Math.min(amount, maxStack));
+            stacks.add(stack);
+            amount -= stack.getAmount();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package me.opaque.genstools.enchants;
+
+import me.opaque.genstools.tools.ToolState;
+import org.bukkit.entity.Player;
+
+/**
+ * Everything an enchantment handler needs besides the event itself
+ */
+public class EnchantContext {
+    private final Player player;
+    private final ToolState toolState;
+    private final int level;
+    private final DropCollector drops;
+
+    public EnchantContext(Player player, ToolState toolState, int level) {
+        this(player, toolState, level, null);
+    }
+
+    public EnchantContext(Player player, ToolState toolState, int level, DropCollector drops) {
+        this.player = player;
+        this.toolState = toolState;
+        this.level = level;
+        this.drops = drops;
+    }
+
+    /**
+     * Gets the player using the tool
+     *
+     * @return The player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the state of the tool the enchantment is on. Must not be modified.
+     *
+     * @return The tool state
+     */
+    public ToolState getToolState() {
+        return toolState;
+    }
+
+    /**
+     * Gets the level of the enchantment on the tool
+     *
+     * @return The enchantment level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the collector for drops given to the player once all enchantments have run
+     *
+     * @return The drop collector, or null if the event doesn't produce drops
+     */
+    public DropCollector getDrops() {
+        return drops;
+    }
+}
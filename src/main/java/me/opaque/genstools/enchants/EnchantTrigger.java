@@ -0,0 +1,43 @@
+package me.opaque.genstools.enchants;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+
+/**
+ * The events an enchantment can react to, each backed by a typed handler method on {@link CustomEnchant}
+ */
+public enum EnchantTrigger {
+    BLOCK_BREAK("onBlockBreak", BlockBreakEvent.class),
+    DAMAGE("onDamage", EntityDamageByEntityEvent.class),
+    KILL("onKill", EntityDeathEvent.class);
+
+    private final String handlerName;
+    private final Class<? extends Event> eventClass;
+
+    EnchantTrigger(String handlerName, Class<? extends Event> eventClass) {
+        this.handlerName = handlerName;
+        this.eventClass = eventClass;
+    }
+
+    public Class<? extends Event> getEventClass() {
+        return eventClass;
+    }
+
+    /**
+     * Check whether an enchantment overrides the handler for this trigger.
+     * Resolved once when the enchantment is registered.
+     *
+     * @param enchant The enchantment
+     * @return true if the enchantment handles this trigger
+     */
+    public boolean isHandledBy(CustomEnchant enchant) {
+        try {
+            return enchant.getClass().getMethod(handlerName, eventClass, EnchantContext.class)
+                    .getDeclaringClass() != CustomEnchant.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package me.opaque.genstools.enchants.tools;
 
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.EnchantContext;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.inventory.ItemStack;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 public class AutoSmeltEnchant extends CustomEnchant {
+    private static final int NO_BONUS = Integer.MAX_VALUE;
+
+    // Smelted drops by block type
+    private static final Map<Material, Smelt> SMELT_TABLE = new EnumMap<>(Material.class);
+
+    static {
+        smelt(Material.IRON_ORE, Material.IRON_INGOT, 3);
+        smelt(Material.GOLD_ORE, Material.GOLD_INGOT, 3);
+        smelt(Material.COPPER_ORE, Material.COPPER_INGOT, 2);
+        smelt(Material.ANCIENT_DEBRIS, Material.NETHERITE_SCRAP, NO_BONUS);
+        smelt(Material.SAND, Material.GLASS, NO_BONUS);
+        smelt(Material.COBBLESTONE, Material.STONE, NO_BONUS);
+        smelt(Material.CLAY, Material.TERRACOTTA, NO_BONUS);
+        smelt(Material.NETHERRACK, Material.NETHER_BRICK, NO_BONUS);
+        smelt(Material.CACTUS, Material.GREEN_DYE, 2);
+        smelt(Material.RAW_IRON_BLOCK, Material.IRON_BLOCK, NO_BONUS);
+        smelt(Material.RAW_GOLD_BLOCK, Material.GOLD_BLOCK, NO_BONUS);
+        smelt(Material.RAW_COPPER_BLOCK, Material.COPPER_BLOCK, NO_BONUS);
+        smelt(Material.DEEPSLATE_IRON_ORE, Material.IRON_INGOT, 2);
+        smelt(Material.DEEPSLATE_GOLD_ORE, Material.GOLD_INGOT, 2);
+        smelt(Material.DEEPSLATE_COPPER_ORE, Material.COPPER_INGOT, 2);
+    }
 
     public AutoSmeltEnchant(String id, String displayName, String description, int maxLevel, boolean isTreasure, CurrencyType currencyType) {
         super(id, displayName, description, maxLevel, isTreasure, currencyType);
@@ -20,55 +42,36 @@ public class AutoSmeltEnchant extends CustomEnchant {
     }
 
     @Override
-    public boolean handleEffect(Event event, int level) {
-        if (!(event instanceof BlockBreakEvent blockBreakEvent)) {
+    public boolean onBlockBreak(BlockBreakEvent event, EnchantContext context) {
+        Smelt smelt = SMELT_TABLE.get(event.getBlock().getType());
+        if (smelt == null) {
             return false;
         }
 
-        Block block = blockBreakEvent.getBlock();
-        Player player = blockBreakEvent.getPlayer();
-
-        // Get smelted version of the drop
-        ItemStack smeltedDrop = getSmeltedDrop(block.getType(), level);
-        if (smeltedDrop != null) {
-            // Cancel the default drops
-            blockBreakEvent.setDropItems(false);
-
-            // Drop at block location if inventory is full
-            if (player.getInventory().firstEmpty() == -1) {
-                player.getWorld().dropItemNaturally(block.getLocation(), smeltedDrop);
-            } else {
-                player.getInventory().addItem(smeltedDrop);
-            }
-            return true;
-        }
-
-        return false;
+        // Cancel the default drops and give the smelted version instead
+        event.setDropItems(false);
+        context.getDrops().add(smelt.result, smelt.getAmount(context.getLevel()));
+        return true;
     }
 
-    @Override
-    public boolean canHandleEvent(Class<? extends Event> eventClass) {
-        return eventClass == BlockBreakEvent.class;
+    private static void smelt(Material block, Material result, int bonusAboveLevel) {
+        SMELT_TABLE.put(block, new Smelt(result, bonusAboveLevel));
     }
 
-    private ItemStack getSmeltedDrop(Material blockType, int level) {
-        return switch (blockType) {
-            case IRON_ORE -> new ItemStack(Material.IRON_INGOT, 1 + (level > 3 ? 1 : 0));
-            case GOLD_ORE -> new ItemStack(Material.GOLD_INGOT, 1 + (level > 3 ? 1 : 0));
-            case COPPER_ORE -> new ItemStack(Material.COPPER_INGOT, 1 + (level > 2 ? 1 : 0));
-            case ANCIENT_DEBRIS -> new ItemStack(Material.NETHERITE_SCRAP, 1);
-            case SAND -> new ItemStack(Material.GLASS, 1);
-            case COBBLESTONE -> new ItemStack(Material.STONE, 1);
-            case CLAY -> new ItemStack(Material.TERRACOTTA, 1);
-            case NETHERRACK -> new ItemStack(Material.NETHER_BRICK, 1);
-            case CACTUS -> new ItemStack(Material.GREEN_DYE, 1 + (level > 2 ? 1 : 0));
-            case RAW_IRON_BLOCK -> new ItemStack(Material.IRON_BLOCK, 1);
-            case RAW_GOLD_BLOCK -> new ItemStack(Material.GOLD_BLOCK, 1);
-            case RAW_COPPER_BLOCK -> new ItemStack(Material.COPPER_BLOCK, 1);
-            case DEEPSLATE_IRON_ORE -> new ItemStack(Material.IRON_INGOT, 1 + (level > 2 ? 1 : 0));
-            case DEEPSLATE_GOLD_ORE -> new ItemStack(Material.GOLD_INGOT, 1 + (level > 2 ? 1 : 0));
-            case DEEPSLATE_COPPER_ORE -> new ItemStack(Material.COPPER_INGOT, 1 + (level > 2 ? 1 : 0));
-            default -> null;
-        };
+    /**
+     * The smelted drop of a block. One item, plus one above a certain enchantment level.
+     */
+    private static class Smelt {
+        private final Material result;
+        private final int bonusAboveLevel;
+
+        private Smelt(Material result, int bonusAboveLevel) {
+            this.result = result;
+            this.bonusAboveLevel = bonusAboveLevel;
+        }
+
+        private int getAmount(int level) {
+            return level > bonusAboveLevel ? 2 : 1;
+        }
     }
-}
\ No newline at end of file
+}
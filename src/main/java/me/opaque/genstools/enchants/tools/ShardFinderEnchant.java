@@ -3,13 +3,11 @@ package me.opaque.genstools.enchants.tools;
 import me.opaque.genscore.GensCore;
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.EnchantContext;
 import me.opaque.genstools.utils.Utils;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.event.entity.EntityDeathEvent;
 
 import java.util.Random;
 
@@ -22,10 +20,9 @@ public class ShardFinderEnchant extends CustomEnchant {
     private double chancePerLevel = 0.05;  // 5% additional per level
     private double baseMultiplier = 1.5;  // 1.5x base multiplier
     private double multiplierPerLevel = 0.1;  // 0.1x additional per level
-    private double baseShardsPerMob = 1.0;  // Base shards per mob
-    private boolean useEntityHealth = true;  // Whether to use entity's max health to determine shards
+    private double baseShards = 1.0;  // Base shards per block
     private boolean enableMessages = true;  // Whether to display messages
-    private String activationMessage = "&6&lSHARD GREED ACTIVATED: &7Gained &e{shards} shards!";
+    private String activationMessage = "&6&lSHARD FINDER ACTIVATED: &7Gained &e{shards} shards!";
     private boolean configLoaded = false;
 
     public ShardFinderEnchant(String id, String displayName, String description, int maxLevel, boolean isTreasure, CurrencyType currencyType) {
@@ -57,29 +54,22 @@ public class ShardFinderEnchant extends CustomEnchant {
         chancePerLevel = config.getDouble("chance-per-level", chancePerLevel);
         baseMultiplier = config.getDouble("base-multiplier", baseMultiplier);
         multiplierPerLevel = config.getDouble("multiplier-per-level", multiplierPerLevel);
-        baseShardsPerMob = config.getDouble("base-shards-per-mob", baseShardsPerMob);
-        useEntityHealth = config.getBoolean("use-entity-health", useEntityHealth);
+        // Older configs still use the per-mob key copied from shard greed
+        baseShards = config.getDouble("base-shards", config.getDouble("base-shards-per-mob", baseShards));
         enableMessages = config.getBoolean("enable-messages", enableMessages);
         activationMessage = config.getString("activation-message", activationMessage);
         configLoaded = true;
     }
 
     @Override
-    public boolean handleEffect(Event event, int level) {
+    public boolean onBlockBreak(BlockBreakEvent event, EnchantContext context) {
         // Load config if not loaded yet
         if (!configLoaded) {
             loadConfig();
         }
 
-        if (!(event instanceof EntityDeathEvent deathEvent)) {
-            return false;
-        }
-
-        // Check if player killed the entity
-        Player player = deathEvent.getEntity().getKiller();
-        if (player == null) {
-            return false;
-        }
+        Player player = context.getPlayer();
+        int level = context.getLevel();
 
         // Calculate trigger chance based on level
         double triggerChance = baseChance + (chancePerLevel * (level - 1));
@@ -94,15 +84,6 @@ public class ShardFinderEnchant extends CustomEnchant {
             // Calculate multiplier based on level
             double shardsMultiplier = baseMultiplier + (multiplierPerLevel * (level - 1));
 
-            // Calculate base shards amount
-            double baseShards = baseShardsPerMob;
-
-            // If configured to use entity's health, factor that in
-            LivingEntity entity = deathEvent.getEntity();
-            if (useEntityHealth) {
-                baseShards = entity.getMaxHealth() * 0.5; // 0.5 shards per health point
-            }
-
             // Calculate final shards amount
             double shardsAmount = baseShards * shardsMultiplier;
             long finalShards = Math.round(shardsAmount);
@@ -127,9 +108,4 @@ public class ShardFinderEnchant extends CustomEnchant {
 
         return false;
     }
-
-    @Override
-    public boolean canHandleEvent(Class<? extends Event> eventClass) {
-        return eventClass == BlockBreakEvent.class;
-    }
-}
\ No newline at end of file
+}
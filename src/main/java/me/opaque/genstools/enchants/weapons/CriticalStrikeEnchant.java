@@ -1,8 +1,8 @@
 package me.opaque.genstools.enchants.weapons;
 
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.EnchantContext;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 
 import java.util.Random;
@@ -20,26 +20,19 @@ public class CriticalStrikeEnchant extends CustomEnchant {
     }
 
     @Override
-    public boolean handleEffect(Event event, int level) {
-        if (!(event instanceof EntityDamageByEntityEvent damageEvent)) {
-            return false;
-        }
-
-        if (!(damageEvent.getDamager() instanceof Player)) {
-            return false;
-        }
-
+    public boolean onDamage(EntityDamageByEntityEvent event, EnchantContext context) {
+        int level = context.getLevel();
         double critChance = 0.05 * level; // 5% per level
         double critMultiplier = 1.5 + (0.1 * level); // 1.5x base + 0.1x per level
 
         if (random.nextDouble() <= critChance) {
             // Apply critical damage
-            double originalDamage = damageEvent.getDamage();
+            double originalDamage = event.getDamage();
             double newDamage = originalDamage * critMultiplier;
-            damageEvent.setDamage(newDamage);
+            event.setDamage(newDamage);
 
             // Visual effect
-            Player player = (Player) damageEvent.getDamager();
+            Player player = context.getPlayer();
             player.sendMessage("§c§lCRITICAL HIT! §7(" + String.format("%.1f", newDamage) + " damage)");
 
             return true;
@@ -47,9 +40,4 @@ public class CriticalStrikeEnchant extends CustomEnchant {
 
         return false;
     }
-
-    @Override
-    public boolean canHandleEvent(Class<? extends Event> eventClass) {
-        return eventClass == EntityDamageByEntityEvent.class;
-    }
 }
\ No newline at end of file
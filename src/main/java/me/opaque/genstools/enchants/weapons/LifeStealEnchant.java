@@ -1,10 +1,10 @@
 package me.opaque.genstools.enchants.weapons;
 
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.EnchantContext;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 
 public class LifeStealEnchant extends CustomEnchant {
@@ -19,22 +19,16 @@ public class LifeStealEnchant extends CustomEnchant {
     }
 
     @Override
-    public boolean handleEffect(Event event, int level) {
-        if (!(event instanceof EntityDamageByEntityEvent damageEvent)) {
+    public boolean onDamage(EntityDamageByEntityEvent event, EnchantContext context) {
+        if (!(event.getEntity() instanceof LivingEntity)) {
             return false;
         }
 
-        if (!(damageEvent.getDamager() instanceof Player player)) {
-            return false;
-        }
-
-        if (!(damageEvent.getEntity() instanceof LivingEntity)) {
-            return false;
-        }
+        Player player = context.getPlayer();
 
         // Calculate life steal amount (percentage of damage dealt)
-        double healPercentage = 0.03 * level; // 3% per level
-        double damageDealt = damageEvent.getFinalDamage();
+        double healPercentage = 0.03 * context.getLevel(); // 3% per level
+        double damageDealt = event.getFinalDamage();
         double healAmount = damageDealt * healPercentage;
 
         // Apply healing
@@ -49,9 +43,4 @@ public class LifeStealEnchant extends CustomEnchant {
 
         return true;
     }
-
-    @Override
-    public boolean canHandleEvent(Class<? extends Event> eventClass) {
-        return EntityDamageByEntityEvent.class.isAssignableFrom(eventClass);
-    }
 }
\ No newline at end of file
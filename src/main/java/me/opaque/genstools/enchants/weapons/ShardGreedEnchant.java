@@ -3,11 +3,11 @@ package me.opaque.genstools.enchants.weapons;
 import me.opaque.genscore.GensCore;
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.EnchantContext;
 import me.opaque.genstools.utils.Utils;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDeathEvent;
 
 import java.util.Random;
@@ -64,21 +64,14 @@ public class ShardGreedEnchant extends CustomEnchant {
     }
 
     @Override
-    public boolean handleEffect(Event event, int level) {
+    public boolean onKill(EntityDeathEvent event, EnchantContext context) {
         // Load config if not loaded yet
         if (!configLoaded) {
             loadConfig();
         }
 
-        if (!(event instanceof EntityDeathEvent deathEvent)) {
-            return false;
-        }
-
-        // Check if player killed the entity
-        Player player = deathEvent.getEntity().getKiller();
-        if (player == null) {
-            return false;
-        }
+        Player player = context.getPlayer();
+        int level = context.getLevel();
 
         // Calculate trigger chance based on level
         double triggerChance = baseChance + (chancePerLevel * (level - 1));
@@ -97,7 +90,7 @@ public class ShardGreedEnchant extends CustomEnchant {
             double baseShards = baseShardsPerMob;
 
             // If configured to use entity's health, factor that in
-            LivingEntity entity = deathEvent.getEntity();
+            LivingEntity entity = event.getEntity();
             if (useEntityHealth) {
                 baseShards = entity.getMaxHealth() * 0.5; // 0.5 shards per health point
             }
@@ -126,9 +119,4 @@ public class ShardGreedEnchant extends CustomEnchant {
 
         return false;
     }
-
-    @Override
-    public boolean canHandleEvent(Class<? extends Event> eventClass) {
-        return eventClass == EntityDeathEvent.class;
-    }
 }
\ No newline at end of file
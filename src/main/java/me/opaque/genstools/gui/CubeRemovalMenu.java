@@ -173,49 +173,8 @@ public class CubeRemovalMenu extends Menu {
     private Map<String, Double> getAppliedCubesFromTool(ItemStack toolItem) {
         Map<String, Double> cubes = new HashMap<>();
 
-        if (!GensTool.isGensTool(toolItem)) {
-            return cubes;
-        }
-
-        ItemMeta meta = toolItem.getItemMeta();
-        if (meta == null) {
-            return cubes;
-        }
-
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Check for the consolidated cubes string
-        NamespacedKey cubesKey = new NamespacedKey(plugin, "applied_cubes");
-        if (container.has(cubesKey, PersistentDataType.STRING)) {
-            String cubesData = container.get(cubesKey, PersistentDataType.STRING);
-            if (cubesData != null && !cubesData.isEmpty()) {
-                // Parse existing cubes
-                for (String cube : cubesData.split(",")) {
-                    String[] parts = cube.split(":");
-                    if (parts.length == 2) {
-                        String enchantId = parts[0];
-                        double boostPercent;
-                        try {
-                            boostPercent = Integer.parseInt(parts[1]);
-                            cubes.put(enchantId, boostPercent);
-                        } catch (NumberFormatException e) {
-                            // Skip invalid entries
-                        }
-                    }
-                }
-            }
-        }
-
-        // Also check individual multiplier keys for any cubes that might have been missed
-        for (String enchantId : GensTool.getEnchantments(toolItem).keySet()) {
-            NamespacedKey multiplierKey = new NamespacedKey(plugin, "enchant_multiplier_" + enchantId);
-            if (container.has(multiplierKey, PersistentDataType.DOUBLE)) {
-                double multiplier = container.get(multiplierKey, PersistentDataType.DOUBLE);
-                if (multiplier > 0) {
-                    // Convert multiplier to percentage (0.2 -> 20%)
-                    cubes.put(enchantId, multiplier * 100);
-                }
-            }
+        for (Map.Entry<String, Integer> entry : GensTool.getAppliedCubes(toolItem).entrySet()) {
+            cubes.put(entry.getKey(), (double) entry.getValue());
         }
 
         return cubes;
@@ -450,51 +409,10 @@ public class CubeRemovalMenu extends Menu {
      * @return true if successful, false otherwise
      */
     private boolean removeCubeFromTool(ItemStack toolItem, String enchantId) {
-        if (!GensTool.isGensTool(toolItem)) {
+        if (!GensTool.setCubeBoost(toolItem, enchantId, 0)) {
             return false;
         }
 
-        ItemMeta meta = toolItem.getItemMeta();
-        if (meta == null) {
-            return false;
-        }
-
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Remove the individual multiplier key
-        NamespacedKey multiplierKey = new NamespacedKey(plugin, "enchant_multiplier_" + enchantId);
-        container.remove(multiplierKey);
-
-        // Update the consolidated cubes string
-        NamespacedKey cubesKey = new NamespacedKey(plugin, "applied_cubes");
-        if (container.has(cubesKey, PersistentDataType.STRING)) {
-            String cubesData = container.get(cubesKey, PersistentDataType.STRING);
-            if (cubesData != null && !cubesData.isEmpty()) {
-                // Parse existing cubes and rebuild without the removed one
-                StringBuilder sb = new StringBuilder();
-                boolean first = true;
-
-                for (String cube : cubesData.split(",")) {
-                    String[] parts = cube.split(":");
-                    if (parts.length == 2) {
-                        String cubeEnchantId = parts[0];
-                        if (!cubeEnchantId.equals(enchantId)) {
-                            if (!first) {
-                                sb.append(",");
-                            }
-                            sb.append(cube);
-                            first = false;
-                        }
-                    }
-                }
-
-                container.set(cubesKey, PersistentDataType.STRING, sb.toString());
-            }
-        }
-
-        // Apply changes
-        toolItem.setItemMeta(meta);
-
         // Update the tool lore
         GensTool.updateEnchantmentLore(toolItem);
 
@@ -0,0 +1,94 @@
+package me.opaque.genstools.gui;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.manager.DropLedgerManager;
+import me.opaque.genstools.utils.Utils;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Menu showing a player's pending auto-sell drops, with buttons to sell now and toggle auto-sell
+ */
+public class DropLedgerMenu extends Menu {
+    private static final int ITEM_SLOTS = 27;
+    private static final int TOGGLE_SLOT = 30;
+    private static final int INFO_SLOT = 31;
+    private static final int SELL_SLOT = 32;
+
+    private final DropLedgerManager ledgerManager;
+    private final ConfigurationSection config;
+
+    public DropLedgerMenu(GensTools plugin, Player player) {
+        super(plugin, player, plugin.getGuiConfig().getString("drop-ledger.title", "&6Auto Sell"), 4);
+        this.ledgerManager = plugin.getDropLedgerManager();
+        this.config = plugin.getGuiConfig().getConfigurationSection("drop-ledger");
+    }
+
+    @Override
+    protected void build() {
+        DropLedgerManager.Ledger ledger = ledgerManager.getLedger(player.getUniqueId());
+        String currency = ledgerManager.getCurrency().name().toLowerCase();
+
+        // Pending drops, largest first
+        if (ledger != null) {
+            List<Map.Entry<Material, Long>> pending = new ArrayList<>(ledger.getPendingCounts().entrySet());
+            pending.sort(Map.Entry.<Material, Long>comparingByValue(Comparator.reverseOrder()));
+
+            for (int i = 0; i < pending.size() && i < ITEM_SLOTS; i++) {
+                Material material = pending.get(i).getKey();
+                long count = pending.get(i).getValue();
+                double value = count * ledgerManager.getPrice(material);
+
+                setItem(i, createItem(material, "&e" + Utils.formatNumber(count) + "x &f" + formatName(material),
+                        Arrays.asList("&7Worth: &e" + Utils.formatNumber(value) + " &7" + currency)));
+            }
+        }
+
+        boolean active = ledgerManager.isActive(player);
+        setItem(TOGGLE_SLOT, createItem(active ? Material.LIME_DYE : Material.GRAY_DYE,
+                active ? getString("toggle.on", "&aAuto Sell: On") : getString("toggle.off", "&cAuto Sell: Off"),
+                Arrays.asList("&7Click to turn auto sell " + (active ? "off" : "on"))), event -> {
+            ledgerManager.setActive(player, !active);
+            refresh();
+        });
+
+        long pendingItems = ledger != null ? ledger.getPendingItems() : 0;
+        long soldItems = ledger != null ? ledger.getSoldItems() : 0;
+        long soldValue = ledger != null ? ledger.getSoldValue() : 0;
+        setItem(INFO_SLOT, createItem(Material.BOOK, getString("info.name", "&eAuto Sell"),
+                Arrays.asList(
+                        "&7Pending items: &e" + Utils.formatNumber(pendingItems),
+                        "&7Sold this session: &e" + Utils.formatNumber(soldItems),
+                        "&7Earned this session: &e" + Utils.formatNumber(soldValue) + " &7" + currency)));
+
+        setItem(SELL_SLOT, createItem(Material.EMERALD, getString("sell.name", "&aSell Now"),
+                Arrays.asList("&7Sell all pending items now")), event -> {
+            ledgerManager.flush(player.getUniqueId());
+            refresh();
+        });
+
+        fillEmptySlots(Material.GRAY_STAINED_GLASS_PANE);
+    }
+
+    private String getString(String path, String def) {
+        return config != null ? config.getString(path, def) : def;
+    }
+
+    private String formatName(Material material) {
+        String[] parts = material.name().toLowerCase().split("_");
+        StringBuilder result = new StringBuilder();
+        for (String part : parts) {
+            if (!part.isEmpty()) {
+                result.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1)).append(" ");
+            }
+        }
+        return result.toString().trim();
+    }
+}
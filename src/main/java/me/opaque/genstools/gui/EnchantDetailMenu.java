@@ -621,7 +621,7 @@ public class EnchantDetailMenu extends Menu {
         }
 
         // Apply upgrade
-        boolean upgradeSuccess = GensTool.addEnchantment(toolItem, enchantId, currentLevel + increment);
+        boolean upgradeSuccess = GensTool.addEnchantment(player, toolItem, enchantId, currentLevel + increment, true);
 
         if (!upgradeSuccess) {
             // Refund if failed
@@ -717,7 +717,7 @@ public class EnchantDetailMenu extends Menu {
         }
 
         // Apply upgrade
-        boolean upgradeSuccess = GensTool.addEnchantment(toolItem, enchantId, currentLevel + affordableLevels);
+        boolean upgradeSuccess = GensTool.addEnchantment(player, toolItem, enchantId, currentLevel + affordableLevels, true);
 
         if (!upgradeSuccess) {
             // Refund if failed
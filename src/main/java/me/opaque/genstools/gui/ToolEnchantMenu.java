@@ -385,8 +385,8 @@ public class ToolEnchantMenu extends Menu {
         if (!infoInfo.enabled) return;
 
         int level = GensTool.getLevel(toolItem);
-        int exp = GensTool.getExperience(toolItem);
-        int reqExp = GensTool.calculateRequiredExp(level);
+        long exp = GensTool.getExperience(toolItem);
+        long reqExp = GensTool.calculateRequiredExp(level);
 
         List<String> lore = new ArrayList<>();
         for (String line : infoInfo.lore) {
@@ -569,20 +569,9 @@ public class ToolEnchantMenu extends Menu {
         api.addShards(player.getUniqueId(), refundShards);
         api.addRunes(player.getUniqueId(), refundRunes);
 
-        // Reset all enchantments
-        boolean success = true;
-        // Use the current enchantments map to know which ones to remove
-        for (String enchantId : new ArrayList<>(currentEnchants.keySet())) {
-            boolean removed = GensTool.removeEnchantment(toolItem, enchantId, false); // Don't update lore on each removal
-            if (!removed) {
-                success = false;
-            }
-        }
-
-        // Update lore once after all removals
-        GensTool.updateEnchantmentLore(toolItem);
+        // Reset all enchantments with a single write, lore update and persistence update
+        boolean success = GensTool.edit(toolItem).owner(player).clearEnchantments().commit();
 
-        plugin.getToolPersistenceManager().handleToolUpdate(player, toolItem);
         // Clear the local enchants map
         currentEnchants.clear();
 
@@ -739,27 +728,7 @@ public class ToolEnchantMenu extends Menu {
      * Get count of applied cubes from the tool
      */
     private int getCubeCount(ItemStack toolItem) {
-        if (!GensTool.isGensTool(toolItem)) {
-            return 0;
-        }
-
-        ItemMeta meta = toolItem.getItemMeta();
-        if (meta == null) {
-            return 0;
-        }
-
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Check for the consolidated cubes string
-        NamespacedKey cubesKey = new NamespacedKey(plugin, "applied_cubes");
-        if (container.has(cubesKey, PersistentDataType.STRING)) {
-            String cubesData = container.get(cubesKey, PersistentDataType.STRING);
-            if (cubesData != null && !cubesData.isEmpty()) {
-                return cubesData.split(",").length;
-            }
-        }
-
-        return 0;
+        return GensTool.getAppliedCubes(toolItem).size();
     }
 
     /**
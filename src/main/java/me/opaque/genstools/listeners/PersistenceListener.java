@@ -1,6 +1,7 @@
 package me.opaque.genstools.listeners;
 
 import me.opaque.genstools.GensTools;
+import me.opaque.genstools.persistence.PlayerToolData;
 import me.opaque.genstools.tools.GensTool;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -8,10 +9,16 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Listener for persistence-related events
  */
@@ -22,14 +29,36 @@ public class PersistenceListener implements Listener {
         this.plugin = plugin;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Start loading tool data before the player is in the world
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            plugin.getToolPersistenceManager().loadAsync(event.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        // Denied after the preload started, e.g. whitelist or full server
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            plugin.getToolPersistenceManager().discardPreload(event.getPlayer().getUniqueId());
+        }
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+
         // Handle player join
-        plugin.getToolPersistenceManager().handlePlayerJoin(event.getPlayer());
+        CompletableFuture<PlayerToolData> loaded = plugin.getToolPersistenceManager().handlePlayerJoin(player);
 
-        // Schedule a task to check inventory for tools
+        // Schedule a task to check inventory for tools once the data is loaded
         Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            checkPlayerInventory(event.getPlayer());
+            if (loaded.isDone()) {
+                checkPlayerInventory(player);
+            } else {
+                loaded.thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> checkPlayerInventory(player)));
+            }
         }, 20L); // 1 second delay
     }
 
@@ -56,11 +85,28 @@ public class PersistenceListener implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDrop(PlayerDropItemEvent event) {
+        plugin.getToolPersistenceManager().handleToolDrop(event.getPlayer(), event.getItemDrop().getItemStack());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        // Tools taken out of containers or trades change owner
+        if (event.getPlayer() instanceof Player player) {
+            plugin.getToolPersistenceManager().claimInventoryTools(player);
+        }
+    }
+
     /**
      * Check a player's inventory for GensTools and register/update them
      * @param player The player to check
      */
     private void checkPlayerInventory(Player player) {
+        if (!player.isOnline()) {
+            return;
+        }
+
         // Check all items in inventory
         for (ItemStack item : player.getInventory().getContents()) {
             if (item != null && GensTool.isGensTool(item)) {
@@ -0,0 +1,78 @@
+package me.opaque.genstools.listeners;
+
+import me.opaque.genstools.GensTools;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Writes cached tool data and deferred lore back to the item whenever the held tool
+ * may leave the player's hand or be displayed, and sells pending auto-sell drops on quit
+ */
+public class ToolCacheListener implements Listener {
+    private final GensTools plugin;
+
+    public ToolCacheListener(GensTools plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        plugin.getToolStateCache().flush(event.getPlayer());
+        plugin.getLoreManager().renderPendingUpdates(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        plugin.getToolStateCache().flush(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onInventoryOpen(InventoryOpenEvent event) {
+        if (event.getPlayer() instanceof Player player) {
+            plugin.getToolStateCache().flush(player);
+            plugin.getLoreManager().renderPendingUpdates(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (event.getWhoClicked() instanceof Player player) {
+            plugin.getToolStateCache().flush(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onDropItem(PlayerDropItemEvent event) {
+        // The item has already left the inventory, so write into the dropped stack
+        Item drop = event.getItemDrop();
+        ItemStack stack = drop.getItemStack();
+        if (plugin.getToolStateCache().flush(event.getPlayer(), stack)) {
+            drop.setItemStack(stack);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onDeath(PlayerDeathEvent event) {
+        // Write into the dropped copy, or the inventory if it was kept
+        plugin.getToolStateCache().flush(event.getEntity(), event.getDrops());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onQuit(PlayerQuitEvent event) {
+        // Runs before PersistenceListener saves the player's data
+        plugin.getToolStateCache().flush(event.getPlayer());
+        plugin.getLoreManager().renderPendingUpdates(event.getPlayer());
+        plugin.getDropLedgerManager().remove(event.getPlayer().getUniqueId());
+    }
+}
@@ -1,7 +1,11 @@
 package me.opaque.genstools.listeners;
 
 import me.opaque.genstools.GensTools;
-import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.DropCollector;
+import me.opaque.genstools.enchants.EnchantContext;
+import me.opaque.genstools.enchants.EnchantTrigger;
+import me.opaque.genstools.manager.ToolManager;
+import me.opaque.genstools.manager.ToolStateCache.CachedTool;
 import me.opaque.genstools.tools.GensTool;
 import me.opaque.genstools.tools.types.GensPickaxe;
 import me.opaque.genstools.tools.types.GensSword;
@@ -10,19 +14,15 @@ import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
-import java.util.Map;
-
 public class ToolEventListener implements Listener {
     private final GensTools plugin;
 
@@ -32,23 +32,18 @@ public class ToolEventListener implements Listener {
 
     @EventHandler(priority = EventPriority.NORMAL)
     public void onBlockBreak(BlockBreakEvent event) {
-        // Process enchantment effects
-        processEvent(event);
-
-        // Add experience from mining
+        // Skip if not holding a GensTool
         Player player = event.getPlayer();
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Skip if not a GensTool
-        if (!GensTool.isGensTool(item)) {
+        CachedTool heldTool = plugin.getToolStateCache().getHeldTool(player);
+        if (heldTool == null) {
             return;
         }
 
-        // Check if this is a pickaxe by checking the tool ID
-        String toolId = GensTool.getToolId(item);
-        if (toolId == null) return;
+        // Process enchantment effects
+        processBlockBreak(event, player, heldTool);
 
-        GensTool tool = plugin.getToolManager().getToolById(toolId);
+        // Check if this is a pickaxe by checking the tool ID
+        GensTool tool = plugin.getToolManager().getToolById(heldTool.getState().getToolId());
         if (!(tool instanceof GensPickaxe)) {
             return; // Not a pickaxe
         }
@@ -61,44 +56,32 @@ public class ToolEventListener implements Listener {
             return; // No experience for this block
         }
 
-        // Apply any global boosters
+        // Apply any global boosters, rounding saturates instead of overflowing
         double expMultiplier = plugin.getConfigManager().getGlobalExpMultiplier();
-        expValue = (int) Math.round(expValue * expMultiplier);
+        long totalExp = Math.round(expValue * expMultiplier);
 
         // Add experience to the tool
-        boolean leveledUp = GensTool.addExperience(item, expValue);
-
-        // Show level up message and effects if configured
-        if (leveledUp) {
-            handleLevelUp(player, item);
-        }
-
-        plugin.getToolPersistenceManager().handleToolUpdate(player, item);
+        addExperience(player, heldTool, totalExp);
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
     public void onEntityDamage(EntityDamageByEntityEvent event) {
-        // Process enchantment effects
-        processEvent(event);
-
         // Check if damage was done by a player
         if (!(event.getDamager() instanceof Player player)) {
             return;
         }
 
-        // Add experience from combat
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Skip if not a GensTool
-        if (!GensTool.isGensTool(item)) {
+        // Skip if not holding a GensTool
+        CachedTool heldTool = plugin.getToolStateCache().getHeldTool(player);
+        if (heldTool == null) {
             return;
         }
 
-        // Check if this is a sword by checking the tool ID
-        String toolId = GensTool.getToolId(item);
-        if (toolId == null) return;
+        // Process enchantment effects
+        processDamage(event, player, heldTool);
 
-        GensTool tool = plugin.getToolManager().getToolById(toolId);
+        // Check if this is a sword by checking the tool ID
+        GensTool tool = plugin.getToolManager().getToolById(heldTool.getState().getToolId());
         if (!(tool instanceof GensSword)) {
             return; // Not a sword
         }
@@ -109,25 +92,18 @@ public class ToolEventListener implements Listener {
         }
 
         // Calculate experience based on damage and entity type
-        int baseExp = (int) Math.round(event.getFinalDamage() * 10);
+        long baseExp = Math.round(event.getFinalDamage() * 10);
 
         // Add bonus for entity type
         int entityBonus = plugin.getConfigManager().getMobExpBonus(livingEntity.getType());
-        int totalExp = baseExp + entityBonus;
+        long totalExp = baseExp + entityBonus;
 
         // Apply any global boosters
         double expMultiplier = plugin.getConfigManager().getGlobalExpMultiplier();
-        totalExp = (int) Math.round(totalExp * expMultiplier);
+        totalExp = Math.round(totalExp * expMultiplier);
 
         // Add experience to the tool
-        boolean leveledUp = GensTool.addExperience(item, totalExp);
-
-        // Show level up message and effects if configured
-        if (leveledUp) {
-            handleLevelUp(player, item);
-        }
-
-        plugin.getToolPersistenceManager().handleToolUpdate(player, item);
+        addExperience(player, heldTool, totalExp);
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
@@ -141,29 +117,24 @@ public class ToolEventListener implements Listener {
             return;
         }
 
-        // Process enchantment effects for Shard Greed and any other death-related enchantments
-        processEvent(event);
-
-        // Get the item in player's hand
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Skip if not a GensTool
-        if (!GensTool.isGensTool(item)) {
+        // Skip if not holding a GensTool
+        CachedTool heldTool = plugin.getToolStateCache().getHeldTool(player);
+        if (heldTool == null) {
             return;
         }
 
-        // Check if this is a sword by checking the tool ID
-        String toolId = GensTool.getToolId(item);
-        if (toolId == null) return;
+        // Process enchantment effects for Shard Greed and any other death-related enchantments
+        processKill(event, player, heldTool);
 
-        GensTool tool = plugin.getToolManager().getToolById(toolId);
+        // Check if this is a sword by checking the tool ID
+        GensTool tool = plugin.getToolManager().getToolById(heldTool.getState().getToolId());
         if (!(tool instanceof GensSword)) {
             return; // Not a sword
         }
 
         // Add death-specific experience bonus
         // Calculate base kill experience using config value
-        int baseKillExp = (int)(entity.getMaxHealth() * plugin.getConfigManager().getBaseKillExpPerHealth());
+        long baseKillExp = (long) (entity.getMaxHealth() * plugin.getConfigManager().getBaseKillExpPerHealth());
 
         // Add a bonus based on entity type (more XP for harder mobs)
         int entityTypeBonus = plugin.getConfigManager().getMobExpBonus(entity.getType());
@@ -175,21 +146,14 @@ public class ToolEventListener implements Listener {
         }
 
         // Calculate total kill experience
-        int totalKillExp = baseKillExp + entityTypeBonus + bossBonus;
+        long totalKillExp = baseKillExp + entityTypeBonus + bossBonus;
 
         // Apply any global experience multipliers
         double expMultiplier = plugin.getConfigManager().getGlobalExpMultiplier();
-        totalKillExp = (int) Math.round(totalKillExp * expMultiplier);
+        totalKillExp = Math.round(totalKillExp * expMultiplier);
 
         // Add experience to the tool
-        boolean leveledUp = GensTool.addExperience(item, totalKillExp);
-
-        // Show level up message and effects if configured
-        if (leveledUp) {
-            handleLevelUp(player, item);
-        }
-
-        plugin.getToolPersistenceManager().handleToolUpdate(player, item);
+        addExperience(player, heldTool, totalKillExp);
 
         // Optionally show the player how much XP they gained
         if (plugin.getConfigManager().isShowExpGainMessages()) {
@@ -200,59 +164,82 @@ public class ToolEventListener implements Listener {
     }
 
     /**
-     * Process any event that might trigger enchantment effects
+     * Run the block break handlers of the held tool's enchantments
      *
      * @param event The event to process
+     * @param player The player holding the tool
+     * @param heldTool The tool the player is holding
      */
-    private void processEvent(Event event) {
-        // Check if this is a player-based event
-        Player player = null;
-
-        if (event instanceof BlockBreakEvent) {
-            player = ((BlockBreakEvent) event).getPlayer();
-        } else if (event instanceof EntityDamageByEntityEvent damageEvent) {
-            if (damageEvent.getDamager() instanceof Player) {
-                player = (Player) damageEvent.getDamager();
+    private void processBlockBreak(BlockBreakEvent event, Player player, CachedTool heldTool) {
+        ToolManager toolManager = plugin.getToolManager();
+        int[] levels = heldTool.getEnchantLevels(toolManager);
+        DropCollector drops = new DropCollector();
+
+        // Only the enchantments with a block break handler are visited
+        for (int slot : toolManager.getEnchantHandlers(EnchantTrigger.BLOCK_BREAK)) {
+            int level = levels[slot];
+            if (level > 0) {
+                toolManager.getEnchantBySlot(slot).onBlockBreak(event,
+                        new EnchantContext(player, heldTool.getState(), level, drops));
             }
-        } else if (event instanceof EntityDeathEvent deathEvent) {
-            player = deathEvent.getEntity().getKiller();
-        }
-
-        if (player == null) {
-            return;
-        }
-
-        // Get the item in the player's hand
-        ItemStack item = player.getInventory().getItemInMainHand();
-        if (item == null || item.getItemMeta() == null) {
-            return;
         }
 
-        // Check if this is a GensTool
-        if (!GensTool.isGensTool(item)) {
-            return;
-        }
+        // Give everything the enchantments produced in one go, minus what gets auto-sold
+        plugin.getDropLedgerManager().absorb(player, drops);
+        drops.commit(player, event.getBlock().getLocation().add(0.5, 0.5, 0.5));
+    }
 
-        // Get the enchantments on this tool
-        Map<String, Integer> enchants = GensTool.getEnchantments(item);
-        if (enchants.isEmpty()) {
-            return;
+    /**
+     * Run the damage handlers of the held tool's enchantments
+     *
+     * @param event The event to process
+     * @param player The player holding the tool
+     * @param heldTool The tool the player is holding
+     */
+    private void processDamage(EntityDamageByEntityEvent event, Player player, CachedTool heldTool) {
+        ToolManager toolManager = plugin.getToolManager();
+        int[] levels = heldTool.getEnchantLevels(toolManager);
+
+        for (int slot : toolManager.getEnchantHandlers(EnchantTrigger.DAMAGE)) {
+            int level = levels[slot];
+            if (level > 0) {
+                toolManager.getEnchantBySlot(slot).onDamage(event,
+                        new EnchantContext(player, heldTool.getState(), level));
+            }
         }
+    }
 
-        // Process each enchantment
-        for (Map.Entry<String, Integer> entry : enchants.entrySet()) {
-            String enchantId = entry.getKey();
-            int level = entry.getValue();
-
-            CustomEnchant enchant = plugin.getToolManager().getEnchantById(enchantId);
-            if (enchant == null) {
-                continue;
+    /**
+     * Run the kill handlers of the held tool's enchantments
+     *
+     * @param event The event to process
+     * @param player The player holding the tool
+     * @param heldTool The tool the player is holding
+     */
+    private void processKill(EntityDeathEvent event, Player player, CachedTool heldTool) {
+        ToolManager toolManager = plugin.getToolManager();
+        int[] levels = heldTool.getEnchantLevels(toolManager);
+
+        for (int slot : toolManager.getEnchantHandlers(EnchantTrigger.KILL)) {
+            int level = levels[slot];
+            if (level > 0) {
+                toolManager.getEnchantBySlot(slot).onKill(event,
+                        new EnchantContext(player, heldTool.getState(), level));
             }
+        }
+    }
 
-            // Check if this enchantment can handle this event type
-            if (enchant.canHandleEvent(event.getClass())) {
-                enchant.handleEffect(event, level);
-            }
+    /**
+     * Add experience to the held tool, collected by the cache until a flush or a level up
+     *
+     * @param player The player holding the tool
+     * @param heldTool The tool to add experience to
+     * @param amount The amount of experience to add
+     */
+    private void addExperience(Player player, CachedTool heldTool, long amount) {
+        // Show level up message and effects if configured
+        if (plugin.getToolStateCache().addExperience(player, heldTool, amount)) {
+            handleLevelUp(player, heldTool.getState().getLevel());
         }
     }
 
@@ -260,17 +247,15 @@ public class ToolEventListener implements Listener {
      * Handle tool level up effects and messages
      *
      * @param player The player who owns the tool
-     * @param item The tool that leveled up
+     * @param level The new level of the tool
      */
-    private void handleLevelUp(Player player, ItemStack item) {
+    private void handleLevelUp(Player player, int level) {
         // Check plugin configuration for level up settings
         if (!plugin.getConfigManager().isShowLevelUpMessages() &&
                 !plugin.getConfigManager().isShowLevelUpEffects()) {
             return;
         }
 
-        int level = GensTool.getLevel(item);
-
         // Show level up message
         if (plugin.getConfigManager().isShowLevelUpMessages()) {
             String message = plugin.getConfigManager().getLevelUpMessage()
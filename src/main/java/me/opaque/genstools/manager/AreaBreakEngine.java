@@ -0,0 +1,207 @@
+package me.opaque.genstools.manager;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.enchants.DropCollector;
+import me.opaque.genstools.utils.AreaScan;
+import me.opaque.genstools.utils.AreaShape;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Breaks blocks for area enchantments in batches spread over several ticks.
+ * Each world gets a budget of block changes per tick. Blocks are removed without
+ * physics updates, and the drops of a whole area go into the player's inventory
+ * in a single insert once the area is done.
+ */
+public class AreaBreakEngine {
+    private final GensTools plugin;
+
+    // Queued areas by world UUID, processed in order
+    private final Map<UUID, ArrayDeque<AreaBreak>> queues = new HashMap<>();
+    private BukkitTask task;
+
+    public AreaBreakEngine(GensTools plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue the blocks around a broken block to be broken by a player
+     *
+     * @param player The player breaking the blocks
+     * @param origin The block the area is centered on, which is not broken itself
+     * @param shape The shape of the area
+     * @param radius The radius of the area
+     */
+    public void queue(Player player, Block origin, AreaShape shape, int radius) {
+        int[] offsets = AreaScan.scan(origin, shape, radius, AreaBreakEngine::isBreakable);
+        if (offsets.length == 0) {
+            return;
+        }
+
+        // Copy the tool so drops use its enchantments even if the player switches items
+        ItemStack tool = player.getInventory().getItemInMainHand().clone();
+        AreaBreak area = new AreaBreak(player.getUniqueId(), tool, origin, offsets);
+
+        queues.computeIfAbsent(origin.getWorld().getUID(), k -> new ArrayDeque<>()).add(area);
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Gets the number of queued blocks that haven't been processed yet
+     *
+     * @return The number of pending blocks
+     */
+    public int getPendingBlocks() {
+        int pending = 0;
+        for (ArrayDeque<AreaBreak> queue : queues.values()) {
+            for (AreaBreak area : queue) {
+                pending += area.remaining();
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Process every queued area immediately, ignoring the budget
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        for (ArrayDeque<AreaBreak> queue : queues.values()) {
+            for (AreaBreak area : queue) {
+                area.process(Integer.MAX_VALUE);
+                area.commit(plugin.getDropLedgerManager());
+            }
+        }
+        queues.clear();
+    }
+
+    private void tick() {
+        Iterator<Map.Entry<UUID, ArrayDeque<AreaBreak>>> iterator = queues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, ArrayDeque<AreaBreak>> entry = iterator.next();
+            ArrayDeque<AreaBreak> queue = entry.getValue();
+
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) {
+                // World was unloaded, nothing left to break
+                iterator.remove();
+                continue;
+            }
+
+            int budget = plugin.getConfigManager().getBlockUpdateBudget(world);
+            if (budget <= 0) {
+                budget = Integer.MAX_VALUE;
+            }
+            while (budget > 0 && !queue.isEmpty()) {
+                AreaBreak area = queue.peek();
+                budget -= area.process(budget);
+
+                if (area.remaining() == 0) {
+                    queue.poll();
+                    area.commit(plugin.getDropLedgerManager());
+                }
+            }
+
+            if (queue.isEmpty()) {
+                iterator.remove();
+            }
+        }
+
+        if (queues.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static boolean isBreakable(Material type) {
+        return !type.isAir() && type != Material.BEDROCK && type != Material.BARRIER;
+    }
+
+    /**
+     * An area queued by one enchant trigger
+     */
+    private static class AreaBreak {
+        private final UUID playerId;
+        private final ItemStack tool;
+        private final Block origin;
+        private final int[] offsets;
+        private int cursor;
+
+        // Chunk of the last processed block, offsets are grouped by chunk section
+        private Chunk chunk;
+
+        private final DropCollector drops = new DropCollector();
+
+        private AreaBreak(UUID playerId, ItemStack tool, Block origin, int[] offsets) {
+            this.playerId = playerId;
+            this.tool = tool;
+            this.origin = origin;
+            this.offsets = offsets;
+        }
+
+        private int remaining() {
+            return offsets.length - cursor;
+        }
+
+        /**
+         * Break up to a number of blocks
+         *
+         * @return The number of blocks processed
+         */
+        private int process(int limit) {
+            int processed = 0;
+            while (processed < limit && cursor < offsets.length) {
+                int packed = offsets[cursor++];
+                processed++;
+
+                int x = origin.getX() + AreaShape.unpackX(packed);
+                int y = origin.getY() + AreaShape.unpackY(packed);
+                int z = origin.getZ() + AreaShape.unpackZ(packed);
+                if (chunk == null || chunk.getX() != x >> 4 || chunk.getZ() != z >> 4) {
+                    chunk = origin.getWorld().getChunkAt(x >> 4, z >> 4);
+                }
+                Block block = chunk.getBlock(x & 15, y, z & 15);
+
+                // Checked now rather than when queued, the block may have been mined since
+                if (!isBreakable(block.getType())) {
+                    continue;
+                }
+
+                for (ItemStack drop : block.getDrops(tool)) {
+                    drops.add(drop);
+                }
+
+                block.setType(Material.AIR, false);
+            }
+            return processed;
+        }
+
+        /**
+         * Give the merged drops to the player in one insert, dropping what doesn't fit
+         */
+        private void commit(DropLedgerManager ledgerManager) {
+            Player player = Bukkit.getPlayer(playerId);
+            ledgerManager.absorb(player, drops);
+            drops.commit(player, origin.getLocation().add(0.5, 0.5, 0.5));
+        }
+    }
+}
@@ -3,11 +3,13 @@ package me.opaque.genstools.manager;
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
 import me.opaque.genstools.enchants.EnchantFactory;
+import me.opaque.genstools.tools.LevelCurve;
 import me.opaque.genstools.tools.types.GensPickaxe;
 import me.opaque.genstools.tools.types.GensSword;
 import me.opaque.genstools.utils.Utils;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -22,6 +24,9 @@ public class ConfigManager {
     private FileConfiguration config;
     private FileConfiguration toolsConfig;
     public FileConfiguration enchantsConfig;
+    private volatile LevelCurve levelCurve;
+    // Replaced as a whole on reload, so events never see a half-built table
+    private volatile ExpTables expTables;
 
     public ConfigManager(GensTools plugin) {
         this.plugin = plugin;
@@ -65,6 +70,8 @@ public class ConfigManager {
     public void loadConfigs() {
         loadTools();
         loadEnchants();
+        levelCurve = LevelCurve.fromConfig(config.getConfigurationSection("leveling"));
+        expTables = new ExpTables(plugin, config);
     }
 
     private void loadTools() {
@@ -152,8 +159,7 @@ public class ConfigManager {
      * @return The experience value
      */
     public int getBlockExpValue(Material material) {
-        String materialName = material.name();
-        return config.getInt("tool-settings.pickaxe.exp-values." + materialName, 0);
+        return expTables.getBlockExp(material);
     }
 
     /**
@@ -163,8 +169,7 @@ public class ConfigManager {
      * @return The bonus experience
      */
     public int getMobExpBonus(EntityType entityType) {
-        String entityName = entityType.name();
-        return config.getInt("tool-settings.sword.mob-bonuses." + entityName, 0);
+        return expTables.getMobBonus(entityType);
     }
 
     /**
@@ -194,6 +199,17 @@ public class ConfigManager {
         return config.getString("leveling.message", "&aYour tool leveled up to &e{level}&a!");
     }
 
+    /**
+     * Gets how many blocks area enchantments may break per tick in a world
+     *
+     * @param world The world
+     * @return The block budget, 0 or less for no limit
+     */
+    public int getBlockUpdateBudget(World world) {
+        return config.getInt("block-updates.worlds." + world.getName(),
+                config.getInt("block-updates.blocks-per-tick", 500));
+    }
+
     /**
      * Reloads all configuration files
      */
@@ -205,6 +221,8 @@ public class ConfigManager {
 
         plugin.getMenuManager().loadConfig();
         plugin.getLoreManager().reloadConfig();
+        plugin.getToolStateCache().reload();
+        plugin.getDropLedgerManager().reload();
     }
 
     private void reloadMainConfig() {
@@ -228,7 +246,7 @@ public class ConfigManager {
      * @return The global experience multiplier
      */
     public double getGlobalExpMultiplier() {
-        return config.getDouble("leveling.global-exp-multiplier", 1.0);
+        return expTables.getGlobalExpMultiplier();
     }
 
     /**
@@ -240,6 +258,15 @@ public class ConfigManager {
         return config.getInt("leveling.max-level", 100);
     }
 
+    /**
+     * Gets the experience tools need per level
+     *
+     * @return The level curve
+     */
+    public LevelCurve getLevelCurve() {
+        return levelCurve;
+    }
+
     /**
      * Gets whether to show an exp action bar message
      *
@@ -249,6 +276,25 @@ public class ConfigManager {
         return config.getBoolean("leveling.show-exp-actionbar", true);
     }
 
+    /**
+     * Checks if held tool data should be cached in memory instead of
+     * being written to the item on every event
+     *
+     * @return true if the tool cache is enabled
+     */
+    public boolean isToolCacheEnabled() {
+        return config.getBoolean("tool-cache.enabled", true);
+    }
+
+    /**
+     * Gets how often cached tool data is written back to items
+     *
+     * @return The flush interval in ticks
+     */
+    public int getToolCacheFlushInterval() {
+        return config.getInt("tool-cache.flush-interval", 40);
+    }
+
     /**
      * Check if numeric enchant display is enabled
      *
@@ -284,7 +330,7 @@ public class ConfigManager {
      * @return true if exp gain messages should be shown
      */
     public boolean isShowExpGainMessages() {
-        return config.getBoolean("experience.show-exp-gain-messages", true);
+        return expTables.isShowExpGainMessages();
     }
 
     /**
@@ -292,7 +338,7 @@ public class ConfigManager {
      * @return the base kill experience per health point
      */
     public int getBaseKillExpPerHealth() {
-        return config.getInt("experience.base-kill-exp-per-health", 5);
+        return expTables.getBaseKillExpPerHealth();
     }
 
     /**
@@ -300,7 +346,7 @@ public class ConfigManager {
      * @return the boss kill bonus experience
      */
     public int getBossKillBonus() {
-        return config.getInt("experience.boss-kill-bonus", 500);
+        return expTables.getBossKillBonus();
     }
 
     /**
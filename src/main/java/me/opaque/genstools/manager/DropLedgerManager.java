@@ -0,0 +1,296 @@
+package me.opaque.genstools.manager;
+
+import me.opaque.genscore.hooks.GensCoreAPI;
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.enchants.DropCollector;
+import me.opaque.genstools.utils.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Optional auto-sell for tool drops. Sellable drops go into a per-player ledger
+ * instead of the inventory, and each ledger is sold to GensCore as a single
+ * currency credit every flush interval.
+ */
+public class DropLedgerManager {
+    private static final Material[] MATERIALS = Material.values();
+
+    private final GensTools plugin;
+    private final Map<UUID, Ledger> ledgers = new HashMap<>();
+    // Players who turned auto-sell off for this session
+    private final Set<UUID> disabledPlayers = new HashSet<>();
+
+    private boolean enabled;
+    private CustomEnchant.CurrencyType currency;
+    private boolean showMessages;
+    // Sell price per item by material ordinal, 0 if not sellable
+    private double[] prices = new double[MATERIALS.length];
+    private BukkitTask flushTask;
+
+    public DropLedgerManager(GensTools plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Reload settings and restart the flush task
+     */
+    public void reload() {
+        flushAll();
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        ConfigurationSection config = plugin.getConfigManager().getConfig().getConfigurationSection("drop-ledger");
+        if (config == null) {
+            enabled = false;
+            return;
+        }
+
+        enabled = config.getBoolean("enabled", false);
+        showMessages = config.getBoolean("show-messages", true);
+
+        String currencyName = config.getString("currency", "SHARDS").toUpperCase();
+        try {
+            currency = CustomEnchant.CurrencyType.valueOf(currencyName);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid drop ledger currency '" + currencyName + "'. Defaulting to SHARDS.");
+            currency = CustomEnchant.CurrencyType.SHARDS;
+        }
+
+        double[] newPrices = new double[MATERIALS.length];
+        ConfigurationSection pricesSection = config.getConfigurationSection("prices");
+        if (pricesSection != null) {
+            for (String key : pricesSection.getKeys(false)) {
+                Material material = Material.matchMaterial(key);
+                if (material == null) {
+                    plugin.getLogger().warning("Unknown material in drop-ledger prices: " + key);
+                    continue;
+                }
+                newPrices[material.ordinal()] = pricesSection.getDouble(key);
+            }
+        }
+        prices = newPrices;
+
+        int flushInterval = config.getInt("flush-interval", 100);
+        if (enabled && flushInterval > 0) {
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flushAll, flushInterval, flushInterval);
+        }
+    }
+
+    /**
+     * Check whether a player's drops are being sold
+     *
+     * @param player The player
+     * @return true if auto-sell is enabled on the server and for the player
+     */
+    public boolean isActive(Player player) {
+        return enabled && !disabledPlayers.contains(player.getUniqueId());
+    }
+
+    /**
+     * Check whether auto-sell is enabled on the server
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn auto-sell on or off for a player
+     *
+     * @param player The player
+     * @param active Whether their drops should be sold
+     */
+    public void setActive(Player player, boolean active) {
+        if (active) {
+            disabledPlayers.remove(player.getUniqueId());
+        } else {
+            disabledPlayers.add(player.getUniqueId());
+            flush(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Move the sellable drops of a break into the player's ledger
+     *
+     * @param player The player who broke the blocks
+     * @param drops The collected drops, sellable ones are removed from it
+     */
+    public void absorb(Player player, DropCollector drops) {
+        // Without GensCore nothing can be sold, so leave the drops alone
+        if (player == null || !isActive(player) || plugin.getGensCoreAPI() == null) {
+            return;
+        }
+
+        Ledger ledger = ledgers.computeIfAbsent(player.getUniqueId(), k -> new Ledger());
+        drops.transferPlainDrops(material -> prices[material.ordinal()] > 0,
+                (material, amount) -> ledger.add(material.ordinal(), amount));
+    }
+
+    /**
+     * Get a player's ledger
+     *
+     * @param playerId The player UUID
+     * @return The ledger, or null if nothing was sold or pending this session
+     */
+    public Ledger getLedger(UUID playerId) {
+        return ledgers.get(playerId);
+    }
+
+    /**
+     * Get the sell price of a material
+     *
+     * @param material The material
+     * @return The price per item, 0 if not sellable
+     */
+    public double getPrice(Material material) {
+        return prices[material.ordinal()];
+    }
+
+    public CustomEnchant.CurrencyType getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Sell everything pending in all ledgers
+     */
+    public void flushAll() {
+        for (UUID playerId : ledgers.keySet()) {
+            flush(playerId);
+        }
+    }
+
+    /**
+     * Sell everything pending in a player's ledger as one credit
+     *
+     * @param playerId The player UUID
+     */
+    public void flush(UUID playerId) {
+        Ledger ledger = ledgers.get(playerId);
+        if (ledger == null || ledger.pendingItems == 0) {
+            return;
+        }
+
+        if (plugin.getGensCoreAPI() == null) {
+            // Can't sell without GensCore, keep the items pending
+            return;
+        }
+
+        long value = Math.round(ledger.getPendingValue(prices));
+        long items = ledger.pendingItems;
+        ledger.clearPending();
+        ledger.soldItems += items;
+        ledger.soldValue += value;
+
+        if (value > 0) {
+            GensCoreAPI api = plugin.getGensCoreAPI().getAPI();
+            if (currency == CustomEnchant.CurrencyType.RUNES) {
+                api.addRunes(playerId, value);
+            } else {
+                api.addShards(playerId, value);
+            }
+        }
+
+        Player player = Bukkit.getPlayer(playerId);
+        if (showMessages && player != null && value > 0) {
+            Utils.sendMessage(player, "&7Sold &e" + Utils.formatNumber(items) + " &7items for &e" +
+                    Utils.formatNumber(value) + " &7" + currency.name().toLowerCase());
+        }
+    }
+
+    /**
+     * Sell and forget a player's ledger, for when they leave
+     *
+     * @param playerId The player UUID
+     */
+    public void remove(UUID playerId) {
+        flush(playerId);
+        ledgers.remove(playerId);
+        disabledPlayers.remove(playerId);
+    }
+
+    /**
+     * Sell everything and stop the flush task
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flushAll();
+    }
+
+    /**
+     * The items a player has mined but not yet sold, and what was sold this session
+     */
+    public static class Ledger {
+        // Pending item counts by material ordinal
+        private final long[] counts = new long[MATERIALS.length];
+        private long pendingItems;
+        private long soldItems;
+        private long soldValue;
+
+        private void add(int ordinal, int amount) {
+            counts[ordinal] += amount;
+            pendingItems += amount;
+        }
+
+        private double getPendingValue(double[] prices) {
+            double value = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    value += counts[i] * prices[i];
+                }
+            }
+            return value;
+        }
+
+        private void clearPending() {
+            Arrays.fill(counts, 0);
+            pendingItems = 0;
+        }
+
+        /**
+         * Get the pending count of each material
+         *
+         * @return Material to count, for materials with pending items
+         */
+        public Map<Material, Long> getPendingCounts() {
+            Map<Material, Long> pending = new EnumMap<>(Material.class);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    pending.put(MATERIALS[i], counts[i]);
+                }
+            }
+            return pending;
+        }
+
+        public long getPendingItems() {
+            return pendingItems;
+        }
+
+        public long getSoldItems() {
+            return soldItems;
+        }
+
+        public long getSoldValue() {
+            return soldValue;
+        }
+    }
+}
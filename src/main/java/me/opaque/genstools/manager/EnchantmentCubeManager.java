@@ -4,6 +4,7 @@ import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
 import me.opaque.genstools.enchants.EnchantmentCube;
 import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.tools.ToolState;
 import me.opaque.genstools.utils.Utils;
 import org.bukkit.*;
 import org.bukkit.configuration.ConfigurationSection;
@@ -256,84 +257,34 @@ public class EnchantmentCubeManager {
         }
 
         // Check if the tool has the enchantment
-        Map<String, Integer> enchantments;
+        ToolState state;
         try {
-            enchantments = GensTool.getEnchantments(toolItem);
+            state = GensTool.getState(toolItem);
         } catch (Exception e) {
             plugin.getLogger().warning("Error getting enchantments when applying cube: " + e.getMessage());
             player.sendMessage(plugin.getMessageManager().getMessage("cubes.error"));
             return false;
         }
 
-        if (!enchantments.containsKey(enchantId)) {
-            player.sendMessage(plugin.getMessageManager().getMessage("cubes.missing-enchant")
-                    .replace("%enchant%", enchant.getDisplayName()));
-            return false;
-        }
-
-        // Get tool metadata
-        ItemMeta meta = toolItem.getItemMeta();
-        if (meta == null) {
+        if (state == null) {
             player.sendMessage(plugin.getMessageManager().getMessage("cubes.error"));
             return false;
         }
 
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Calculate boost as a decimal (e.g., 20% = 0.2)
-        double boostDecimal = boostPercentage / 100.0;
-
-        // Check if a multiplier already exists for this enchantment
-        NamespacedKey multiplierKey = new NamespacedKey(plugin, "enchant_multiplier_" + enchantId);
-        boolean hasExistingMultiplier = container.has(multiplierKey, PersistentDataType.DOUBLE);
-        double existingMultiplier = 0.0;
-
-        if (hasExistingMultiplier) {
-            existingMultiplier = container.get(multiplierKey, PersistentDataType.DOUBLE);
-
-            // Only allow if the new boost is higher than the existing one
-            if (boostDecimal <= existingMultiplier) {
-                player.sendMessage(plugin.getMessageManager().getMessage("cubes.already-boosted")
-                        .replace("%enchant%", enchant.getDisplayName())
-                        .replace("%current%", String.format("%.0f", existingMultiplier * 100))
-                        .replace("%new%", String.valueOf(boostPercentage)));
-                return false;
-            }
-        }
-
-        // Also check the consolidated cubes string for consistency
-        NamespacedKey cubesKey = new NamespacedKey(plugin, "applied_cubes");
-        boolean hasCubeInConsolidatedString = false;
-        Map<String, Integer> appliedCubes = new HashMap<>();
-
-        if (container.has(cubesKey, PersistentDataType.STRING)) {
-            String cubesData = container.get(cubesKey, PersistentDataType.STRING);
-            if (cubesData != null && !cubesData.isEmpty()) {
-                // Parse existing cubes
-                for (String cube : cubesData.split(",")) {
-                    String[] parts = cube.split(":");
-                    if (parts.length == 2) {
-                        String cubeEnchantId = parts[0];
-                        int cubeBoost;
-                        try {
-                            cubeBoost = Integer.parseInt(parts[1]);
-                        } catch (NumberFormatException e) {
-                            cubeBoost = 0;
-                        }
-
-                        appliedCubes.put(cubeEnchantId, cubeBoost);
-                        if (cubeEnchantId.equals(enchantId)) {
-                            hasCubeInConsolidatedString = true;
-                        }
-                    }
-                }
-            }
+        if (state.getEnchantmentLevel(enchantId) <= 0) {
+            player.sendMessage(plugin.getMessageManager().getMessage("cubes.missing-enchant")
+                    .replace("%enchant%", enchant.getDisplayName()));
+            return false;
         }
 
-        // If checks are inconsistent, log a warning and continue with the higher value
-        if (hasExistingMultiplier != hasCubeInConsolidatedString) {
-            plugin.getLogger().warning("Inconsistent cube data on tool: multiplier exists=" +
-                    hasExistingMultiplier + ", in string=" + hasCubeInConsolidatedString);
+        // Only allow if the new boost is higher than the existing one
+        Integer existingBoost = state.getCubes().get(enchantId);
+        if (existingBoost != null && boostPercentage <= existingBoost) {
+            player.sendMessage(plugin.getMessageManager().getMessage("cubes.already-boosted")
+                    .replace("%enchant%", enchant.getDisplayName())
+                    .replace("%current%", String.valueOf(existingBoost))
+                    .replace("%new%", String.valueOf(boostPercentage)));
+            return false;
         }
 
         // Get the success rate from the cube
@@ -366,26 +317,8 @@ public class EnchantmentCubeManager {
             }
         }
 
-        // Apply the new multiplier
-        container.set(multiplierKey, PersistentDataType.DOUBLE, boostDecimal);
-
-        // Update the consolidated cubes string
-        appliedCubes.put(enchantId, boostPercentage);
-
-        // Rebuild the consolidated string
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (Map.Entry<String, Integer> entry : appliedCubes.entrySet()) {
-            if (!first) {
-                sb.append(",");
-            }
-            sb.append(entry.getKey()).append(":").append(entry.getValue());
-            first = false;
-        }
-
-        // Store the updated cubes string
-        container.set(cubesKey, PersistentDataType.STRING, sb.toString());
-        toolItem.setItemMeta(meta);
+        // Apply the new boost
+        GensTool.setCubeBoost(toolItem, enchantId, boostPercentage);
 
         // Update lore to show applied cube
         plugin.getLoreManager().updateToolLore(toolItem);
@@ -0,0 +1,77 @@
+package me.opaque.genstools.manager;
+
+import me.opaque.genstools.GensTools;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
+
+import java.util.Locale;
+
+/**
+ * The experience settings read on every block break, hit and kill, compiled from
+ * config.yml into arrays indexed by Material and EntityType ordinal. Never modified
+ * after it is built, a reload builds a new one.
+ */
+final class ExpTables {
+    private final int[] blockExp = new int[Material.values().length];
+    private final int[] mobBonus = new int[EntityType.values().length];
+    private final double globalExpMultiplier;
+    private final int baseKillExpPerHealth;
+    private final int bossKillBonus;
+    private final boolean showExpGainMessages;
+
+    ExpTables(GensTools plugin, FileConfiguration config) {
+        ConfigurationSection blocks = config.getConfigurationSection("tool-settings.pickaxe.exp-values");
+        if (blocks != null) {
+            for (String key : blocks.getKeys(false)) {
+                Material material = Material.getMaterial(key.toUpperCase(Locale.ROOT));
+                if (material == null) {
+                    plugin.getLogger().warning("Unknown block in tool-settings.pickaxe.exp-values: " + key);
+                    continue;
+                }
+                blockExp[material.ordinal()] = blocks.getInt(key);
+            }
+        }
+
+        ConfigurationSection mobs = config.getConfigurationSection("tool-settings.sword.mob-bonuses");
+        if (mobs != null) {
+            for (String key : mobs.getKeys(false)) {
+                try {
+                    mobBonus[EntityType.valueOf(key.toUpperCase(Locale.ROOT)).ordinal()] = mobs.getInt(key);
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Unknown mob in tool-settings.sword.mob-bonuses: " + key);
+                }
+            }
+        }
+
+        this.globalExpMultiplier = config.getDouble("leveling.global-exp-multiplier", 1.0);
+        this.baseKillExpPerHealth = config.getInt("experience.base-kill-exp-per-health", 5);
+        this.bossKillBonus = config.getInt("experience.boss-kill-bonus", 500);
+        this.showExpGainMessages = config.getBoolean("experience.show-exp-gain-messages", true);
+    }
+
+    int getBlockExp(Material material) {
+        return blockExp[material.ordinal()];
+    }
+
+    int getMobBonus(EntityType entityType) {
+        return mobBonus[entityType.ordinal()];
+    }
+
+    double getGlobalExpMultiplier() {
+        return globalExpMultiplier;
+    }
+
+    int getBaseKillExpPerHealth() {
+        return baseKillExpPerHealth;
+    }
+
+    int getBossKillBonus() {
+        return bossKillBonus;
+    }
+
+    boolean isShowExpGainMessages() {
+        return showExpGainMessages;
+    }
+}
@@ -3,28 +3,48 @@ package me.opaque.genstools.utils;
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
 import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.tools.ToolState;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 public class LoreManager {
     private final GensTools plugin;
-    private FileConfiguration loreConfig;
-    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([^}]+)\\}");
+    private LoreTemplate template;
+
+    // Rendered lines of each lore section, keyed on the section's input
+    private static final int SECTION_CACHE_SIZE = 256;
+    private final Map<String, List<String>> customLoreCache = new HashMap<>();
+    private final Map<List<Object>, List<String>> enchantmentsCache = createSectionCache();
+    private final Map<List<Object>, List<String>> cubesCache = createSectionCache();
+    private final Map<List<Object>, List<String>> statsCache = createSectionCache();
+    private final Map<Material, List<String>> footerCache = new EnumMap<>(Material.class);
+
+    // Tools waiting for a deferred lore render (unique tool ID -> owner UUID)
+    private final Map<String, UUID> pendingUpdates = new LinkedHashMap<>();
+    private BukkitTask updateTask;
+
+    // Render statistics
+    private long renderCount;
+    private long coalescedCount;
+    private long sectionCacheHits;
 
     public LoreManager(GensTools plugin) {
         this.plugin = plugin;
@@ -36,69 +56,154 @@ public class LoreManager {
         if (!configFile.exists()) {
             plugin.saveResource("lore.yml", false);
         }
-        loreConfig = YamlConfiguration.loadConfiguration(configFile);
+        template = LoreTemplate.compile(YamlConfiguration.loadConfiguration(configFile));
+        startUpdateTask();
     }
 
     public void reloadConfig() {
         File configFile = new File(plugin.getDataFolder(), "lore.yml");
-        loreConfig = YamlConfiguration.loadConfiguration(configFile);
+        template = LoreTemplate.compile(YamlConfiguration.loadConfiguration(configFile));
+        clearSectionCaches();
+        startUpdateTask();
     }
 
     /**
-     * Adds the applied cubes section to the lore
+     * Start the task that renders deferred lore updates
      */
-    private void addCubesSection(List<String> lore, ItemStack item) {
-        if (!loreConfig.getBoolean("cubes.enabled", true)) return;
-
-        String header = loreConfig.getString("cubes.header", "&8❖ &7Applied Cubes:");
-        String format = loreConfig.getString("cubes.format", " &8• &7{enchant_name} &a+{boost_value}%");
-        String emptyValue = loreConfig.getString("cubes.empty-value", " &8• &7None");
-        boolean addSpacer = loreConfig.getBoolean("cubes.add-spacer", true);
+    private void startUpdateTask() {
+        renderPendingUpdates();
 
-        // Get the ItemMeta of the tool
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return;
+        if (updateTask != null) {
+            updateTask.cancel();
+            updateTask = null;
+        }
 
-        PersistentDataContainer container = meta.getPersistentDataContainer();
+        int interval = template.getUpdateInterval();
+        if (interval > 0) {
+            updateTask = Bukkit.getScheduler().runTaskTimer(plugin, this::renderPendingUpdates, interval, interval);
+        }
+    }
 
-        // Check if tool has any applied cubes
-        NamespacedKey cubesKey = new NamespacedKey(plugin, "applied_cubes");
-        if (!container.has(cubesKey, PersistentDataType.STRING)) {
-            // No cubes applied, don't show section
+    /**
+     * Schedules a lore update for a tool. Repeated requests for the same tool are
+     * coalesced into a single render on the next update interval.
+     *
+     * @param player The player who owns the tool
+     * @param uniqueId The unique ID of the tool
+     */
+    public void scheduleLoreUpdate(Player player, String uniqueId) {
+        if (updateTask == null) {
+            // Deferred rendering is disabled
+            ItemStack item = findTool(player, uniqueId);
+            if (item != null) {
+                updateToolLore(item);
+            }
             return;
         }
 
-        String cubesData = container.get(cubesKey, PersistentDataType.STRING);
-        if (cubesData == null || cubesData.isEmpty()) {
+        if (pendingUpdates.put(uniqueId, player.getUniqueId()) != null) {
+            coalescedCount++;
+        }
+    }
+
+    /**
+     * Renders all deferred lore updates now
+     */
+    public void renderPendingUpdates() {
+        if (pendingUpdates.isEmpty()) {
             return;
         }
 
-        // Add header
-        lore.add(colorize(header));
+        Map<String, UUID> updates = new LinkedHashMap<>(pendingUpdates);
+        pendingUpdates.clear();
 
-        // Add cube entries
-        String[] cubes = cubesData.split(",");
-        for (String cube : cubes) {
-            String[] parts = cube.split(":");
-            if (parts.length == 2) {
-                String enchantId = parts[0];
-                String boostText = parts[1];
+        for (Map.Entry<String, UUID> entry : updates.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getValue());
+            if (player == null) {
+                continue;
+            }
 
-                CustomEnchant enchant = plugin.getToolManager().getEnchantById(enchantId);
-                String enchantName = enchant != null ? enchant.getDisplayName() : enchantId;
+            ItemStack item = findTool(player, entry.getKey());
+            if (item != null) {
+                updateToolLore(item);
+            }
+        }
+    }
 
-                Map<String, String> entryPlaceholders = new HashMap<>();
-                entryPlaceholders.put("enchant_name", enchantName);
-                entryPlaceholders.put("boost_value", boostText);
+    /**
+     * Renders the deferred lore updates of one player's tools now,
+     * for when the tools are about to be displayed
+     *
+     * @param player The player
+     */
+    public void renderPendingUpdates(Player player) {
+        Iterator<Map.Entry<String, UUID>> iterator = pendingUpdates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, UUID> entry = iterator.next();
+            if (!entry.getValue().equals(player.getUniqueId())) {
+                continue;
+            }
 
-                lore.add(colorize(replacePlaceholders(format, entryPlaceholders)));
+            iterator.remove();
+            ItemStack item = findTool(player, entry.getKey());
+            if (item != null) {
+                updateToolLore(item);
             }
         }
+    }
 
-        // Add spacer if configured
-        if (addSpacer) {
-            lore.add("");
+    /**
+     * Gets the number of lore renders performed since startup
+     *
+     * @return The render count
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+
+    /**
+     * Gets the number of lore renders saved by coalescing updates
+     *
+     * @return The number of saved renders
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Gets the number of lore sections reused instead of rendered
+     *
+     * @return The section cache hit count
+     */
+    public long getSectionCacheHits() {
+        return sectionCacheHits;
+    }
+
+    /**
+     * Find a tool in a player's inventory by its unique ID, checking the main hand first
+     */
+    private ItemStack findTool(Player player, String uniqueId) {
+        ItemStack mainHand = player.getInventory().getItemInMainHand();
+        if (hasUniqueId(mainHand, uniqueId)) {
+            return mainHand;
+        }
+
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (hasUniqueId(item, uniqueId)) {
+                return item;
+            }
         }
+
+        return null;
+    }
+
+    private boolean hasUniqueId(ItemStack item, String uniqueId) {
+        if (item == null || !item.hasItemMeta()) {
+            return false;
+        }
+
+        return uniqueId.equals(item.getItemMeta().getPersistentDataContainer()
+                .get(GensTool.KEY_UNIQUE_ID, PersistentDataType.STRING));
     }
 
     /**
@@ -107,156 +212,246 @@ public class LoreManager {
      * @param item The tool item to update
      */
     public void updateToolLore(ItemStack item) {
-        if (!GensTool.isGensTool(item) || item.getItemMeta() == null) {
+        if (item == null || !item.hasItemMeta()) {
             return;
         }
 
         // Get tool data
-        String toolId = GensTool.getToolId(item);
-        if (toolId == null) return;
+        ItemMeta meta = item.getItemMeta();
+        ToolState state = GensTool.readState(meta);
+        if (state == null) return;
 
-        GensTool toolPrototype = plugin.getToolManager().getToolById(toolId);
-        if (toolPrototype == null) return;
+        if (renderLore(meta, state, item.getType())) {
+            item.setItemMeta(meta);
+        }
+    }
 
-        int level = GensTool.getLevel(item);
-        int experience = GensTool.getExperience(item);
-        int requiredExp = GensTool.calculateRequiredExp(level);
-        Map<String, Integer> enchantments = GensTool.getEnchantments(item);
+    /**
+     * Renders the lore of a tool into its meta, without writing the meta to the item
+     *
+     * @param meta The tool's meta
+     * @param state The tool's state
+     * @param material The tool's material
+     * @return true if the lore was set, false if the tool type is unknown
+     */
+    public boolean renderLore(ItemMeta meta, ToolState state, Material material) {
+        GensTool toolPrototype = plugin.getToolManager().getToolById(state.getToolId());
+        if (toolPrototype == null) return false;
 
-        // Build the new lore
+        // Build the new lore, reusing each section that hasn't changed
         List<String> lore = new ArrayList<>();
 
         // Add custom lore from the tool prototype
-        addCustomLore(lore, toolPrototype);
+        if (template.isCustomLoreEnabled()) {
+            appendSection(lore, customLoreCache, state.getToolId(), () -> renderCustomLore(toolPrototype));
+        }
 
         // Add enchantments section
-        addEnchantmentsSection(lore, enchantments);
+        if (template.getEnchantments().isEnabled()) {
+            Map<String, Integer> enchantments = state.getEnchantments();
+            appendSection(lore, enchantmentsCache, entriesKey(enchantments),
+                    () -> renderEnchantmentsSection(enchantments));
+        }
 
         // Add cubes section
-        addCubesSection(lore, item);
+        if (template.getCubes().isEnabled()) {
+            Map<String, Integer> cubes = state.getCubes();
+            appendSection(lore, cubesCache, entriesKey(cubes), () -> renderCubesSection(cubes));
+        }
 
         // Add stats section with level and experience
-        addStatsSection(lore, level, experience, requiredExp);
+        if (template.isStatsEnabled()) {
+            int level = state.getLevel();
+            long experience = state.getExperience();
+            appendSection(lore, statsCache, List.of(level, experience), () -> renderStatsSection(level, experience));
+        }
 
         // Add footer
-        addFooter(lore, item);
+        if (template.isFooterEnabled()) {
+            appendSection(lore, footerCache, material, () -> renderFooter(material));
+        }
 
         // Apply the new lore
-        ItemMeta meta = item.getItemMeta();
         meta.setLore(lore);
-        item.setItemMeta(meta);
+        renderCount++;
+        return true;
     }
 
     /**
-     * Adds the custom lore from the tool prototype
+     * Adds a memoized section to the lore, rendering it only if its input is new
      */
-    private void addCustomLore(List<String> lore, GensTool toolPrototype) {
-        if (!loreConfig.getBoolean("tool-display.custom-lore.enabled", true)) return;
+    private <K> void appendSection(List<String> lore, Map<K, List<String>> cache, K key,
+                                   Supplier<List<String>> renderer) {
+        List<String> lines = cache.get(key);
+        if (lines == null) {
+            lines = List.copyOf(renderer.get());
+            cache.put(key, lines);
+        } else {
+            sectionCacheHits++;
+        }
+        lore.addAll(lines);
+    }
 
+    /**
+     * Build an ordered cache key from a map of IDs to values
+     */
+    private static List<Object> entriesKey(Map<String, Integer> entries) {
+        Object[] key = new Object[entries.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            key[i++] = entry.getKey();
+            key[i++] = entry.getValue();
+        }
+        return List.of(key);
+    }
+
+    private static <K> Map<K, List<String>> createSectionCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, List<String>> eldest) {
+                return size() > SECTION_CACHE_SIZE;
+            }
+        };
+    }
+
+    private void clearSectionCaches() {
+        customLoreCache.clear();
+        enchantmentsCache.clear();
+        cubesCache.clear();
+        statsCache.clear();
+        footerCache.clear();
+    }
+
+    /**
+     * Renders the custom lore from the tool prototype
+     */
+    private List<String> renderCustomLore(GensTool toolPrototype) {
+        List<String> lines = new ArrayList<>();
         List<String> customLore = toolPrototype.getLore();
-        boolean colorize = loreConfig.getBoolean("tool-display.custom-lore.colorize", true);
-        boolean addSpacer = loreConfig.getBoolean("tool-display.custom-lore.add-spacer", true);
+        boolean colorize = template.isCustomLoreColorize();
 
         for (String line : customLore) {
-            lore.add(colorize ? ChatColor.translateAlternateColorCodes('&', line) : line);
+            lines.add(colorize ? ChatColor.translateAlternateColorCodes('&', line) : line);
         }
 
         // Add spacer if configured and there was custom lore
-        if (addSpacer && !customLore.isEmpty()) {
-            lore.add("");
+        if (template.hasCustomLoreSpacer() && !customLore.isEmpty()) {
+            lines.add("");
         }
+        return lines;
     }
 
     /**
-     * Adds the enchantments section to the lore
+     * Renders the enchantments section
      */
-    private void addEnchantmentsSection(List<String> lore, Map<String, Integer> enchantments) {
-        if (!loreConfig.getBoolean("enchantments.enabled", true)) return;
-
-        String header = loreConfig.getString("enchantments.header", "&8❖ &7Enchantments:");
-        String format = loreConfig.getString("enchantments.format", " &8• &7{enchant_name} {enchant_level}");
-        String emptyValue = loreConfig.getString("enchantments.empty-value", " &8• &7None");
-        boolean addSpacer = loreConfig.getBoolean("enchantments.add-spacer", true);
+    private List<String> renderEnchantmentsSection(Map<String, Integer> enchantments) {
+        LoreTemplate.ListSection section = template.getEnchantments();
+        List<String> lines = new ArrayList<>();
 
         // Add header
-        lore.add(colorize(header));
+        lines.add(section.getHeader().render());
 
         // Add enchantment entries or empty value
         if (enchantments.isEmpty()) {
-            lore.add(colorize(emptyValue));
+            lines.add(section.getEmptyValue().render());
         } else {
             for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
                 CustomEnchant enchant = plugin.getToolManager().getEnchantById(entry.getKey());
                 if (enchant == null) continue;
 
-                Map<String, String> entryPlaceholders = new HashMap<>();
-                entryPlaceholders.put("enchant_name", enchant.getDisplayName());
-                entryPlaceholders.put("enchant_level", GensTool.formatEnchantmentLevel(entry.getValue()));
-
-                lore.add(colorize(replacePlaceholders(format, entryPlaceholders)));
+                lines.add(section.getFormat().render(name -> switch (name) {
+                    case "enchant_name" -> enchant.getDisplayName();
+                    case "enchant_level" -> GensTool.formatEnchantmentLevel(entry.getValue());
+                    default -> null;
+                }));
             }
         }
 
         // Add spacer if configured
-        if (addSpacer) {
-            lore.add("");
+        if (section.hasSpacer()) {
+            lines.add("");
         }
+        return lines;
     }
 
     /**
-     * Adds the stats section with level and experience to the lore
+     * Renders the applied cubes section
      */
-    private void addStatsSection(List<String> lore, int level, int experience, int requiredExp) {
-        if (!loreConfig.getBoolean("stats.enabled", true)) return;
+    private List<String> renderCubesSection(Map<String, Integer> cubes) {
+        // No cubes applied, don't show section
+        if (cubes.isEmpty()) {
+            return List.of();
+        }
 
-        String header = loreConfig.getString("stats.header", "&8❖ &7Stats:");
-        String levelFormat = loreConfig.getString("stats.level-format", " &8• &7Level: &e{level}");
-        String expFormat = loreConfig.getString("stats.exp-format",
-                " &8• &7EXP: &b{current_exp}&7/&b{required_exp} &7(&b{exp_percentage}%&7)");
-        boolean addSpacer = loreConfig.getBoolean("stats.add-spacer", true);
+        LoreTemplate.ListSection section = template.getCubes();
+        List<String> lines = new ArrayList<>();
+
+        // Add header
+        lines.add(section.getHeader().render());
+
+        // Add cube entries
+        for (Map.Entry<String, Integer> cube : cubes.entrySet()) {
+            String enchantId = cube.getKey();
+
+            CustomEnchant enchant = plugin.getToolManager().getEnchantById(enchantId);
+            String enchantName = enchant != null ? enchant.getDisplayName() : enchantId;
+
+            lines.add(section.getFormat().render(name -> switch (name) {
+                case "enchant_name" -> enchantName;
+                case "boost_value" -> String.valueOf(cube.getValue());
+                default -> null;
+            }));
+        }
+
+        // Add spacer if configured
+        if (section.hasSpacer()) {
+            lines.add("");
+        }
+        return lines;
+    }
+
+    /**
+     * Renders the stats section with level and experience
+     */
+    private List<String> renderStatsSection(int level, long experience) {
+        List<String> lines = new ArrayList<>();
+        long requiredExp = GensTool.calculateRequiredExp(level);
 
         // Calculate percentage for display
-        int percentage = (requiredExp > 0) ? (int) ((float) experience / requiredExp * 100) : 0;
+        int percentage = (requiredExp > 0) ? (int) ((double) experience / requiredExp * 100) : 0;
 
         // Add header
-        lore.add(colorize(header));
+        lines.add(template.getStatsHeader().render());
 
         // Add level info
-        Map<String, String> levelPlaceholders = new HashMap<>();
-        levelPlaceholders.put("level", String.valueOf(level));
-        lore.add(colorize(replacePlaceholders(levelFormat, levelPlaceholders)));
+        lines.add(template.getLevelFormat().render(name -> "level".equals(name) ? String.valueOf(level) : null));
 
         // Add experience info
-        Map<String, String> expPlaceholders = new HashMap<>();
-        expPlaceholders.put("current_exp", formatNumber(experience));
-        expPlaceholders.put("required_exp", formatNumber(requiredExp));
-        expPlaceholders.put("exp_percentage", String.valueOf(percentage));
-        lore.add(colorize(replacePlaceholders(expFormat, expPlaceholders)));
+        lines.add(template.getExpFormat().render(name -> switch (name) {
+            case "current_exp" -> formatNumber(experience);
+            case "required_exp" -> formatNumber(requiredExp);
+            case "exp_percentage" -> String.valueOf(percentage);
+            default -> null;
+        }));
 
         // Add spacer if configured
-        if (addSpacer) {
-            lore.add("");
+        if (template.hasStatsSpacer()) {
+            lines.add("");
         }
+        return lines;
     }
 
     /**
-     * Adds footer text at the bottom of the lore
+     * Renders the footer text at the bottom of the lore
      */
-    private void addFooter(List<String> lore, ItemStack item) {
-        if (!loreConfig.getBoolean("footer.enabled", true)) return;
-
-        List<String> footerLines = loreConfig.getStringList("footer.lines");
-        if (footerLines.isEmpty()) return;
-
-        Material material = item.getType();
+    private List<String> renderFooter(Material material) {
+        List<String> lines = new ArrayList<>();
         String materialName = formatMaterialName(material.name());
 
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("material", materialName);
-
-        for (String line : footerLines) {
-            lore.add(colorize(replacePlaceholders(line, placeholders)));
+        for (LoreTemplate.Line line : template.getFooterLines()) {
+            lines.add(line.render(name -> "material".equals(name) ? materialName : null));
         }
+        return lines;
     }
 
     /**
@@ -281,7 +476,7 @@ public class LoreManager {
     /**
      * Format a number with K, M, B suffixes if enabled in config
      */
-    private String formatNumber(int number) {
+    private String formatNumber(long number) {
         if (!plugin.getConfigManager().getConfig().getBoolean("settings.number-format.enabled", true)) {
             return String.valueOf(number);
         }
@@ -316,30 +511,4 @@ public class LoreManager {
 
         return String.valueOf(number);
     }
-
-    /**
-     * Replace placeholders in a string with their values
-     */
-    private String replacePlaceholders(String text, Map<String, String> placeholders) {
-        if (text == null) return "";
-
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
-        StringBuffer sb = new StringBuffer();
-
-        while (matcher.find()) {
-            String placeholder = matcher.group(1);
-            String replacement = placeholders.getOrDefault(placeholder, matcher.group(0));
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-        }
-
-        matcher.appendTail(sb);
-        return sb.toString();
-    }
-
-    /**
-     * Colorize a string with color codes
-     */
-    private String colorize(String text) {
-        return Utils.colorize(text);
-    }
-}
\ No newline at end of file
+}
@@ -3,7 +3,10 @@ package me.opaque.genstools.manager;
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
 import me.opaque.genstools.enchants.EnchantFactory;
+import me.opaque.genstools.enchants.EnchantTrigger;
+import me.opaque.genstools.persistence.EnchantIdRegistry;
 import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.tools.ToolState;
 import me.opaque.genstools.tools.types.GensPickaxe;
 import me.opaque.genstools.tools.types.GensSword;
 import org.bukkit.ChatColor;
@@ -22,6 +25,13 @@ public class ToolManager {
     private final GensTools plugin;
     private final Map<String, GensTool> toolPrototypes;
     private final Map<String, CustomEnchant> customEnchants;
+
+    // Enchant dispatch index: every registered enchant gets a small int slot,
+    // and each trigger maps to the slots of the enchants that handle it
+    private final Map<String, Integer> enchantSlots = new HashMap<>();
+    private final List<CustomEnchant> enchantsBySlot = new ArrayList<>();
+    private final Map<EnchantTrigger, int[]> handlersByTrigger = new EnumMap<>(EnchantTrigger.class);
+    private int enchantIndexVersion;
     // Map to store disabled messages preferences (player UUID -> set of enchant IDs)
     private final Map<UUID, Set<String>> disabledMessages = new HashMap<>();
     // Map to store disabled enchants preferences (player UUID -> map of tool ID to set of enchant IDs)
@@ -39,6 +49,50 @@ public class ToolManager {
 
     public void registerEnchant(CustomEnchant enchant) {
         customEnchants.put(enchant.getId(), enchant);
+
+        // Re-registered enchants keep their slot so cached level arrays stay valid
+        Integer slot = enchantSlots.get(enchant.getId());
+        if (slot != null) {
+            enchantsBySlot.set(slot, enchant);
+        } else {
+            enchantSlots.put(enchant.getId(), enchantsBySlot.size());
+            enchantsBySlot.add(enchant);
+        }
+
+        // Registered enchants get the lowest numbers in saved tool data
+        EnchantIdRegistry.intern(enchant.getId());
+
+        rebuildEnchantHandlers();
+        enchantIndexVersion++;
+    }
+
+    /**
+     * Resolve which typed handlers each registered enchant overrides
+     */
+    private void rebuildEnchantHandlers() {
+        Map<EnchantTrigger, List<Integer>> slotsByTrigger = new EnumMap<>(EnchantTrigger.class);
+        for (int slot = 0; slot < enchantsBySlot.size(); slot++) {
+            CustomEnchant enchant = enchantsBySlot.get(slot);
+            boolean handlesAny = false;
+
+            for (EnchantTrigger trigger : EnchantTrigger.values()) {
+                if (trigger.isHandledBy(enchant)) {
+                    slotsByTrigger.computeIfAbsent(trigger, k -> new ArrayList<>()).add(slot);
+                    handlesAny = true;
+                }
+            }
+
+            if (!handlesAny) {
+                plugin.getLogger().warning("Enchant " + enchant.getId() + " (" + enchant.getClass().getSimpleName() +
+                        ") does not override any event handler and will have no effect");
+            }
+        }
+
+        handlersByTrigger.clear();
+        for (EnchantTrigger trigger : EnchantTrigger.values()) {
+            List<Integer> slots = slotsByTrigger.getOrDefault(trigger, Collections.emptyList());
+            handlersByTrigger.put(trigger, slots.stream().mapToInt(Integer::intValue).toArray());
+        }
     }
 
     public GensTool getToolById(String id) {
@@ -57,6 +111,63 @@ public class ToolManager {
         return customEnchants.keySet();
     }
 
+    /**
+     * Get the dispatch slot of an enchantment
+     *
+     * @param enchantId The enchantment ID
+     * @return The slot, or -1 if the enchantment isn't registered
+     */
+    public int getEnchantSlot(String enchantId) {
+        Integer slot = enchantSlots.get(enchantId);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Get the enchantment registered in a dispatch slot
+     *
+     * @param slot The slot
+     * @return The enchantment
+     */
+    public CustomEnchant getEnchantBySlot(int slot) {
+        return enchantsBySlot.get(slot);
+    }
+
+    /**
+     * Get the slots of all enchantments that handle a trigger
+     *
+     * @param trigger The trigger
+     * @return The handler slots, in registration order
+     */
+    public int[] getEnchantHandlers(EnchantTrigger trigger) {
+        return handlersByTrigger.getOrDefault(trigger, new int[0]);
+    }
+
+    /**
+     * Build the per-slot enchantment levels of a tool
+     *
+     * @param state The tool state
+     * @return The levels indexed by enchant slot, 0 where the tool doesn't have the enchantment
+     */
+    public int[] getEnchantLevels(ToolState state) {
+        int[] levels = new int[enchantsBySlot.size()];
+        for (Map.Entry<String, Integer> entry : state.getEnchantments().entrySet()) {
+            Integer slot = enchantSlots.get(entry.getKey());
+            if (slot != null) {
+                levels[slot] = entry.getValue();
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Get the version of the dispatch index, which changes whenever an enchant is registered
+     *
+     * @return The index version
+     */
+    public int getEnchantIndexVersion() {
+        return enchantIndexVersion;
+    }
+
 
     /**
      * Format the enchantment level for display
@@ -92,10 +203,7 @@ public class ToolManager {
         meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', prototype.getDisplayName()));
 
         // Store data
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-        container.set(GensTool.KEY_TOOL_ID, PersistentDataType.STRING, id);
-        container.set(GensTool.KEY_LEVEL, PersistentDataType.INTEGER, 1);
-        container.set(GensTool.KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
+        GensTool.writeState(meta, new ToolState(id, 1, 0));
 
         // Apply metadata
         meta.setUnbreakable(true);
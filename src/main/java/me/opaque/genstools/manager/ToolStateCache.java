@@ -0,0 +1,383 @@
+package me.opaque.genstools.manager;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.tools.ToolState;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory cache of the tool each player is holding, keyed by the tool's unique ID.
+ * Hot-path events update the cached state in place, and it is written back to the item
+ * on item switch, inventory open, quit or every flush interval. Experience grants are
+ * only summed until a flush or until they are enough for a level up.
+ */
+public class ToolStateCache {
+    private final GensTools plugin;
+
+    // Cached tools by unique tool ID
+    private final Map<String, CachedTool> toolsByUniqueId = new HashMap<>();
+    // Cached held tool by player UUID
+    private final Map<UUID, CachedTool> heldTools = new HashMap<>();
+
+    private BukkitTask flushTask;
+    private boolean enabled;
+
+    public ToolStateCache(GensTools plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Reload settings and restart the flush task
+     */
+    public void reload() {
+        flushAll();
+
+        // The level curve may have changed
+        for (CachedTool cached : heldTools.values()) {
+            cached.updateExpToLevelUp();
+        }
+
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        this.enabled = plugin.getConfigManager().isToolCacheEnabled();
+        int flushInterval = plugin.getConfigManager().getToolCacheFlushInterval();
+
+        if (enabled && flushInterval > 0) {
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flushAll, flushInterval, flushInterval);
+        }
+    }
+
+    /**
+     * Get the cached tool a player is holding, loading it from the item on a miss
+     * @param player The player
+     * @return The cached tool, or null if the player is not holding a GensTool
+     */
+    public CachedTool getHeldTool(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        int slot = inventory.getHeldItemSlot();
+        ItemStack item = inventory.getItemInMainHand();
+
+        CachedTool cached = heldTools.get(player.getUniqueId());
+        if (cached != null) {
+            if (cached.slot == slot && cached.material == item.getType()) {
+                return cached;
+            }
+
+            // The held item changed without an event we listen to
+            flush(player);
+        }
+
+        if (!item.hasItemMeta()) {
+            return null;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        ToolState state = GensTool.decodeState(meta);
+        if (state == null) {
+            return null;
+        }
+
+        String uniqueId = meta.getPersistentDataContainer().get(GensTool.KEY_UNIQUE_ID, PersistentDataType.STRING);
+        if (uniqueId == null) {
+            uniqueId = plugin.getToolPersistenceManager().getOrCreateUniqueId(item);
+            if (uniqueId == null) {
+                return null;
+            }
+        }
+
+        cached = new CachedTool(uniqueId, player.getUniqueId(), slot, item.getType(), state);
+        heldTools.put(player.getUniqueId(), cached);
+        toolsByUniqueId.put(uniqueId, cached);
+        return cached;
+    }
+
+    /**
+     * Get the cached state of a tool, which may be newer than the item's own data
+     * @param uniqueId The unique tool ID
+     * @return The cached state, or null if the tool is not cached
+     */
+    public ToolState getCachedState(String uniqueId) {
+        CachedTool cached = toolsByUniqueId.get(uniqueId);
+        if (cached == null) {
+            return null;
+        }
+
+        applyPendingExperience(cached);
+        return cached.state;
+    }
+
+    /**
+     * Add experience to a cached tool. The experience is collected and applied to the
+     * state on the next flush, or straight away once it is enough for a level up.
+     * @param player The player holding the tool
+     * @param tool The cached tool
+     * @param amount The experience to add
+     * @return true if the tool leveled up
+     */
+    public boolean addExperience(Player player, CachedTool tool, long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+
+        long pending = tool.pendingExp + amount;
+        tool.pendingExp = pending < 0 ? Long.MAX_VALUE : pending;
+        if (enabled && tool.pendingExp < tool.expToLevelUp) {
+            tool.dirty = true;
+            return false;
+        }
+
+        boolean leveledUp = applyPendingExperience(tool);
+        markDirty(player, tool);
+        return leveledUp;
+    }
+
+    /**
+     * Mark a cached tool as changed so it is written back on the next flush
+     * @param player The player holding the tool
+     * @param tool The cached tool
+     */
+    public void markDirty(Player player, CachedTool tool) {
+        tool.dirty = true;
+
+        // Without caching, write back straight away
+        if (!enabled) {
+            flush(player);
+        }
+    }
+
+    /**
+     * Drop a tool from the cache without writing it back.
+     * Used when the item has just been written with newer data.
+     * @param uniqueId The unique tool ID
+     */
+    public void invalidate(String uniqueId) {
+        CachedTool cached = toolsByUniqueId.remove(uniqueId);
+        if (cached != null) {
+            heldTools.remove(cached.owner, cached);
+        }
+    }
+
+    /**
+     * Write back and release the tool a player is holding
+     * @param player The player
+     */
+    public void flush(Player player) {
+        CachedTool cached = heldTools.remove(player.getUniqueId());
+        if (cached == null) {
+            return;
+        }
+
+        toolsByUniqueId.remove(cached.uniqueId, cached);
+        writeBack(player, cached);
+    }
+
+    /**
+     * Write back and release the tool a player is holding into a specific item,
+     * for items that have already left the inventory
+     * @param player The player
+     * @param item The item to write to
+     * @return true if the item was written to, false otherwise
+     */
+    public boolean flush(Player player, ItemStack item) {
+        return flush(player, Collections.singletonList(item));
+    }
+
+    /**
+     * Write back and release the tool a player is holding into whichever of the
+     * given items it is, for items that have already left the inventory
+     * @param player The player
+     * @param items The items to check
+     * @return true if one of the items was written to, false otherwise
+     */
+    public boolean flush(Player player, Iterable<ItemStack> items) {
+        CachedTool cached = heldTools.remove(player.getUniqueId());
+        if (cached == null) {
+            return false;
+        }
+
+        toolsByUniqueId.remove(cached.uniqueId, cached);
+        if (!cached.dirty) {
+            return false;
+        }
+
+        for (ItemStack item : items) {
+            if (writeTo(player, cached, item, false)) {
+                return true;
+            }
+        }
+
+        // Not one of the items, it is still somewhere in the inventory
+        writeBack(player, cached);
+        return false;
+    }
+
+    /**
+     * Write back all dirty cached tools, keeping them cached
+     */
+    public void flushAll() {
+        for (CachedTool cached : new ArrayList<>(heldTools.values())) {
+            if (!cached.dirty) {
+                continue;
+            }
+
+            Player player = Bukkit.getPlayer(cached.owner);
+            if (player != null) {
+                writeBack(player, cached);
+            }
+        }
+    }
+
+    /**
+     * Write back everything and clear the cache
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        flushAll();
+        heldTools.clear();
+        toolsByUniqueId.clear();
+    }
+
+    private void writeBack(Player player, CachedTool cached) {
+        if (!cached.dirty) {
+            return;
+        }
+
+        PlayerInventory inventory = player.getInventory();
+        if (writeTo(player, cached, inventory.getItem(cached.slot), true)) {
+            return;
+        }
+
+        // The tool moved, find it by unique ID
+        for (ItemStack item : inventory.getContents()) {
+            if (writeTo(player, cached, item, true)) {
+                return;
+            }
+        }
+
+        plugin.getLogger().warning("Could not find cached tool " + cached.uniqueId + " in the inventory of " +
+                player.getName() + ", unsaved progress was discarded");
+        cached.dirty = false;
+    }
+
+    /**
+     * Apply the experience collected for a tool to its state
+     * @return true if the tool leveled up
+     */
+    private boolean applyPendingExperience(CachedTool cached) {
+        if (cached.pendingExp == 0) {
+            return false;
+        }
+
+        boolean leveledUp = GensTool.applyExperience(cached.state, cached.pendingExp);
+        cached.pendingExp = 0;
+        cached.updateExpToLevelUp();
+        return leveledUp;
+    }
+
+    private boolean writeTo(Player player, CachedTool cached, ItemStack item, boolean deferLore) {
+        if (item == null || !item.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        String uniqueId = meta.getPersistentDataContainer().get(GensTool.KEY_UNIQUE_ID, PersistentDataType.STRING);
+        if (!cached.uniqueId.equals(uniqueId)) {
+            return false;
+        }
+
+        applyPendingExperience(cached);
+        GensTool.writeState(meta, cached.state);
+        item.setItemMeta(meta);
+        cached.dirty = false;
+
+        // Items outside the inventory can't be found again later, so render those now
+        if (deferLore) {
+            plugin.getLoreManager().scheduleLoreUpdate(player, cached.uniqueId);
+        } else {
+            plugin.getLoreManager().updateToolLore(item);
+        }
+        plugin.getToolPersistenceManager().handleToolUpdate(player, item);
+        return true;
+    }
+
+    /**
+     * A tool held by a player with its decoded state
+     */
+    public static class CachedTool {
+        private final String uniqueId;
+        private final UUID owner;
+        private final int slot;
+        private final Material material;
+        private final ToolState state;
+        private boolean dirty;
+        // Experience not yet applied to the state, and how much of it makes a level up
+        private long pendingExp;
+        private long expToLevelUp;
+        private int[] enchantLevels;
+        private int enchantIndexVersion;
+
+        private CachedTool(String uniqueId, UUID owner, int slot, Material material, ToolState state) {
+            this.uniqueId = uniqueId;
+            this.owner = owner;
+            this.slot = slot;
+            this.material = material;
+            this.state = state;
+            updateExpToLevelUp();
+        }
+
+        private void updateExpToLevelUp() {
+            long required = GensTool.calculateRequiredExp(state.getLevel());
+            // Nothing is a level up at the maximum level
+            expToLevelUp = required > 0 ? Math.max(1, required - state.getExperience()) : Long.MAX_VALUE;
+        }
+
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public ToolState getState() {
+            return state;
+        }
+
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        /**
+         * Get the tool's enchantment levels indexed by enchant slot.
+         * Enchantments never change on a cached state, so this is only rebuilt
+         * when the enchant registry does.
+         *
+         * @param toolManager The tool manager holding the dispatch index
+         * @return The levels indexed by enchant slot
+         */
+        public int[] getEnchantLevels(ToolManager toolManager) {
+            if (enchantLevels == null || enchantIndexVersion != toolManager.getEnchantIndexVersion()) {
+                enchantLevels = toolManager.getEnchantLevels(state);
+                enchantIndexVersion = toolManager.getEnchantIndexVersion();
+            }
+            return enchantLevels;
+        }
+    }
+}
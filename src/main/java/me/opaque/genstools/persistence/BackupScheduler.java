@@ -0,0 +1,106 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Creates tool data backups on a thread of its own, on the schedule set by
+ * persistence.backups, and deletes the oldest backups beyond max-backups.
+ * Manual backups run on the same thread so two backups never overlap.
+ */
+public class BackupScheduler {
+    private final GensTools plugin;
+    private final Storage storage;
+    private final File backupFolder;
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> task;
+    private volatile int maxBackups;
+
+    public BackupScheduler(GensTools plugin, Storage storage) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.backupFolder = new File(plugin.getDataFolder(), "backups");
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GensTools-Backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Read persistence.backups and schedule backups, replacing the previous schedule
+     */
+    public synchronized void start() {
+        stop();
+
+        ConfigurationSection config = plugin.getConfigManager().getConfig().getConfigurationSection("persistence.backups");
+        this.maxBackups = config != null ? config.getInt("max-backups", 10) : 10;
+        if (config == null || !config.getBoolean("enabled", true)) {
+            return;
+        }
+
+        long interval = config.getLong("interval", 60);
+        if (interval > 0) {
+            task = executor.scheduleWithFixedDelay(this::runBackup, interval, interval, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Cancel scheduled backups, a backup already running finishes
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Create a backup now
+     * @return A future completed with true if the backup was created
+     */
+    public CompletableFuture<Boolean> backupNow() {
+        return CompletableFuture.supplyAsync(this::runBackup, executor);
+    }
+
+    private boolean runBackup() {
+        try {
+            boolean created = storage.createBackup();
+            if (created) {
+                int pruned = IncrementalBackup.prune(backupFolder, maxBackups);
+                if (pruned > 0) {
+                    plugin.getLogger().info("Deleted " + pruned + " old tool data backups.");
+                }
+            }
+            return created;
+        } catch (RuntimeException e) {
+            // Keep the schedule alive, a failed run would cancel it
+            plugin.getLogger().log(Level.SEVERE, "Failed to create tool data backup", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stop scheduling and wait for a running backup
+     */
+    public void shutdown() {
+        stop();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for the tool data backup to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
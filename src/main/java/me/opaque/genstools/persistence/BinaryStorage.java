@@ -0,0 +1,307 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.utils.BinaryCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Binary storage implementation for tool data, one snapshot file per player.
+ * A file has a versioned header, a table of the tool and enchantment IDs it uses,
+ * and the tools with varint-encoded numbers referring to that table. Files are
+ * read whole into memory, a mapping would keep them from being replaced on some
+ * platforms, and replaced atomically on save. Unreadable files are renamed to
+ * .corrupt instead of being overwritten by the next save.
+ */
+public class BinaryStorage implements Storage {
+    private static final int MAGIC = 0x47545344; // GTSD
+    private static final byte VERSION = 1;
+    // Magic, version, save time and owner
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 16;
+    private static final String EXTENSION = ".gtd";
+
+    private static final byte ID_UUID = 0;
+    private static final byte ID_STRING = 1;
+
+    private final GensTools plugin;
+    private final File dataFolder;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+
+    public BinaryStorage(GensTools plugin) {
+        this(plugin, new File(plugin.getDataFolder(), "data"));
+    }
+
+    public BinaryStorage(GensTools plugin, File dataFolder) {
+        this.plugin = plugin;
+        this.dataFolder = dataFolder;
+
+        // Create data folder if it doesn't exist
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+    }
+
+    @Override
+    public void savePlayerData(PlayerToolData data) {
+        ByteBuffer buffer = encode(data);
+
+        Path target = getPlayerFile(data.getPlayerUuid()).toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save player tool data: " + data.getPlayerUuid(), e);
+        }
+    }
+
+    /**
+     * Encode a player's tools into a snapshot
+     * @param data The player tool data
+     * @return The encoded snapshot, ready to be read
+     */
+    private static ByteBuffer encode(PlayerToolData data) {
+        List<SavedToolData> tools = new ArrayList<>(data.getTools());
+
+        // String table of tool and enchantment IDs by first use, indexed by interned enchantment number
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<Integer, Integer> enchantIndex = new HashMap<>();
+        int enchantCount = 0;
+        for (SavedToolData tool : tools) {
+            strings.putIfAbsent(tool.getToolId(), strings.size());
+            tool.forEachEnchant((id, level) -> enchantIndex.computeIfAbsent(id, key -> {
+                String enchantId = EnchantIdRegistry.name(key);
+                strings.putIfAbsent(enchantId, strings.size());
+                return strings.get(enchantId);
+            }));
+            enchantCount += tool.getEnchantCount();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(256 + tools.size() * 64);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putLong(data.getPlayerUuid().getMostSignificantBits());
+        buffer.putLong(data.getPlayerUuid().getLeastSignificantBits());
+
+        buffer = BinaryCodec.ensureCapacity(buffer, 5);
+        BinaryCodec.putVarInt(buffer, strings.size());
+        for (String value : strings.keySet()) {
+            buffer = BinaryCodec.ensureCapacity(buffer, 5 + value.length() * 3);
+            BinaryCodec.putString(buffer, value);
+        }
+
+        // Every tool fits in the fixed part plus 10 bytes per enchantment
+        int toolBound = 0;
+        for (SavedToolData tool : tools) {
+            toolBound += 1 + 5 + tool.getUniqueId().length() * 3 + 5 * 4;
+        }
+        buffer = BinaryCodec.ensureCapacity(buffer, 5 + toolBound + enchantCount * 10);
+        BinaryCodec.putVarInt(buffer, tools.size());
+        ByteBuffer out = buffer;
+        for (SavedToolData tool : tools) {
+            putUniqueId(out, tool);
+            BinaryCodec.putVarInt(out, strings.get(tool.getToolId()));
+            BinaryCodec.putVarInt(out, tool.getLevel());
+            BinaryCodec.putVarLong(out, tool.getExperience());
+            BinaryCodec.putVarInt(out, tool.getEnchantCount());
+            tool.forEachEnchant((id, level) -> {
+                BinaryCodec.putVarInt(out, enchantIndex.get(id));
+                BinaryCodec.putVarInt(out, level);
+            });
+        }
+
+        // Checksum of everything after the header
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.flip();
+        body.position(HEADER_SIZE);
+        crc.update(body);
+
+        buffer = BinaryCodec.ensureCapacity(buffer, 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Tool IDs generated by the plugin are UUIDs and are stored as 16 bytes
+     */
+    private static void putUniqueId(ByteBuffer buffer, SavedToolData tool) {
+        if (tool.hasUuidId()) {
+            UUID uuid = tool.getKey();
+            buffer.put(ID_UUID);
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+            return;
+        }
+
+        buffer.put(ID_STRING);
+        BinaryCodec.putString(buffer, tool.getUniqueId());
+    }
+
+    private static String getUniqueId(ByteBuffer buffer) {
+        byte type = buffer.get();
+        if (type == ID_UUID) {
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return BinaryCodec.getString(buffer);
+    }
+
+    @Override
+    public PlayerToolData loadPlayerData(UUID playerUuid) {
+        File playerFile = getPlayerFile(playerUuid);
+
+        // Check if file exists
+        if (!playerFile.exists()) {
+            // Return new empty data
+            return new PlayerToolData(playerUuid);
+        }
+
+        try {
+            return decode(playerUuid, ByteBuffer.wrap(Files.readAllBytes(playerFile.toPath())));
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load player tool data: " + playerUuid, e);
+            setAsideCorruptFile(playerFile);
+            return new PlayerToolData(playerUuid);
+        }
+    }
+
+    /**
+     * Rename a file that could not be read, so the next save doesn't replace the only copy
+     * @param playerFile The player's data file
+     */
+    private void setAsideCorruptFile(File playerFile) {
+        File corrupt = new File(dataFolder, playerFile.getName() + ".corrupt");
+        if (corrupt.exists()) {
+            corrupt = new File(dataFolder, playerFile.getName() + "." + System.currentTimeMillis() + ".corrupt");
+        }
+
+        try {
+            Files.move(playerFile.toPath(), corrupt.toPath());
+            plugin.getLogger().warning("Kept unreadable tool data file as " + corrupt.getName());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to set aside unreadable tool data file: " + playerFile.getName(), e);
+        }
+    }
+
+    /**
+     * Decode a snapshot written by {@link #encode}
+     */
+    private static PlayerToolData decode(UUID playerUuid, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a tool data file");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported tool data version " + version);
+        }
+
+        // Verify the checksum before trusting any lengths
+        int checksumOffset = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, checksumOffset - HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(checksumOffset)) {
+            throw new IOException("Tool data file is corrupt");
+        }
+
+        buffer.position(HEADER_SIZE);
+        buffer.limit(checksumOffset);
+
+        int stringCount = BinaryCodec.getVarInt(buffer);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = BinaryCodec.getString(buffer);
+        }
+
+        PlayerToolData playerData = new PlayerToolData(playerUuid);
+        int toolCount = BinaryCodec.getVarInt(buffer);
+        for (int i = 0; i < toolCount; i++) {
+            String uniqueId = getUniqueId(buffer);
+            String toolId = strings[BinaryCodec.getVarInt(buffer)];
+            int level = BinaryCodec.getVarInt(buffer);
+            long experience = BinaryCodec.getVarLong(buffer);
+
+            int enchantCount = BinaryCodec.getVarInt(buffer);
+            Map<String, Integer> enchantments = new HashMap<>(enchantCount * 2);
+            for (int j = 0; j < enchantCount; j++) {
+                enchantments.put(strings[BinaryCodec.getVarInt(buffer)], BinaryCodec.getVarInt(buffer));
+            }
+
+            playerData.addLoadedTool(new SavedToolData(uniqueId, toolId, level, experience, enchantments));
+        }
+
+        return playerData;
+    }
+
+    @Override
+    public List<UUID> getStoredPlayers() {
+        List<UUID> players = new ArrayList<>();
+        File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (playerFiles != null) {
+            for (File playerFile : playerFiles) {
+                String name = playerFile.getName();
+                try {
+                    players.add(UUID.fromString(name.substring(0, name.length() - EXTENSION.length())));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player file
+                }
+            }
+        }
+        return players;
+    }
+
+    @Override
+    public boolean createBackup() {
+        try {
+            // Snapshots are self-contained, copy the files as they are, only the ones changed since the last backup
+            IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, EXTENSION,
+                    new File(plugin.getDataFolder(), "backups"), dateFormat.format(new Date()));
+
+            plugin.getLogger().info("Created tool data backup: " + result.getName() + " (" + result.getCopied()
+                    + " files copied, " + result.getLinked() + " unchanged)");
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to create tool data backup", e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the file for a player's data
+     * @param playerUuid The player UUID
+     * @return The file
+     */
+    private File getPlayerFile(UUID playerUuid) {
+        return new File(dataFolder, playerUuid.toString() + EXTENSION);
+    }
+}
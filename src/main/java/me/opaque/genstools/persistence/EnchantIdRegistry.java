@@ -0,0 +1,70 @@
+package me.opaque.genstools.persistence;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns enchantment IDs as small ints so saved tool data can store them in
+ * primitive arrays. Registered enchantments are interned first by the tool
+ * manager, IDs only found in saved data get the next free number.
+ */
+public final class EnchantIdRegistry {
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[32];
+    private static int size;
+
+    private EnchantIdRegistry() {
+    }
+
+    /**
+     * Get the interned number of an enchantment ID, assigning one if needed
+     * @param enchantId The enchantment ID
+     * @return The interned number
+     */
+    public static int intern(String enchantId) {
+        Integer id = IDS.get(enchantId);
+        if (id != null) {
+            return id;
+        }
+        return register(enchantId);
+    }
+
+    private static synchronized int register(String enchantId) {
+        Integer id = IDS.get(enchantId);
+        if (id != null) {
+            return id;
+        }
+
+        int next = size;
+        String[] current = names;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[next] = enchantId;
+        // Publish the name before the number so readers never see a number without one
+        names = current;
+        size = next + 1;
+        IDS.put(enchantId, next);
+        return next;
+    }
+
+    /**
+     * Get the interned number of an enchantment ID without assigning one
+     * @param enchantId The enchantment ID
+     * @return The interned number, or -1 if the ID was never interned
+     */
+    public static int find(String enchantId) {
+        Integer id = IDS.get(enchantId);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Get the enchantment ID of an interned number
+     * @param id The interned number
+     * @return The enchantment ID
+     */
+    public static String name(int id) {
+        return names[id];
+    }
+}
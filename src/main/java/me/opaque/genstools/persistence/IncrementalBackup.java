@@ -0,0 +1,202 @@
+package me.opaque.genstools.persistence;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshots a folder of data files without reading their contents. Each snapshot
+ * is a folder with a manifest of the size and modification time of every file.
+ * Files unchanged since the previous snapshot are hard-linked to it, so they take
+ * no extra space, and only changed files are copied.
+ */
+public final class IncrementalBackup {
+    private static final String MANIFEST = "manifest.txt";
+    // Copies of a file that changed while being copied are retried this often
+    private static final int COPY_ATTEMPTS = 3;
+
+    private IncrementalBackup() {
+    }
+
+    /**
+     * The outcome of a snapshot
+     */
+    public static final class Result {
+        private final String name;
+        private final int copied;
+        private final int linked;
+
+        private Result(String name, int copied, int linked) {
+            this.name = name;
+            this.copied = copied;
+            this.linked = linked;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCopied() {
+            return copied;
+        }
+
+        public int getLinked() {
+            return linked;
+        }
+    }
+
+    /**
+     * Snapshot the data files of a folder
+     * @param dataFolder The folder holding the data files
+     * @param extension The extension of the data files, such as ".yml"
+     * @param backupFolder The folder holding the snapshots
+     * @param name The name of the new snapshot, snapshots sort by name
+     * @return The outcome
+     * @throws IOException If a file can't be copied
+     */
+    public static Result create(File dataFolder, String extension, File backupFolder, String name) throws IOException {
+        Path snapshot = uniqueFolder(backupFolder, name);
+        Files.createDirectories(snapshot);
+
+        File previous = findPrevious(backupFolder, snapshot.getFileName().toString());
+        Map<String, long[]> previousManifest = previous != null ? readManifest(previous) : new HashMap<>();
+
+        File[] files = dataFolder.listFiles((dir, fileName) -> fileName.endsWith(extension));
+        if (files == null) {
+            files = new File[0];
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        int copied = 0;
+        int linked = 0;
+        for (File file : files) {
+            Path target = snapshot.resolve(file.getName());
+            long size = file.length();
+            long modified = file.lastModified();
+
+            long[] known = previousManifest.get(file.getName());
+            if (known != null && known[0] == size && known[1] == modified
+                    && link(new File(previous, file.getName()).toPath(), target)) {
+                linked++;
+            } else {
+                long[] stat = copy(file, target);
+                size = stat[0];
+                modified = stat[1];
+                copied++;
+            }
+
+            manifest.append(size).append(' ').append(modified).append(' ').append(file.getName()).append('\n');
+        }
+
+        // Written last, a snapshot without a manifest is incomplete and never linked against
+        try (BufferedWriter writer = Files.newBufferedWriter(snapshot.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+            writer.write(manifest.toString());
+        }
+
+        return new Result(snapshot.getFileName().toString(), copied, linked);
+    }
+
+    /**
+     * Delete the oldest entries of a backup folder beyond a maximum
+     * @param backupFolder The folder holding the backups
+     * @param maxBackups How many backups to keep, 0 or less keeps all
+     * @return The number of backups deleted
+     */
+    public static int prune(File backupFolder, int maxBackups) {
+        File[] backups = backupFolder.listFiles();
+        if (maxBackups <= 0 || backups == null || backups.length <= maxBackups) {
+            return 0;
+        }
+
+        Arrays.sort(backups);
+        int excess = backups.length - maxBackups;
+        for (int i = 0; i < excess; i++) {
+            delete(backups[i]);
+        }
+        return excess;
+    }
+
+    private static Path uniqueFolder(File backupFolder, String name) {
+        File folder = new File(backupFolder, name);
+        for (int i = 1; folder.exists(); i++) {
+            folder = new File(backupFolder, name + "_" + i);
+        }
+        return folder.toPath();
+    }
+
+    /**
+     * Find the newest complete snapshot before the given one
+     */
+    private static File findPrevious(File backupFolder, String current) {
+        File[] snapshots = backupFolder.listFiles(file -> file.isDirectory()
+                && !file.getName().equals(current) && new File(file, MANIFEST).isFile());
+        if (snapshots == null || snapshots.length == 0) {
+            return null;
+        }
+
+        Arrays.sort(snapshots);
+        return snapshots[snapshots.length - 1];
+    }
+
+    private static Map<String, long[]> readManifest(File snapshot) throws IOException {
+        Map<String, long[]> manifest = new HashMap<>();
+        List<String> lines = Files.readAllLines(new File(snapshot, MANIFEST).toPath(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] parts = line.split(" ", 3);
+            if (parts.length == 3) {
+                try {
+                    manifest.put(parts[2], new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])});
+                } catch (NumberFormatException ignored) {
+                    // Skip damaged lines, the file is copied again
+                }
+            }
+        }
+        return manifest;
+    }
+
+    private static boolean link(Path existing, Path target) {
+        try {
+            Files.createLink(target, existing);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // No hard links on this file system or the old copy is gone
+            return false;
+        }
+    }
+
+    /**
+     * Copy a file that may be written to meanwhile, retrying until it stays the same during a copy
+     * @return The size and modification time of the copied version
+     */
+    private static long[] copy(File file, Path target) throws IOException {
+        long size = 0;
+        long modified = 0;
+        for (int attempt = 0; attempt < COPY_ATTEMPTS; attempt++) {
+            size = file.length();
+            modified = file.lastModified();
+            Files.copy(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+            if (file.length() == size && file.lastModified() == modified) {
+                break;
+            }
+        }
+        return new long[]{size, modified};
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
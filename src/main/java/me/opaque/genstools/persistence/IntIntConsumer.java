@@ -0,0 +1,9 @@
+package me.opaque.genstools.persistence;
+
+/**
+ * Accepts two int values without boxing
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+    void accept(int first, int second);
+}
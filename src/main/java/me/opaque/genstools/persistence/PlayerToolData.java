@@ -1,64 +1,98 @@
 package me.opaque.genstools.persistence;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
- * Represents all tool data for a player
+ * Represents all tool data for a player, indexed by tool unique ID in the order
+ * the tools were added
  */
 public class PlayerToolData {
     private final UUID playerUuid;
-    private final List<SavedToolData> tools;
+    private final Map<UUID, SavedToolData> tools;
+    private final Collection<SavedToolData> toolsView;
+    // Tools removed since the last save
+    private final Set<String> removedTools = new HashSet<>();
 
     public PlayerToolData(UUID playerUuid) {
         this.playerUuid = playerUuid;
-        this.tools = new ArrayList<>();
+        this.tools = new LinkedHashMap<>();
+        this.toolsView = Collections.unmodifiableCollection(tools.values());
     }
 
     /**
-     * Add or update a tool in the player's data
+     * Add or update a tool in the player's data. Only fields that actually change are marked dirty.
      * @param toolData The tool data to add/update
      */
-    public void addOrUpdateTool(SavedToolData toolData) {
+    public synchronized void addOrUpdateTool(SavedToolData toolData) {
         // Check if tool already exists
-        SavedToolData existing = getToolByUniqueId(toolData.getUniqueId());
+        SavedToolData existing = tools.get(toolData.getKey());
 
         if (existing != null) {
             // Update existing tool
             existing.setLevel(toolData.getLevel());
             existing.setExperience(toolData.getExperience());
 
-            // Update enchantments
-            for (String enchantId : toolData.getEnchantments().keySet()) {
-                existing.setEnchantment(enchantId, toolData.getEnchantments().get(enchantId));
-            }
+            // Update enchantments, removing the ones the tool no longer has
+            existing.updateEnchantments(toolData);
         } else {
             // Add new tool
-            tools.add(toolData);
+            toolData.markDirty(SavedToolData.FIELD_NEW, Set.of());
+            removedTools.remove(toolData.getUniqueId());
+            tools.put(toolData.getKey(), toolData);
         }
     }
 
+    /**
+     * Add a tool read from storage, without marking it dirty
+     * @param toolData The loaded tool data
+     */
+    public synchronized void addLoadedTool(SavedToolData toolData) {
+        toolData.clearDirty();
+        tools.put(toolData.getKey(), toolData);
+    }
+
     /**
      * Get a tool by its unique ID
      * @param uniqueId The unique ID of the tool
      * @return The tool data, or null if not found
      */
-    public SavedToolData getToolByUniqueId(String uniqueId) {
-        for (SavedToolData tool : tools) {
-            if (tool.getUniqueId().equals(uniqueId)) {
-                return tool;
-            }
-        }
-        return null;
+    public synchronized SavedToolData getToolByUniqueId(String uniqueId) {
+        return tools.get(SavedToolData.keyOf(uniqueId));
+    }
+
+    /**
+     * Get a tool by its key, without parsing a unique ID
+     * @param key The key from {@link SavedToolData#getKey()}
+     * @return The tool data, or null if not found
+     */
+    public synchronized SavedToolData getToolByKey(UUID key) {
+        return tools.get(key);
     }
 
     /**
-     * Get all tools for this player
-     * @return The list of tools
+     * Get all tools for this player. This is a read-only view of the live data,
+     * use it on the thread that changes the data or on a snapshot.
+     * @return The tools, in the order they were added
      */
-    public List<SavedToolData> getTools() {
-        return new ArrayList<>(tools);
+    public Collection<SavedToolData> getTools() {
+        return toolsView;
+    }
+
+    /**
+     * Get the number of tools
+     * @return The tool count
+     */
+    public synchronized int getToolCount() {
+        return tools.size();
     }
 
     /**
@@ -74,7 +108,91 @@ public class PlayerToolData {
      * @param uniqueId The unique ID of the tool to remove
      * @return true if removed, false if not found
      */
-    public boolean removeTool(String uniqueId) {
-        return tools.removeIf(tool -> tool.getUniqueId().equals(uniqueId));
+    public synchronized boolean removeTool(String uniqueId) {
+        SavedToolData removed = tools.remove(SavedToolData.keyOf(uniqueId));
+        if (removed != null) {
+            removedTools.add(removed.getUniqueId());
+        }
+        return removed != null;
+    }
+
+    /**
+     * Check if any tool changed or was removed since the last save
+     * @return true if there are unsaved changes
+     */
+    public synchronized boolean isDirty() {
+        if (!removedTools.isEmpty()) {
+            return true;
+        }
+        for (SavedToolData tool : tools.values()) {
+            if (tool.isDirty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the unsaved changes and mark everything as saved. If writing the
+     * delta fails, hand it back with {@link #restoreDelta}.
+     * @param wholePlayer Whether to copy all tools too, for storages that write whole players.
+     * They are also copied when tools were added or removed or enchantments changed.
+     * @return The changes since the last save
+     */
+    public synchronized ToolDataDelta takeDelta(boolean wholePlayer) {
+        List<ToolDataDelta.ToolChange> changes = new ArrayList<>();
+        boolean toolsOrEnchantsChanged = !removedTools.isEmpty();
+        for (SavedToolData tool : tools.values()) {
+            if (!tool.isDirty()) {
+                continue;
+            }
+
+            Map<String, Integer> enchantments;
+            if ((tool.getDirtyFields() & SavedToolData.FIELD_NEW) != 0) {
+                enchantments = tool.getEnchantments();
+            } else {
+                enchantments = new HashMap<>();
+                for (String enchantId : tool.getDirtyEnchantments()) {
+                    enchantments.put(enchantId, tool.getEnchantLevel(enchantId));
+                }
+            }
+
+            toolsOrEnchantsChanged |= !enchantments.isEmpty() || (tool.getDirtyFields() & SavedToolData.FIELD_NEW) != 0;
+            changes.add(new ToolDataDelta.ToolChange(tool.getUniqueId(), tool.getToolId(), tool.getDirtyFields(),
+                    tool.getLevel(), tool.getExperience(), enchantments));
+            tool.clearDirty();
+        }
+
+        // Level and experience changes, by far the most common, need no copy of the other tools
+        PlayerToolData snapshot = null;
+        if (wholePlayer || toolsOrEnchantsChanged) {
+            snapshot = new PlayerToolData(playerUuid);
+            for (SavedToolData tool : tools.values()) {
+                snapshot.tools.put(tool.getKey(), new SavedToolData(tool));
+            }
+        }
+
+        ToolDataDelta delta = new ToolDataDelta(this, snapshot, changes, new HashSet<>(removedTools),
+                toolsOrEnchantsChanged);
+        removedTools.clear();
+        return delta;
+    }
+
+    /**
+     * Mark the changes of a delta that failed to save as dirty again
+     * @param delta The delta from {@link #takeDelta}
+     */
+    public synchronized void restoreDelta(ToolDataDelta delta) {
+        for (ToolDataDelta.ToolChange change : delta.getChanges()) {
+            SavedToolData tool = getToolByUniqueId(change.getUniqueId());
+            if (tool != null) {
+                tool.markDirty(change.getFields(), change.getEnchantments().keySet());
+            }
+        }
+        for (String uniqueId : delta.getRemovedTools()) {
+            if (getToolByUniqueId(uniqueId) == null) {
+                removedTools.add(uniqueId);
+            }
+        }
     }
-}
\ No newline at end of file
+}
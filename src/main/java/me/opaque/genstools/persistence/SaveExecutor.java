@@ -0,0 +1,183 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.utils.LatencyRecorder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Runs tool data saves on a fixed number of threads. Saves touching the same
+ * player run one after another in submission order, saves of different players
+ * run in parallel.
+ */
+public class SaveExecutor {
+    private final GensTools plugin;
+    private final ExecutorService executor;
+
+    // Last save submitted per player, later saves of that player wait for it
+    private final Map<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LatencyRecorder saveLatency = new LatencyRecorder(1024);
+    private final LatencyRecorder waitLatency = new LatencyRecorder(1024);
+
+    /**
+     * @param plugin The plugin instance
+     * @param threads The maximum number of saves running at once
+     */
+    public SaveExecutor(GensTools plugin, int threads) {
+        this.plugin = plugin;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "GensTools-Save-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a save that writes the data of some players
+     * @param playerUuids The players whose data the save writes
+     * @param task The save
+     * @return A future completed when the save has run
+     */
+    public CompletableFuture<Void> submit(Collection<UUID> playerUuids, Runnable task) {
+        return submit(playerUuids, task, false);
+    }
+
+    /**
+     * Queue a save that runs after every save queued before it, such as one that
+     * relies on all earlier changes being stored
+     * @param playerUuids The players whose data the save writes
+     * @param task The save
+     * @return A future completed when the save has run
+     */
+    public CompletableFuture<Void> submitAfterAll(Collection<UUID> playerUuids, Runnable task) {
+        return submit(playerUuids, task, true);
+    }
+
+    private synchronized CompletableFuture<Void> submit(Collection<UUID> playerUuids, Runnable task, boolean afterAll) {
+        List<UUID> players = new ArrayList<>(playerUuids);
+        List<CompletableFuture<Void>> previous = new ArrayList<>();
+        if (afterAll) {
+            previous.addAll(tails.values());
+        } else {
+            for (UUID player : players) {
+                CompletableFuture<Void> tail = tails.get(player);
+                if (tail != null && !tail.isDone()) {
+                    previous.add(tail);
+                }
+            }
+        }
+
+        queued.incrementAndGet();
+        long submitted = System.nanoTime();
+        CompletableFuture<Void> future = CompletableFuture.allOf(previous.toArray(new CompletableFuture[0]))
+                .exceptionally(error -> null)
+                .thenRunAsync(() -> {
+                    long start = System.nanoTime();
+                    waitLatency.record(start - submitted);
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        plugin.getLogger().log(Level.SEVERE, "Tool data save failed", t);
+                    } finally {
+                        saveLatency.record(System.nanoTime() - start);
+                        queued.decrementAndGet();
+                    }
+                }, executor);
+
+        for (UUID player : players) {
+            tails.put(player, future);
+        }
+        future.whenComplete((result, error) -> {
+            for (UUID player : players) {
+                tails.remove(player, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Check whether a save of a player is queued or running
+     * @param playerUuid The player UUID
+     * @return true if a save of the player has not finished yet
+     */
+    public boolean hasPendingSave(UUID playerUuid) {
+        CompletableFuture<Void> tail = tails.get(playerUuid);
+        return tail != null && !tail.isDone();
+    }
+
+    /**
+     * Get a future completed once every save of a player queued so far has run,
+     * whether it succeeded or not. Loads wait for it so they don't read data
+     * older than a save still in the queue.
+     * @param playerUuid The player UUID
+     * @return The future
+     */
+    public synchronized CompletableFuture<Void> afterSaves(UUID playerUuid) {
+        CompletableFuture<Void> tail = tails.get(playerUuid);
+        if (tail == null || tail.isDone()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return tail.exceptionally(error -> null);
+    }
+
+    /**
+     * Get the number of saves queued or running
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Get how long saves take to run
+     * @return The save latency recorder
+     */
+    public LatencyRecorder getSaveLatency() {
+        return saveLatency;
+    }
+
+    /**
+     * Get how long saves wait between being queued and running
+     * @return The wait latency recorder
+     */
+    public LatencyRecorder getWaitLatency() {
+        return waitLatency;
+    }
+
+    /**
+     * Let queued saves finish and stop the threads
+     * @param timeoutSeconds How long to wait for queued saves
+     */
+    public void shutdown(long timeoutSeconds) {
+        CompletableFuture<?>[] pending;
+        synchronized (this) {
+            pending = tails.values().toArray(new CompletableFuture[0]);
+        }
+
+        try {
+            CompletableFuture.allOf(pending).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Timed out waiting for " + queued.get() + " tool data saves");
+        }
+
+        executor.shutdown();
+    }
+}
@@ -1,31 +1,146 @@
 package me.opaque.genstools.persistence;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Represents saved data for a single tool
  */
 public class SavedToolData {
-    private final String uniqueId;
+    // Dirty field flags
+    public static final int FIELD_LEVEL = 1;
+    public static final int FIELD_EXPERIENCE = 1 << 1;
+    public static final int FIELD_ENCHANTMENTS = 1 << 2;
+    // The tool isn't in storage yet and has to be written as a whole
+    public static final int FIELD_NEW = 1 << 3;
+
+    private static final int[] NO_ENCHANTS = new int[0];
+
+    // Unique ID as two longs, IDs that aren't UUIDs keep their text and a UUID derived from it
+    private final long uniqueIdMost;
+    private final long uniqueIdLeast;
+    private final String legacyId;
     private final String toolId;
     private int level;
-    private int experience;
-    private final Map<String, Integer> enchantments;
+    private long experience;
+    // Interned enchantment number and level pairs, sorted by number
+    private int[] enchants;
 
-    public SavedToolData(String uniqueId, String toolId, int level, int experience, Map<String, Integer> enchantments) {
-        this.uniqueId = uniqueId;
+    // Fields changed since the last save
+    private int dirtyFields;
+    // Interned numbers of changed enchantments, created on first change
+    private BitSet dirtyEnchantments;
+
+    public SavedToolData(String uniqueId, String toolId, int level, long experience, Map<String, Integer> enchantments) {
+        boolean uuid = isUuid(uniqueId);
+        UUID key = uuid ? UUID.fromString(uniqueId) : keyOf(uniqueId);
+        this.uniqueIdMost = key.getMostSignificantBits();
+        this.uniqueIdLeast = key.getLeastSignificantBits();
+        this.legacyId = uuid ? null : uniqueId;
         this.toolId = toolId;
         this.level = level;
         this.experience = experience;
-        this.enchantments = new HashMap<>(enchantments);
+        this.enchants = toPairs(enchantments);
+    }
+
+    /**
+     * Copy another tool's data, without its dirty state
+     * @param other The tool to copy
+     */
+    public SavedToolData(SavedToolData other) {
+        this.uniqueIdMost = other.uniqueIdMost;
+        this.uniqueIdLeast = other.uniqueIdLeast;
+        this.legacyId = other.legacyId;
+        this.toolId = other.toolId;
+        this.level = other.level;
+        this.experience = other.experience;
+        this.enchants = other.enchants.length == 0 ? NO_ENCHANTS : other.enchants.clone();
+    }
+
+    private static int[] toPairs(Map<String, Integer> enchantments) {
+        if (enchantments.isEmpty()) {
+            return NO_ENCHANTS;
+        }
+
+        long[] sorted = new long[enchantments.size()];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
+            if (entry.getValue() > 0) {
+                sorted[count++] = ((long) EnchantIdRegistry.intern(entry.getKey()) << 32) | entry.getValue();
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+
+        int[] pairs = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            pairs[i * 2] = (int) (sorted[i] >>> 32);
+            pairs[i * 2 + 1] = (int) sorted[i];
+        }
+        return pairs;
     }
 
     // Getters
 
+    /**
+     * Get the unique ID as text, for storage and display. Lookups should use {@link #getKey()}.
+     * @return The unique ID
+     */
     public String getUniqueId() {
-        return uniqueId;
+        return legacyId != null ? legacyId : new UUID(uniqueIdMost, uniqueIdLeast).toString();
+    }
+
+    /**
+     * Check if the unique ID is a UUID, otherwise it is kept as text
+     * @return true if {@link #getKey()} is the unique ID itself
+     */
+    public boolean hasUuidId() {
+        return legacyId == null;
+    }
+
+    /**
+     * Get the key this tool is indexed by
+     * @return The unique ID as a UUID
+     */
+    public UUID getKey() {
+        return new UUID(uniqueIdMost, uniqueIdLeast);
+    }
+
+    /**
+     * Get the index key of a unique ID. Plugin-generated IDs are UUIDs, other IDs
+     * get a name-based UUID, which can't collide with the random ones.
+     * @param uniqueId The unique ID
+     * @return The key
+     */
+    public static UUID keyOf(String uniqueId) {
+        return isUuid(uniqueId)
+                ? UUID.fromString(uniqueId)
+                : UUID.nameUUIDFromBytes(uniqueId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Check if an ID is a UUID in the lower case form UUID.toString writes,
+     * so it converts back to the same text
+     */
+    private static boolean isUuid(String uniqueId) {
+        if (uniqueId.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = uniqueId.charAt(i);
+            boolean valid = (i == 8 || i == 13 || i == 18 || i == 23)
+                    ? c == '-'
+                    : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public String getToolId() {
@@ -36,42 +151,236 @@ public class SavedToolData {
         return level;
     }
 
-    public int getExperience() {
+    public long getExperience() {
         return experience;
     }
 
+    /**
+     * Get a copy of the enchantments. Prefer {@link #forEachEnchant}, which doesn't allocate.
+     * @return Enchantment ID to level
+     */
     public Map<String, Integer> getEnchantments() {
-        return new HashMap<>(enchantments);
+        Map<String, Integer> result = new HashMap<>(enchants.length);
+        for (int i = 0; i < enchants.length; i += 2) {
+            result.put(EnchantIdRegistry.name(enchants[i]), enchants[i + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Visit every enchantment in order of its interned number
+     * @param consumer Receives the interned number, see {@link EnchantIdRegistry#name}, and the level
+     */
+    public void forEachEnchant(IntIntConsumer consumer) {
+        for (int i = 0; i < enchants.length; i += 2) {
+            consumer.accept(enchants[i], enchants[i + 1]);
+        }
+    }
+
+    public int getEnchantCount() {
+        return enchants.length / 2;
+    }
+
+    /**
+     * Get the level of an enchantment
+     * @param enchantId The enchantment ID
+     * @return The level, 0 if the tool doesn't have it
+     */
+    public int getEnchantLevel(String enchantId) {
+        int id = EnchantIdRegistry.find(enchantId);
+        return id < 0 ? 0 : getEnchantLevel(id);
+    }
+
+    /**
+     * Get the level of an enchantment by its interned number
+     * @param id The interned number
+     * @return The level, 0 if the tool doesn't have it
+     */
+    public int getEnchantLevel(int id) {
+        int index = indexOf(id);
+        return index >= 0 ? enchants[index + 1] : 0;
+    }
+
+    /**
+     * Binary search for an interned number
+     * @return The index of its pair, or -(insertion index) - 1
+     */
+    private int indexOf(int id) {
+        int low = 0;
+        int high = enchants.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = enchants[mid * 2];
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid * 2;
+            }
+        }
+        return -(low * 2) - 1;
     }
 
     // Setters
 
     public void setLevel(int level) {
-        this.level = level;
+        if (this.level != level) {
+            this.level = level;
+            dirtyFields |= FIELD_LEVEL;
+        }
     }
 
-    public void setExperience(int experience) {
-        this.experience = experience;
+    public void setExperience(long experience) {
+        if (this.experience != experience) {
+            this.experience = experience;
+            dirtyFields |= FIELD_EXPERIENCE;
+        }
     }
 
     public void setEnchantment(String enchantId, int level) {
-        if (level <= 0) {
-            enchantments.remove(enchantId);
+        setEnchantment(EnchantIdRegistry.intern(enchantId), level);
+    }
+
+    /**
+     * Set an enchantment by its interned number
+     * @param id The interned number
+     * @param level The level, 0 or less to remove it
+     */
+    public void setEnchantment(int id, int level) {
+        int index = indexOf(id);
+        if (index >= 0) {
+            if (level > 0) {
+                if (enchants[index + 1] == level) {
+                    return;
+                }
+                enchants[index + 1] = level;
+            } else {
+                int[] smaller = new int[enchants.length - 2];
+                System.arraycopy(enchants, 0, smaller, 0, index);
+                System.arraycopy(enchants, index + 2, smaller, index, enchants.length - index - 2);
+                enchants = smaller.length == 0 ? NO_ENCHANTS : smaller;
+            }
         } else {
-            enchantments.put(enchantId, level);
+            if (level <= 0) {
+                return;
+            }
+            int insert = -(index + 1);
+            int[] larger = new int[enchants.length + 2];
+            System.arraycopy(enchants, 0, larger, 0, insert);
+            larger[insert] = id;
+            larger[insert + 1] = level;
+            System.arraycopy(enchants, insert, larger, insert + 2, enchants.length - insert);
+            enchants = larger;
+        }
+
+        markEnchantDirty(id);
+    }
+
+    /**
+     * Make this tool's enchantments match another's, marking only the differences dirty
+     * @param other The tool to copy the enchantments from
+     */
+    void updateEnchantments(SavedToolData other) {
+        int[] target = other.enchants;
+        if (Arrays.equals(enchants, target)) {
+            return;
+        }
+
+        // Walk both sorted arrays and mark every number whose level differs
+        int i = 0;
+        int j = 0;
+        while (i < enchants.length || j < target.length) {
+            int id = i < enchants.length ? enchants[i] : Integer.MAX_VALUE;
+            int otherId = j < target.length ? target[j] : Integer.MAX_VALUE;
+            if (id == otherId) {
+                if (enchants[i + 1] != target[j + 1]) {
+                    markEnchantDirty(id);
+                }
+                i += 2;
+                j += 2;
+            } else if (id < otherId) {
+                markEnchantDirty(id);
+                i += 2;
+            } else {
+                markEnchantDirty(otherId);
+                j += 2;
+            }
+        }
+
+        enchants = target.length == 0 ? NO_ENCHANTS : target.clone();
+    }
+
+    private void markEnchantDirty(int id) {
+        dirtyFields |= FIELD_ENCHANTMENTS;
+        if (dirtyEnchantments == null) {
+            dirtyEnchantments = new BitSet();
+        }
+        dirtyEnchantments.set(id);
+    }
+
+    // Dirty tracking
+
+    /**
+     * Check if anything changed since the last save
+     * @return true if the tool has unsaved changes
+     */
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    /**
+     * Get the fields changed since the last save
+     * @return A combination of the FIELD_ flags
+     */
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    /**
+     * Get the enchantments added, changed or removed since the last save
+     * @return The enchantment IDs
+     */
+    public Set<String> getDirtyEnchantments() {
+        Set<String> result = new HashSet<>();
+        if (dirtyEnchantments != null) {
+            for (int id = dirtyEnchantments.nextSetBit(0); id >= 0; id = dirtyEnchantments.nextSetBit(id + 1)) {
+                result.add(EnchantIdRegistry.name(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mark fields as changed
+     * @param fields A combination of the FIELD_ flags
+     * @param enchantIds Changed enchantment IDs
+     */
+    void markDirty(int fields, Set<String> enchantIds) {
+        dirtyFields |= fields;
+        for (String enchantId : enchantIds) {
+            markEnchantDirty(EnchantIdRegistry.intern(enchantId));
         }
     }
 
+    /**
+     * Mark the tool as saved
+     */
+    void clearDirty() {
+        dirtyFields = 0;
+        dirtyEnchantments = null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SavedToolData that = (SavedToolData) o;
-        return Objects.equals(uniqueId, that.uniqueId);
+        return uniqueIdMost == that.uniqueIdMost && uniqueIdLeast == that.uniqueIdLeast;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(uniqueId);
+        return Long.hashCode(uniqueIdMost) * 31 + Long.hashCode(uniqueIdLeast);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,542 @@
+package me.opaque.genstools.persistence;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import me.opaque.genstools.GensTools;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+
+/**
+ * SQL storage implementation for tool data over a pooled JDBC connection.
+ * Tools and their enchantments are kept in two tables, and saves of many
+ * players are written as multi-row upserts in a single transaction.
+ * Works with H2, SQLite and MySQL/MariaDB.
+ */
+public class SqlStorage implements Storage {
+    // Rows per upsert statement, 6 parameters each keeps SQLite under its parameter limit
+    private static final int ROWS_PER_STATEMENT = 100;
+
+    private final GensTools plugin;
+    private final HikariDataSource dataSource;
+    private final Dialect dialect;
+    private final String toolsTable;
+    private final String enchantsTable;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+
+    public SqlStorage(GensTools plugin, ConfigurationSection config) {
+        this.plugin = plugin;
+
+        String prefix = config != null ? config.getString("table-prefix", "genstools_") : "genstools_";
+        this.toolsTable = prefix + "tools";
+        this.enchantsTable = prefix + "tool_enchants";
+
+        String jdbcUrl = config != null
+                ? config.getString("jdbc-url", "jdbc:sqlite:{data-folder}/tools.db")
+                : "jdbc:sqlite:{data-folder}/tools.db";
+        jdbcUrl = jdbcUrl.replace("{data-folder}", plugin.getDataFolder().getAbsolutePath());
+        this.dialect = Dialect.fromUrl(jdbcUrl);
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("GensTools-SQL");
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        if (config != null) {
+            String driverClass = config.getString("driver-class", "");
+            if (!driverClass.isEmpty()) {
+                hikariConfig.setDriverClassName(driverClass);
+            }
+            hikariConfig.setUsername(config.getString("username", ""));
+            hikariConfig.setPassword(config.getString("password", ""));
+        }
+
+        // SQLite allows a single writer, more connections only cause lock errors
+        int poolSize = config != null ? config.getInt("pool-size", 4) : 4;
+        hikariConfig.setMaximumPoolSize(dialect == Dialect.SQLITE ? 1 : Math.max(1, poolSize));
+
+        this.dataSource = new HikariDataSource(hikariConfig);
+
+        try {
+            createTables();
+        } catch (SQLException e) {
+            // Without the tables every save would fail, let the caller pick another storage
+            dataSource.close();
+            throw new IllegalStateException("Failed to create tool data tables", e);
+        }
+    }
+
+    /**
+     * Create the tables if they don't exist yet
+     * @throws SQLException if the tables could not be created
+     */
+    private void createTables() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + toolsTable + " ("
+                    + "unique_id VARCHAR(36) NOT NULL PRIMARY KEY, "
+                    + "owner_uuid VARCHAR(36) NOT NULL, "
+                    + "tool_id VARCHAR(64) NOT NULL, "
+                    + "level INT NOT NULL, "
+                    + "experience BIGINT NOT NULL, "
+                    + "last_saved BIGINT NOT NULL)");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + enchantsTable + " ("
+                    + "unique_id VARCHAR(36) NOT NULL, "
+                    + "enchant_id VARCHAR(64) NOT NULL, "
+                    + "level INT NOT NULL, "
+                    + "PRIMARY KEY (unique_id, enchant_id))");
+
+            // Tables created before experience became a long hold it in an INT column
+            String widenSql = dialect.widenExperience(toolsTable);
+            if (widenSql != null && isIntColumn(connection, toolsTable, "experience")) {
+                statement.executeUpdate(widenSql);
+                plugin.getLogger().info("Changed the experience column of " + toolsTable + " to BIGINT");
+            }
+
+            if (dialect == Dialect.MYSQL) {
+                // MySQL has no CREATE INDEX IF NOT EXISTS, check the metadata instead
+                try (ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, toolsTable, false, false)) {
+                    while (indexes.next()) {
+                        if ((toolsTable + "_owner").equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                            return;
+                        }
+                    }
+                }
+                statement.executeUpdate("CREATE INDEX " + toolsTable + "_owner ON " + toolsTable + " (owner_uuid)");
+            } else {
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + toolsTable + "_owner ON "
+                        + toolsTable + " (owner_uuid)");
+            }
+        }
+    }
+
+    /**
+     * Check whether a column is an INT column, H2 reports unquoted names in upper case
+     */
+    private boolean isIntColumn(Connection connection, String table, String column) throws SQLException {
+        for (String tableName : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet columns = connection.getMetaData().getColumns(null, null, tableName, null)) {
+                while (columns.next()) {
+                    if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                        return columns.getInt("DATA_TYPE") == Types.INTEGER;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void savePlayerData(PlayerToolData data) {
+        savePlayerData(Collections.singletonList(data));
+    }
+
+    @Override
+    public void savePlayerData(Collection<PlayerToolData> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+
+        long saveTime = System.currentTimeMillis();
+        List<Object[]> toolRows = new ArrayList<>();
+        List<Object[]> enchantRows = new ArrayList<>();
+        for (PlayerToolData playerData : data) {
+            String owner = playerData.getPlayerUuid().toString();
+            for (SavedToolData tool : playerData.getTools()) {
+                toolRows.add(new Object[]{tool.getUniqueId(), owner, tool.getToolId(),
+                        tool.getLevel(), tool.getExperience(), saveTime});
+                tool.forEachEnchant((id, level) -> enchantRows.add(
+                        new Object[]{tool.getUniqueId(), EnchantIdRegistry.name(id), level}));
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                executeRows(connection, this::toolUpsertSql, toolRows);
+
+                // Enchantments are replaced as a whole, so removed ones don't linger
+                try (PreparedStatement deleteEnchants = connection.prepareStatement("DELETE FROM " + enchantsTable
+                        + " WHERE unique_id IN (SELECT unique_id FROM " + toolsTable + " WHERE owner_uuid = ?)")) {
+                    for (PlayerToolData playerData : data) {
+                        deleteEnchants.setString(1, playerData.getPlayerUuid().toString());
+                        deleteEnchants.addBatch();
+                    }
+                    deleteEnchants.executeBatch();
+                }
+                executeRows(connection, this::enchantUpsertSql, enchantRows);
+
+                // Tools not written in this save were removed from the player
+                try (PreparedStatement deleteTools = connection.prepareStatement("DELETE FROM " + toolsTable
+                        + " WHERE owner_uuid = ? AND last_saved <> ?")) {
+                    for (PlayerToolData playerData : data) {
+                        deleteTools.setString(1, playerData.getPlayerUuid().toString());
+                        deleteTools.setLong(2, saveTime);
+                        deleteTools.addBatch();
+                    }
+                    deleteTools.executeBatch();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to save tool data for " + data.size() + " players", e);
+        }
+    }
+
+    @Override
+    public boolean writesWholePlayers() {
+        return false;
+    }
+
+    @Override
+    public void saveDelta(ToolDataDelta delta) {
+        saveDeltas(Collections.singletonList(delta));
+    }
+
+    @Override
+    public void saveDeltas(Collection<ToolDataDelta> deltas) {
+        long saveTime = System.currentTimeMillis();
+        List<Object[]> newToolRows = new ArrayList<>();
+        List<Object[]> newToolIds = new ArrayList<>();
+        List<Object[]> statRows = new ArrayList<>();
+        List<Object[]> enchantRows = new ArrayList<>();
+        List<Object[]> removedEnchantRows = new ArrayList<>();
+        List<Object[]> removedToolRows = new ArrayList<>();
+
+        for (ToolDataDelta delta : deltas) {
+            String owner = delta.getPlayerUuid().toString();
+            for (ToolDataDelta.ToolChange change : delta.getChanges()) {
+                if (change.isNew()) {
+                    newToolRows.add(new Object[]{change.getUniqueId(), owner, change.getToolId(),
+                            change.getLevel(), change.getExperience(), saveTime});
+                    newToolIds.add(new Object[]{change.getUniqueId()});
+                } else if (change.hasField(SavedToolData.FIELD_LEVEL) || change.hasField(SavedToolData.FIELD_EXPERIENCE)) {
+                    statRows.add(new Object[]{change.getLevel(), change.getExperience(), change.getUniqueId()});
+                }
+
+                for (Map.Entry<String, Integer> entry : change.getEnchantments().entrySet()) {
+                    if (entry.getValue() > 0) {
+                        enchantRows.add(new Object[]{change.getUniqueId(), entry.getKey(), entry.getValue()});
+                    } else {
+                        removedEnchantRows.add(new Object[]{change.getUniqueId(), entry.getKey()});
+                    }
+                }
+            }
+            for (String uniqueId : delta.getRemovedTools()) {
+                removedToolRows.add(new Object[]{uniqueId, owner});
+            }
+        }
+
+        if (newToolRows.isEmpty() && statRows.isEmpty() && enchantRows.isEmpty()
+                && removedEnchantRows.isEmpty() && removedToolRows.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // New tools are written whole, replacing anything left under their ID
+                executeRows(connection, this::toolUpsertSql, newToolRows);
+                executeBatch(connection, "DELETE FROM " + enchantsTable + " WHERE unique_id = ?", newToolIds);
+
+                executeBatch(connection, "UPDATE " + toolsTable + " SET level = ?, experience = ? WHERE unique_id = ?",
+                        statRows);
+
+                executeRows(connection, this::enchantUpsertSql, enchantRows);
+                executeBatch(connection, "DELETE FROM " + enchantsTable + " WHERE unique_id = ? AND enchant_id = ?",
+                        removedEnchantRows);
+
+                List<Object[]> removedToolIds = new ArrayList<>(removedToolRows.size());
+                for (Object[] row : removedToolRows) {
+                    removedToolIds.add(new Object[]{row[0]});
+                }
+                executeBatch(connection, "DELETE FROM " + enchantsTable + " WHERE unique_id = ?", removedToolIds);
+                executeBatch(connection, "DELETE FROM " + toolsTable + " WHERE unique_id = ? AND owner_uuid = ?",
+                        removedToolRows);
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // Let the caller keep the changes dirty for the next save
+            throw new IllegalStateException("Failed to save tool changes for " + deltas.size() + " players", e);
+        }
+    }
+
+    /**
+     * Run a single-row statement once per row as one JDBC batch
+     */
+    private static void executeBatch(Connection connection, String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Write rows with multi-row statements. Full chunks share one prepared statement
+     * sent as a JDBC batch, the remainder gets a statement of its own size.
+     */
+    private void executeRows(Connection connection, IntFunction<String> sqlForRows, List<Object[]> rows)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        int fullChunks = rows.size() / ROWS_PER_STATEMENT;
+        if (fullChunks > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(sqlForRows.apply(ROWS_PER_STATEMENT))) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    bindRows(statement, rows, chunk * ROWS_PER_STATEMENT, ROWS_PER_STATEMENT);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        int remainder = rows.size() - fullChunks * ROWS_PER_STATEMENT;
+        if (remainder > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(sqlForRows.apply(remainder))) {
+                bindRows(statement, rows, fullChunks * ROWS_PER_STATEMENT, remainder);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static void bindRows(PreparedStatement statement, List<Object[]> rows, int from, int count)
+            throws SQLException {
+        int parameter = 1;
+        for (int i = from; i < from + count; i++) {
+            for (Object value : rows.get(i)) {
+                statement.setObject(parameter++, value);
+            }
+        }
+    }
+
+    private String toolUpsertSql(int rows) {
+        return dialect.upsert(toolsTable, new String[]{"unique_id", "owner_uuid", "tool_id", "level", "experience", "last_saved"},
+                new String[]{"unique_id"}, rows);
+    }
+
+    private String enchantUpsertSql(int rows) {
+        return dialect.upsert(enchantsTable, new String[]{"unique_id", "enchant_id", "level"},
+                new String[]{"unique_id", "enchant_id"}, rows);
+    }
+
+    @Override
+    public PlayerToolData loadPlayerData(UUID playerUuid) {
+        PlayerToolData playerData = new PlayerToolData(playerUuid);
+
+        String sql = "SELECT t.unique_id, t.tool_id, t.level, t.experience, e.enchant_id, e.level AS enchant_level"
+                + " FROM " + toolsTable + " t LEFT JOIN " + enchantsTable + " e ON e.unique_id = t.unique_id"
+                + " WHERE t.owner_uuid = ? ORDER BY t.unique_id";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, playerUuid.toString());
+
+            Map<String, ToolRow> tools = new LinkedHashMap<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    String uniqueId = result.getString("unique_id");
+                    ToolRow tool = tools.get(uniqueId);
+                    if (tool == null) {
+                        tool = new ToolRow(result.getString("tool_id"), result.getInt("level"), result.getLong("experience"));
+                        tools.put(uniqueId, tool);
+                    }
+
+                    String enchantId = result.getString("enchant_id");
+                    if (enchantId != null) {
+                        tool.enchantments.put(enchantId, result.getInt("enchant_level"));
+                    }
+                }
+            }
+
+            for (Map.Entry<String, ToolRow> entry : tools.entrySet()) {
+                ToolRow tool = entry.getValue();
+                playerData.addLoadedTool(new SavedToolData(entry.getKey(), tool.toolId, tool.level,
+                        tool.experience, tool.enchantments));
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load tool data for player: " + playerUuid, e);
+        }
+
+        return playerData;
+    }
+
+    @Override
+    public List<UUID> getStoredPlayers() {
+        List<UUID> players = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT DISTINCT owner_uuid FROM " + toolsTable)) {
+            while (result.next()) {
+                players.add(UUID.fromString(result.getString(1)));
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to list players with tool data", e);
+        }
+        return players;
+    }
+
+    @Override
+    public boolean createBackup() {
+        File backupFolder = new File(plugin.getDataFolder(), "backups");
+        if (!backupFolder.exists()) {
+            backupFolder.mkdirs();
+        }
+
+        String timestamp = dateFormat.format(new Date());
+        String backupSql;
+        switch (dialect) {
+            case H2:
+                backupSql = "BACKUP TO '" + new File(backupFolder, timestamp + ".zip").getAbsolutePath() + "'";
+                break;
+            case SQLITE:
+                backupSql = "VACUUM INTO '" + new File(backupFolder, timestamp + ".db").getAbsolutePath() + "'";
+                break;
+            default:
+                plugin.getLogger().warning("Tool data backups are not supported for remote databases, use the database's own backups.");
+                return false;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(backupSql.replace("\\", "/"));
+            plugin.getLogger().info("Created tool data backup: " + timestamp);
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to create tool data backup", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!dataSource.isClosed()) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * A tool being assembled from joined rows
+     */
+    private static class ToolRow {
+        private final String toolId;
+        private final int level;
+        private final long experience;
+        private final Map<String, Integer> enchantments = new HashMap<>();
+
+        private ToolRow(String toolId, int level, long experience) {
+            this.toolId = toolId;
+            this.level = level;
+            this.experience = experience;
+        }
+    }
+
+    /**
+     * The upsert syntax of each supported database
+     */
+    private enum Dialect {
+        H2,
+        SQLITE,
+        MYSQL;
+
+        /**
+         * Get the dialect of a JDBC URL
+         * @throws IllegalArgumentException if the database is not one of H2, SQLite, MySQL or MariaDB
+         */
+        private static Dialect fromUrl(String jdbcUrl) {
+            if (jdbcUrl.startsWith("jdbc:h2:")) {
+                return H2;
+            }
+            if (jdbcUrl.startsWith("jdbc:sqlite:")) {
+                return SQLITE;
+            }
+            if (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")) {
+                return MYSQL;
+            }
+            throw new IllegalArgumentException("Unsupported database in jdbc-url, use H2, SQLite, MySQL or MariaDB: "
+                    + jdbcUrl.substring(0, Math.min(jdbcUrl.indexOf(':', 5) + 1, jdbcUrl.length())));
+        }
+
+        /**
+         * Get the statement that changes the experience column to BIGINT,
+         * null for SQLite whose INTEGER columns already hold longs
+         */
+        private String widenExperience(String table) {
+            return switch (this) {
+                case H2 -> "ALTER TABLE " + table + " ALTER COLUMN experience BIGINT NOT NULL";
+                case MYSQL -> "ALTER TABLE " + table + " MODIFY experience BIGINT NOT NULL";
+                case SQLITE -> null;
+            };
+        }
+
+        private String upsert(String table, String[] columns, String[] keys, int rows) {
+            String columnList = String.join(", ", columns);
+            StringBuilder sql = new StringBuilder();
+
+            if (this == H2) {
+                sql.append("MERGE INTO ").append(table).append(" (").append(columnList).append(") KEY (")
+                        .append(String.join(", ", keys)).append(")");
+            } else {
+                sql.append("INSERT INTO ").append(table).append(" (").append(columnList).append(")");
+            }
+
+            String row = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+            sql.append(" VALUES ").append(String.join(", ", Collections.nCopies(rows, row)));
+
+            List<String> updates = new ArrayList<>();
+            for (String column : columns) {
+                if (!List.of(keys).contains(column)) {
+                    updates.add(column + (this == SQLITE ? " = excluded." + column : " = VALUES(" + column + ")"));
+                }
+            }
+
+            if (this == SQLITE) {
+                sql.append(" ON CONFLICT (").append(String.join(", ", keys)).append(") DO UPDATE SET ")
+                        .append(String.join(", ", updates));
+            } else if (this == MYSQL) {
+                sql.append(" ON DUPLICATE KEY UPDATE ").append(String.join(", ", updates));
+            }
+
+            return sql.toString();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package me.opaque.genstools.persistence;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -9,9 +11,51 @@ public interface Storage {
     /**
      * Save player tool data
      * @param data The player tool data to save
+     * @throws RuntimeException if the data could not be written
      */
     void savePlayerData(PlayerToolData data);
 
+    /**
+     * Save the tool data of several players at once
+     * @param data The player tool data to save
+     * @throws RuntimeException if the data could not be written
+     */
+    default void savePlayerData(Collection<PlayerToolData> data) {
+        for (PlayerToolData playerData : data) {
+            savePlayerData(playerData);
+        }
+    }
+
+    /**
+     * Check whether this storage writes all of a player's tools on every save, and so
+     * needs the full snapshot of {@link ToolDataDelta#getPlayerData} in every delta
+     * @return true unless the storage writes single tools
+     */
+    default boolean writesWholePlayers() {
+        return true;
+    }
+
+    /**
+     * Save only what changed since a player's last save. Storages that can't write
+     * single tools save the whole player instead.
+     * @param delta The changes to save
+     * @throws RuntimeException if the changes could not be written
+     */
+    default void saveDelta(ToolDataDelta delta) {
+        savePlayerData(delta.getPlayerData());
+    }
+
+    /**
+     * Save the changes of several players at once
+     * @param deltas The changes to save
+     * @throws RuntimeException if the changes could not be written
+     */
+    default void saveDeltas(Collection<ToolDataDelta> deltas) {
+        for (ToolDataDelta delta : deltas) {
+            saveDelta(delta);
+        }
+    }
+
     /**
      * Load player tool data
      * @param playerUuid The UUID of the player
@@ -19,9 +63,21 @@ public interface Storage {
      */
     PlayerToolData loadPlayerData(UUID playerUuid);
 
+    /**
+     * Get the UUIDs of all players with saved data
+     * @return The player UUIDs
+     */
+    List<UUID> getStoredPlayers();
+
     /**
      * Create a backup of all player data
      * @return true if successful, false otherwise
      */
     boolean createBackup();
-}
\ No newline at end of file
+
+    /**
+     * Release any resources held by the storage
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,113 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares save and load throughput of the file storages on generated data,
+ * in a scratch folder that is removed afterwards
+ */
+public final class StorageBenchmark {
+    private static final int TOOLS_PER_PLAYER = 8;
+    // Used when no tools are registered
+    private static final String FALLBACK_TOOL_ID = "benchmark_tool";
+
+    private StorageBenchmark() {
+    }
+
+    /**
+     * Run the benchmark. This does blocking file I/O and should not run on the main thread.
+     * @param plugin The plugin instance
+     * @param players How many players to generate
+     * @return One line of results per storage
+     */
+    public static List<String> run(GensTools plugin, int players) {
+        File folder = new File(plugin.getDataFolder(), "benchmark-" + System.currentTimeMillis());
+        // Only registered IDs, enchantment IDs are interned for good once seen
+        List<String> toolIds = new ArrayList<>(plugin.getToolManager().getAllToolIds());
+        if (toolIds.isEmpty()) {
+            toolIds.add(FALLBACK_TOOL_ID);
+        }
+        List<String> enchantIds = new ArrayList<>(plugin.getToolManager().getAllEnchantIds());
+        List<PlayerToolData> data = generate(players, toolIds, enchantIds);
+
+        List<String> results = new ArrayList<>();
+        try {
+            File yamlFolder = new File(folder, "yaml");
+            File binaryFolder = new File(folder, "binary");
+            results.add(measure("YAML", new YamlStorage(plugin, yamlFolder), yamlFolder, data));
+            results.add(measure("Binary", new BinaryStorage(plugin, binaryFolder), binaryFolder, data));
+        } finally {
+            delete(folder);
+        }
+        return results;
+    }
+
+    private static String measure(String name, Storage storage, File folder, List<PlayerToolData> data) {
+        long saveStart = System.nanoTime();
+        for (PlayerToolData playerData : data) {
+            storage.savePlayerData(playerData);
+        }
+        long saveNanos = System.nanoTime() - saveStart;
+
+        long loadStart = System.nanoTime();
+        int tools = 0;
+        for (PlayerToolData playerData : data) {
+            tools += storage.loadPlayerData(playerData.getPlayerUuid()).getTools().size();
+        }
+        long loadNanos = System.nanoTime() - loadStart;
+
+        long bytes = 0;
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                bytes += file.length();
+            }
+        }
+
+        return String.format("%s: save %.0f players/s, load %.0f players/s (%d tools), %.1f KB on disk",
+                name, perSecond(data.size(), saveNanos), perSecond(data.size(), loadNanos), tools, bytes / 1024.0);
+    }
+
+    private static double perSecond(int count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000.0 / nanos;
+    }
+
+    private static List<PlayerToolData> generate(int players, List<String> toolIds, List<String> enchantIds) {
+        Random random = new Random(42);
+        List<PlayerToolData> data = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            PlayerToolData playerData = new PlayerToolData(new UUID(random.nextLong(), random.nextLong()));
+            for (int j = 0; j < TOOLS_PER_PLAYER; j++) {
+                Map<String, Integer> enchantments = new HashMap<>();
+                for (String enchantId : enchantIds) {
+                    if (random.nextBoolean()) {
+                        enchantments.put(enchantId, 1 + random.nextInt(100));
+                    }
+                }
+                playerData.addOrUpdateTool(new SavedToolData(new UUID(random.nextLong(), random.nextLong()).toString(),
+                        toolIds.get(random.nextInt(toolIds.size())), 1 + random.nextInt(100),
+                        random.nextInt(1_000_000), enchantments));
+            }
+            data.add(playerData);
+        }
+        return data;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,138 @@
+package me.opaque.genstools.persistence;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The changes to a player's tools since their last save, copied so it can be
+ * written off the main thread while the live data keeps changing
+ */
+public class ToolDataDelta {
+    private final PlayerToolData source;
+    private final PlayerToolData snapshot;
+    private final List<ToolChange> changes;
+    private final Set<String> removedTools;
+    private final boolean toolsOrEnchantsChanged;
+
+    ToolDataDelta(PlayerToolData source, PlayerToolData snapshot, List<ToolChange> changes, Set<String> removedTools,
+                  boolean toolsOrEnchantsChanged) {
+        this.source = source;
+        this.snapshot = snapshot;
+        this.changes = Collections.unmodifiableList(changes);
+        this.removedTools = Collections.unmodifiableSet(removedTools);
+        this.toolsOrEnchantsChanged = toolsOrEnchantsChanged;
+    }
+
+    public UUID getPlayerUuid() {
+        return source.getPlayerUuid();
+    }
+
+    /**
+     * Get a copy of all the player's tools as they were when the delta was taken,
+     * for storages that write whole players
+     * @return The player tool data snapshot, or null if the delta was taken without
+     * one and only levels or experience changed
+     */
+    public PlayerToolData getPlayerData() {
+        return snapshot;
+    }
+
+    /**
+     * Get the live data this delta was taken from
+     * @return The live player tool data
+     */
+    PlayerToolData getSource() {
+        return source;
+    }
+
+    public List<ToolChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Get the unique IDs of tools removed since the last save
+     * @return The removed tool IDs
+     */
+    public Set<String> getRemovedTools() {
+        return removedTools;
+    }
+
+    /**
+     * Check whether tools were added or removed or enchantments changed, as opposed
+     * to only levels and experience
+     * @return true if the set of tools or their enchantments changed
+     */
+    public boolean hasToolOrEnchantChanges() {
+        return toolsOrEnchantsChanged;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && removedTools.isEmpty();
+    }
+
+    /**
+     * The changed fields of a single tool
+     */
+    public static class ToolChange {
+        private final String uniqueId;
+        private final String toolId;
+        private final int fields;
+        private final int level;
+        private final long experience;
+        private final Map<String, Integer> enchantments;
+
+        ToolChange(String uniqueId, String toolId, int fields, int level, long experience,
+                   Map<String, Integer> enchantments) {
+            this.uniqueId = uniqueId;
+            this.toolId = toolId;
+            this.fields = fields;
+            this.level = level;
+            this.experience = experience;
+            this.enchantments = Collections.unmodifiableMap(enchantments);
+        }
+
+        public String getUniqueId() {
+            return uniqueId;
+        }
+
+        public String getToolId() {
+            return toolId;
+        }
+
+        /**
+         * Get the changed fields
+         * @return A combination of the SavedToolData FIELD_ flags
+         */
+        public int getFields() {
+            return fields;
+        }
+
+        public boolean hasField(int field) {
+            return (fields & field) != 0;
+        }
+
+        public boolean isNew() {
+            return hasField(SavedToolData.FIELD_NEW);
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getExperience() {
+            return experience;
+        }
+
+        /**
+         * Get the enchantments of the change. For new tools these are all enchantments,
+         * otherwise only the changed ones, with level 0 for removed enchantments.
+         * @return Enchantment ID to level
+         */
+        public Map<String, Integer> getEnchantments() {
+            return enchantments;
+        }
+    }
+}
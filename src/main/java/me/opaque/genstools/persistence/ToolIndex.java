@@ -0,0 +1,392 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.utils.BinaryCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Index of the saved tools of all players, online or not, for admin queries
+ * that would otherwise load every player's data. It maps tool IDs to the players
+ * owning them and, per enchantment, buckets players by their highest level.
+ * The index is kept up to date as tool data is saved. It is written to disk after
+ * each journal compaction and on shutdown, the journal replays everything saved
+ * since. Without a journal the file is removed once loaded, so after a crash it is
+ * rebuilt from storage instead of trusting data that missed the last saves.
+ */
+public class ToolIndex {
+    private static final int MAGIC = 0x47544958; // GTIX
+    private static final byte VERSION = 1;
+
+    private final GensTools plugin;
+    private final File file;
+
+    // What the index knows of each player with saved tools
+    private final Map<UUID, Summary> players = new HashMap<>();
+    // Tool ID to owning players and how many of it they have
+    private final Map<String, Map<UUID, Integer>> toolOwners = new HashMap<>();
+    // Enchantment ID to players, bucketed by their highest level of it
+    private final Map<String, NavigableMap<Integer, Set<UUID>>> enchantLevels = new HashMap<>();
+
+    // Players updated while a rebuild runs, the rebuild must not overwrite them
+    private Set<UUID> rebuildUpdated;
+    // Whether the index changed since it was last read or written
+    private boolean changed;
+    // Keeps two writes of the file from sharing the temporary file
+    private final Object writeLock = new Object();
+
+    /**
+     * The tools of one player, as far as queries need them
+     */
+    private static class Summary {
+        private final Map<String, Integer> toolCounts = new HashMap<>();
+        private final Map<String, Integer> enchantLevels = new HashMap<>();
+    }
+
+    public ToolIndex(GensTools plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * Update the index with a player's saved tools
+     * @param data The player's data as it was saved
+     */
+    public synchronized void update(PlayerToolData data) {
+        if (rebuildUpdated != null) {
+            rebuildUpdated.add(data.getPlayerUuid());
+        }
+        put(data.getPlayerUuid(), summarize(data));
+    }
+
+    private static Summary summarize(PlayerToolData data) {
+        Summary summary = new Summary();
+        for (SavedToolData tool : data.getTools()) {
+            summary.toolCounts.merge(tool.getToolId(), 1, Integer::sum);
+            tool.forEachEnchant((id, level) -> summary.enchantLevels.merge(EnchantIdRegistry.name(id), level, Math::max));
+        }
+        return summary;
+    }
+
+    private void put(UUID playerUuid, Summary summary) {
+        changed = true;
+        Summary previous = players.remove(playerUuid);
+        if (previous != null) {
+            for (String toolId : previous.toolCounts.keySet()) {
+                Map<UUID, Integer> owners = toolOwners.get(toolId);
+                owners.remove(playerUuid);
+                if (owners.isEmpty()) {
+                    toolOwners.remove(toolId);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : previous.enchantLevels.entrySet()) {
+                NavigableMap<Integer, Set<UUID>> buckets = enchantLevels.get(entry.getKey());
+                Set<UUID> bucket = buckets.get(entry.getValue());
+                bucket.remove(playerUuid);
+                if (bucket.isEmpty()) {
+                    buckets.remove(entry.getValue());
+                    if (buckets.isEmpty()) {
+                        enchantLevels.remove(entry.getKey());
+                    }
+                }
+            }
+        }
+
+        if (summary.toolCounts.isEmpty()) {
+            return;
+        }
+
+        players.put(playerUuid, summary);
+        for (Map.Entry<String, Integer> entry : summary.toolCounts.entrySet()) {
+            toolOwners.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(playerUuid, entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : summary.enchantLevels.entrySet()) {
+            enchantLevels.computeIfAbsent(entry.getKey(), k -> new TreeMap<>())
+                    .computeIfAbsent(entry.getValue(), k -> new HashSet<>()).add(playerUuid);
+        }
+    }
+
+    /**
+     * Get the players owning a type of tool
+     * @param toolId The tool ID
+     * @return Player UUID to the number of those tools they own
+     */
+    public synchronized Map<UUID, Integer> findToolOwners(String toolId) {
+        Map<UUID, Integer> owners = toolOwners.get(toolId);
+        return owners != null ? new HashMap<>(owners) : Collections.emptyMap();
+    }
+
+    /**
+     * Count the saved tools of a type across all players
+     * @param toolId The tool ID
+     * @return The number of tools
+     */
+    public synchronized int countTools(String toolId) {
+        Map<UUID, Integer> owners = toolOwners.get(toolId);
+        if (owners == null) {
+            return 0;
+        }
+
+        int total = 0;
+        for (int count : owners.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the players with a tool that has an enchantment at a minimum level
+     * @param enchantId The enchantment ID
+     * @param minLevel The minimum level
+     * @return Player UUID to their highest level of the enchantment, highest first
+     */
+    public synchronized Map<UUID, Integer> findEnchantOwners(String enchantId, int minLevel) {
+        NavigableMap<Integer, Set<UUID>> buckets = enchantLevels.get(enchantId);
+        if (buckets == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<UUID, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Set<UUID>> bucket : buckets.tailMap(minLevel, true).descendingMap().entrySet()) {
+            for (UUID playerUuid : bucket.getValue()) {
+                result.put(playerUuid, bucket.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of players with saved tools
+     * @return The player count
+     */
+    public synchronized int getPlayerCount() {
+        return players.size();
+    }
+
+    /**
+     * Check whether a rebuild is running, queries may miss players until it is done
+     * @return true if the index is being rebuilt
+     */
+    public synchronized boolean isRebuilding() {
+        return rebuildUpdated != null;
+    }
+
+    /**
+     * Read the index written last
+     * @param journaled Whether the journal replays the saves made after the file was written.
+     * Without one the file is removed, only a clean shutdown writes it again.
+     * @return true if the index was loaded, false if it has to be rebuilt
+     */
+    public boolean load(boolean journaled) {
+        if (!file.exists()) {
+            return false;
+        }
+
+        boolean loaded = false;
+        try {
+            // Read rather than mapped, a mapped file can't be deleted on every platform
+            decode(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+            loaded = true;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read the tool index, it will be rebuilt", e);
+            synchronized (this) {
+                players.clear();
+                toolOwners.clear();
+                enchantLevels.clear();
+            }
+        }
+
+        synchronized (this) {
+            changed = false;
+        }
+        if (!loaded || !journaled) {
+            file.delete();
+        }
+        return loaded;
+    }
+
+    private synchronized void decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 9 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            throw new IOException("Not a tool index file");
+        }
+
+        int checksumOffset = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(5, checksumOffset - 5));
+        if ((int) crc.getValue() != buffer.getInt(checksumOffset)) {
+            throw new IOException("Tool index file is corrupt");
+        }
+        buffer.limit(checksumOffset);
+
+        String[] strings = new String[BinaryCodec.getVarInt(buffer)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = BinaryCodec.getString(buffer);
+        }
+
+        int playerCount = BinaryCodec.getVarInt(buffer);
+        for (int i = 0; i < playerCount; i++) {
+            UUID playerUuid = new UUID(buffer.getLong(), buffer.getLong());
+            Summary summary = new Summary();
+            int toolCount = BinaryCodec.getVarInt(buffer);
+            for (int j = 0; j < toolCount; j++) {
+                summary.toolCounts.put(strings[BinaryCodec.getVarInt(buffer)], BinaryCodec.getVarInt(buffer));
+            }
+            int enchantCount = BinaryCodec.getVarInt(buffer);
+            for (int j = 0; j < enchantCount; j++) {
+                summary.enchantLevels.put(strings[BinaryCodec.getVarInt(buffer)], BinaryCodec.getVarInt(buffer));
+            }
+            put(playerUuid, summary);
+        }
+    }
+
+    /**
+     * Write the index to disk, to be loaded on the next start. Skipped while a rebuild
+     * runs and when nothing changed since the last write.
+     */
+    public void save() {
+        synchronized (writeLock) {
+            ByteBuffer buffer;
+            synchronized (this) {
+                if (rebuildUpdated != null) {
+                    // Incomplete, the next start rebuilds it again
+                    return;
+                }
+                if (!changed && file.exists()) {
+                    return;
+                }
+                buffer = encode();
+                changed = false;
+            }
+
+            if (!write(buffer)) {
+                synchronized (this) {
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private boolean write(ByteBuffer buffer) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save the tool index", e);
+            return false;
+        }
+    }
+
+    private ByteBuffer encode() {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (String toolId : toolOwners.keySet()) {
+            strings.putIfAbsent(toolId, strings.size());
+        }
+        for (String enchantId : enchantLevels.keySet()) {
+            strings.putIfAbsent(enchantId, strings.size());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(256 + players.size() * 64);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+
+        buffer = BinaryCodec.ensureCapacity(buffer, 5);
+        BinaryCodec.putVarInt(buffer, strings.size());
+        for (String value : strings.keySet()) {
+            buffer = BinaryCodec.ensureCapacity(buffer, 5 + value.length() * 3);
+            BinaryCodec.putString(buffer, value);
+        }
+
+        buffer = BinaryCodec.ensureCapacity(buffer, 5);
+        BinaryCodec.putVarInt(buffer, players.size());
+        for (Map.Entry<UUID, Summary> entry : players.entrySet()) {
+            Summary summary = entry.getValue();
+            buffer = BinaryCodec.ensureCapacity(buffer, 16 + 10
+                    + (summary.toolCounts.size() + summary.enchantLevels.size()) * 10);
+            buffer.putLong(entry.getKey().getMostSignificantBits());
+            buffer.putLong(entry.getKey().getLeastSignificantBits());
+            BinaryCodec.putVarInt(buffer, summary.toolCounts.size());
+            for (Map.Entry<String, Integer> tool : summary.toolCounts.entrySet()) {
+                BinaryCodec.putVarInt(buffer, strings.get(tool.getKey()));
+                BinaryCodec.putVarInt(buffer, tool.getValue());
+            }
+            BinaryCodec.putVarInt(buffer, summary.enchantLevels.size());
+            for (Map.Entry<String, Integer> enchant : summary.enchantLevels.entrySet()) {
+                BinaryCodec.putVarInt(buffer, strings.get(enchant.getKey()));
+                BinaryCodec.putVarInt(buffer, enchant.getValue());
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.flip();
+        body.position(5);
+        crc.update(body);
+
+        buffer = BinaryCodec.ensureCapacity(buffer, 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Index every player in storage. This does blocking I/O and should not run on the main thread.
+     * Players saved while this runs keep what the save indexed.
+     * @param storage The storage to read
+     * @return The number of players indexed
+     */
+    public int rebuild(Storage storage) {
+        synchronized (this) {
+            rebuildUpdated = new HashSet<>();
+        }
+
+        int indexed = 0;
+        try {
+            for (UUID playerUuid : storage.getStoredPlayers()) {
+                Summary summary = summarize(storage.loadPlayerData(playerUuid));
+                synchronized (this) {
+                    if (!rebuildUpdated.contains(playerUuid)) {
+                        put(playerUuid, summary);
+                    }
+                }
+                indexed++;
+            }
+        } finally {
+            synchronized (this) {
+                rebuildUpdated = null;
+            }
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,413 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.utils.BinaryCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of tool updates, written to memory-mapped
+ * segment files. Appends only copy into the mapping, a background thread forces
+ * all appends since its last run to disk at once. Records are full tool states,
+ * so replaying them in order is idempotent. Segments are compacted away once
+ * the main storage has saved everything they contain.
+ */
+public class ToolJournal {
+    private static final int MAGIC = 0x47544A4C; // GTJL
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int STATE_OFFSET = 5;
+    private static final byte STATE_ACTIVE = 0;
+    private static final byte STATE_COMPACTED = 1;
+
+    private static final byte RECORD_TOOL = 1;
+
+    private final GensTools plugin;
+    private final File folder;
+    private final int segmentSize;
+    private final ScheduledExecutorService syncExecutor;
+
+    // Segments written by this run, the last one is active
+    private final List<Segment> segments = new ArrayList<>();
+    // Sealed segments waiting for their contents to be saved
+    private final List<Segment> sealing = new ArrayList<>();
+    private Segment active;
+    private long nextSegmentNumber;
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private volatile boolean unsynced;
+
+    /**
+     * @param plugin The plugin instance
+     * @param folder Folder holding the segment files
+     * @param segmentSize Size of each mapped segment in bytes
+     * @param syncIntervalMillis How often appends are forced to disk
+     */
+    public ToolJournal(GensTools plugin, File folder, int segmentSize, long syncIntervalMillis) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.segmentSize = Math.max(segmentSize, 64 * 1024);
+
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GensTools-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, syncIntervalMillis);
+        syncExecutor.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the tools recorded by earlier runs into storage and remove their segments.
+     * Must be called before the first append.
+     * @param storage The storage to write to
+     * @param index The tool index to update with the replayed tools
+     * @return The number of tools replayed
+     */
+    public int replay(Storage storage, ToolIndex index) {
+        List<File> files = listSegmentFiles();
+        // Latest state of each tool, by owner
+        Map<UUID, Map<UUID, SavedToolData>> latest = new LinkedHashMap<>();
+        List<File> replayed = new ArrayList<>();
+
+        for (File file : files) {
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(file) + 1);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                if (channel.size() < HEADER_SIZE) {
+                    replayed.add(file);
+                    continue;
+                }
+
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+                    plugin.getLogger().warning("Skipping unrecognized tool journal segment: " + file.getName());
+                    continue;
+                }
+                replayed.add(file);
+                if (buffer.get(STATE_OFFSET) == STATE_COMPACTED) {
+                    continue;
+                }
+
+                buffer.position(HEADER_SIZE);
+                readRecords(file, buffer, latest);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to read tool journal segment: " + file.getName(), e);
+            }
+        }
+
+        int tools = 0;
+        if (!latest.isEmpty()) {
+            List<ToolDataDelta> deltas = new ArrayList<>(latest.size());
+            for (Map.Entry<UUID, Map<UUID, SavedToolData>> entry : latest.entrySet()) {
+                PlayerToolData data = storage.loadPlayerData(entry.getKey());
+                for (SavedToolData tool : entry.getValue().values()) {
+                    data.addOrUpdateTool(tool);
+                    tools++;
+                }
+
+                ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+                if (!delta.isEmpty()) {
+                    deltas.add(delta);
+                }
+            }
+
+            try {
+                storage.saveDeltas(deltas);
+            } catch (Exception e) {
+                // Keep the segments so the next start tries again
+                plugin.getLogger().log(Level.SEVERE, "Failed to replay the tool journal, keeping it for the next start", e);
+                return 0;
+            }
+
+            // The index was last written before these saves
+            for (ToolDataDelta delta : deltas) {
+                if (delta.hasToolOrEnchantChanges()) {
+                    index.update(delta.getPlayerData());
+                }
+            }
+        }
+
+        for (File file : replayed) {
+            if (!file.delete()) {
+                plugin.getLogger().warning("Could not delete replayed tool journal segment: " + file.getName());
+            }
+        }
+
+        if (tools > 0) {
+            plugin.getLogger().info("Recovered " + tools + " tools from the journal.");
+        }
+        return tools;
+    }
+
+    private void readRecords(File file, ByteBuffer buffer, Map<UUID, Map<UUID, SavedToolData>> latest) {
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                // End of the written part
+                return;
+            }
+            if (length < 0 || length + 4 > buffer.remaining()) {
+                plugin.getLogger().warning("Tool journal segment " + file.getName() + " ends in a torn record at " + start);
+                return;
+            }
+
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            int checksum = buffer.getInt();
+
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                plugin.getLogger().warning("Tool journal segment " + file.getName() + " has a corrupt record at " + start);
+                return;
+            }
+
+            try {
+                byte type = payload.get();
+                UUID owner = new UUID(payload.getLong(), payload.getLong());
+                if (type == RECORD_TOOL) {
+                    SavedToolData tool = readTool(payload);
+                    latest.computeIfAbsent(owner, k -> new HashMap<>()).put(tool.getKey(), tool);
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Tool journal segment " + file.getName() + " has an unreadable record at " + start);
+                return;
+            }
+        }
+    }
+
+    private static SavedToolData readTool(ByteBuffer payload) {
+        String uniqueId = BinaryCodec.getString(payload);
+        String toolId = BinaryCodec.getString(payload);
+        int level = BinaryCodec.getVarInt(payload);
+        long experience = BinaryCodec.getVarLong(payload);
+        int count = BinaryCodec.getVarInt(payload);
+        Map<String, Integer> enchantments = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            enchantments.put(BinaryCodec.getString(payload), BinaryCodec.getVarInt(payload));
+        }
+        return new SavedToolData(uniqueId, toolId, level, experience, enchantments);
+    }
+
+    /**
+     * Record the full state of a tool
+     * @param owner The owner of the tool
+     * @param tool The tool's current data
+     */
+    public synchronized void append(UUID owner, SavedToolData tool) {
+        // Upper bound of the fixed part, 3 bytes per UTF-8 char and 5 per varint
+        int bound = 4 + 1 + 16 + 4 + 5 * 5
+                + 3 * (tool.getUniqueId().length() + tool.getToolId().length());
+
+        scratch.clear();
+        scratch = BinaryCodec.ensureCapacity(scratch, bound);
+        scratch.put(RECORD_TOOL);
+        scratch.putLong(owner.getMostSignificantBits());
+        scratch.putLong(owner.getLeastSignificantBits());
+        BinaryCodec.putString(scratch, tool.getUniqueId());
+        BinaryCodec.putString(scratch, tool.getToolId());
+        BinaryCodec.putVarInt(scratch, tool.getLevel());
+        BinaryCodec.putVarLong(scratch, tool.getExperience());
+        BinaryCodec.putVarInt(scratch, tool.getEnchantCount());
+        tool.forEachEnchant((id, level) -> {
+            String enchantId = EnchantIdRegistry.name(id);
+            scratch = BinaryCodec.ensureCapacity(scratch, 10 + 3 * enchantId.length());
+            BinaryCodec.putString(scratch, enchantId);
+            BinaryCodec.putVarInt(scratch, level);
+        });
+        scratch.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(scratch.duplicate());
+
+        int recordSize = 4 + scratch.remaining() + 4;
+        try {
+            if (active == null || active.buffer.remaining() < recordSize + 4) {
+                openSegment(recordSize);
+            }
+
+            // Payload and checksum first, the length last so a torn record reads as the end
+            MappedByteBuffer buffer = active.buffer;
+            int start = buffer.position();
+            int length = scratch.remaining();
+            buffer.position(start + 4);
+            buffer.put(scratch);
+            buffer.putInt((int) crc.getValue());
+            buffer.putInt(start, length);
+            unsynced = true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write to the tool journal", e);
+        }
+    }
+
+    /**
+     * Start a new segment and return the ones before it. Once everything recorded
+     * so far is saved in the main storage, pass them to {@link #discard}.
+     * @return The sealed segments
+     */
+    public synchronized List<Segment> rotate() {
+        List<Segment> sealed = new ArrayList<>(segments);
+        segments.clear();
+        active = null;
+
+        // The sync thread keeps forcing these until they are discarded
+        sealing.addAll(sealed);
+        return sealed;
+    }
+
+    /**
+     * Hand back sealed segments whose contents could not be saved, so the next
+     * rotation seals them again
+     * @param sealed Segments from {@link #rotate}
+     */
+    public synchronized void restore(List<Segment> sealed) {
+        sealing.removeAll(sealed);
+        segments.addAll(0, sealed);
+    }
+
+    /**
+     * Mark sealed segments as compacted and delete them
+     * @param sealed Segments from {@link #rotate}
+     */
+    public void discard(List<Segment> sealed) {
+        synchronized (this) {
+            sealing.removeAll(sealed);
+        }
+
+        for (Segment segment : sealed) {
+            // The mapping may keep the file from being deleted on some systems,
+            // the compacted flag makes a leftover file harmless
+            segment.buffer.put(STATE_OFFSET, STATE_COMPACTED);
+            segment.buffer.force();
+            if (!segment.file.delete()) {
+                segment.file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Force outstanding appends to disk, covering every append since the last sync
+     */
+    public void sync() {
+        if (!unsynced) {
+            return;
+        }
+        unsynced = false;
+
+        List<Segment> toSync;
+        synchronized (this) {
+            toSync = new ArrayList<>(sealing);
+            toSync.addAll(segments);
+        }
+        for (Segment segment : toSync) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Get the number of bytes written to segments that are not compacted yet
+     * @return The journal size in bytes
+     */
+    public synchronized long getPendingBytes() {
+        long bytes = 0;
+        for (Segment segment : sealing) {
+            bytes += segment.buffer.position() - HEADER_SIZE;
+        }
+        for (Segment segment : segments) {
+            bytes += segment.buffer.position() - HEADER_SIZE;
+        }
+        return bytes;
+    }
+
+    /**
+     * Stop the sync thread after a final sync
+     */
+    public void close() {
+        syncExecutor.shutdown();
+        try {
+            syncExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+    }
+
+    private void openSegment(int recordSize) throws IOException {
+        long number = nextSegmentNumber++;
+        File file = new File(folder, "journal-" + number + ".log");
+        int size = Math.max(segmentSize, HEADER_SIZE + recordSize + 4);
+
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(STATE_ACTIVE);
+        buffer.putShort((short) 0);
+        buffer.putLong(number);
+
+        active = new Segment(file, buffer);
+        segments.add(active);
+    }
+
+    private List<File> listSegmentFiles() {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("journal-") && name.endsWith(".log"));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+
+        List<File> sorted = new ArrayList<>(Arrays.asList(files));
+        sorted.removeIf(file -> segmentNumber(file) < 0);
+        sorted.sort(Comparator.comparingLong(ToolJournal::segmentNumber));
+        return sorted;
+    }
+
+    private static long segmentNumber(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A mapped segment file
+     */
+    public static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package me.opaque.genstools.persistence;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the unique ID of every tool known to be in an online player's inventory
+ * to that player, so the owner of a modified tool is found without searching
+ * inventories. Kept up to date by tool registration, updates, pickups, drops
+ * and inventory transfers.
+ */
+public class ToolOwnerRegistry {
+    private final Map<UUID, UUID> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Record who holds a tool
+     * @param uniqueId The tool's unique ID
+     * @param owner The player UUID
+     */
+    public void setOwner(String uniqueId, UUID owner) {
+        owners.put(SavedToolData.keyOf(uniqueId), owner);
+    }
+
+    /**
+     * Get who holds a tool
+     * @param uniqueId The tool's unique ID
+     * @return The player UUID, or null if unknown
+     */
+    public UUID getOwner(String uniqueId) {
+        return owners.get(SavedToolData.keyOf(uniqueId));
+    }
+
+    /**
+     * Forget a tool's owner, if it is still the given player
+     * @param uniqueId The tool's unique ID
+     * @param owner The player UUID the tool left
+     */
+    public void removeOwner(String uniqueId, UUID owner) {
+        owners.remove(SavedToolData.keyOf(uniqueId), owner);
+    }
+
+    /**
+     * Forget all tools of a player
+     * @param owner The player UUID
+     */
+    public void removePlayer(UUID owner) {
+        owners.values().removeIf(owner::equals);
+    }
+
+    /**
+     * Get the number of tools with a known owner
+     * @return The tool count
+     */
+    public int size() {
+        return owners.size();
+    }
+}
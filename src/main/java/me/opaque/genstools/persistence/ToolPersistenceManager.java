@@ -2,8 +2,11 @@ package me.opaque.genstools.persistence;
 
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.tools.GensTool;
+import me.opaque.genstools.tools.ToolEditor;
+import me.opaque.genstools.utils.LatencyRecorder;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataContainer;
@@ -12,18 +15,41 @@ import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 public class ToolPersistenceManager {
     private final GensTools plugin;
     private final Storage storage;
+    // Runs saves off the main thread, one at a time per player
+    private final SaveExecutor saveExecutor;
+    // Write-ahead journal of tool updates between saves, null if disabled
+    private final ToolJournal journal;
+    // Scheduled backups, on a thread of their own
+    private final BackupScheduler backupScheduler;
+    // Saved tools of all players, for queries about offline players
+    private final ToolIndex toolIndex;
+    // Online player holding each known tool
+    private final ToolOwnerRegistry ownerRegistry = new ToolOwnerRegistry();
 
     // Cache of loaded player tool data
     private final Map<UUID, PlayerToolData> playerToolCache = new ConcurrentHashMap<>();
 
+    // Loads in progress, started before join
+    private final Map<UUID, CompletableFuture<PlayerToolData>> pendingLoads = new ConcurrentHashMap<>();
+    private final LatencyRecorder loadLatency = new LatencyRecorder(1024);
+    // Work on players whose data is still loading, run in order on the main thread once it is cached
+    private final Map<UUID, List<Consumer<PlayerToolData>>> deferredWork = new ConcurrentHashMap<>();
+    // Tools whose item state was recorded while their owner's data was loading, by owner
+    private final Map<UUID, Set<UUID>> updatedWhileLoading = new ConcurrentHashMap<>();
+
     // Track modified tools that need saving
     private final Set<UUID> pendingSaves = Collections.synchronizedSet(new HashSet<>());
+    // Set when a save fails, the journal is kept until a compaction runs without one
+    private final AtomicBoolean saveFailed = new AtomicBoolean();
 
     // Key for storing unique tool IDs
     private final NamespacedKey KEY_UNIQUE_ID;
@@ -37,13 +63,25 @@ public class ToolPersistenceManager {
 
     public ToolPersistenceManager(GensTools plugin) {
         this.plugin = plugin;
-        this.KEY_UNIQUE_ID = new NamespacedKey(plugin, "tool_unique_id");
+        this.KEY_UNIQUE_ID = GensTool.KEY_UNIQUE_ID;
 
         // Load configuration
         loadConfiguration();
 
         // Initialize storage system
-        this.storage = new YamlStorage(plugin);
+        this.storage = createStorage();
+        this.saveExecutor = new SaveExecutor(plugin,
+                plugin.getConfigManager().getConfig().getInt("persistence.save-threads", 2));
+
+        // Recover updates a crash kept from being saved, then start journaling
+        this.toolIndex = new ToolIndex(plugin, new File(plugin.getDataFolder(), "tool-index.dat"));
+        ConfigurationSection journalConfig = plugin.getConfigManager().getConfig().getConfigurationSection("persistence.journal");
+        boolean journalEnabled = journalConfig == null || journalConfig.getBoolean("enabled", true);
+        boolean indexLoaded = toolIndex.load(journalEnabled);
+        this.journal = journalEnabled ? createJournal(journalConfig) : null;
+        if (!indexLoaded) {
+            rebuildToolIndex();
+        }
 
         // Create data directory if it doesn't exist
         File dataFolder = new File(plugin.getDataFolder(), "data");
@@ -53,6 +91,9 @@ public class ToolPersistenceManager {
 
         // Start auto-save task
         startAutoSaveTask();
+
+        this.backupScheduler = new BackupScheduler(plugin, storage);
+        backupScheduler.start();
     }
 
     /**
@@ -63,6 +104,79 @@ public class ToolPersistenceManager {
         return storage;
     }
 
+    /**
+     * Create the storage selected by persistence.storage-type
+     * @return The storage implementation
+     */
+    private Storage createStorage() {
+        String storageType = plugin.getConfigManager().getConfig().getString("persistence.storage-type", "yaml");
+
+        if (storageType.equalsIgnoreCase("sql")) {
+            try {
+                return new SqlStorage(plugin, plugin.getConfigManager().getConfig().getConfigurationSection("persistence.sql"));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to connect to the tool database, falling back to YAML storage", e);
+            }
+        } else if (storageType.equalsIgnoreCase("binary")) {
+            return new BinaryStorage(plugin);
+        } else if (!storageType.equalsIgnoreCase("yaml")) {
+            plugin.getLogger().warning("Unknown storage type '" + storageType + "'. Defaulting to yaml.");
+        }
+
+        return new YamlStorage(plugin);
+    }
+
+    /**
+     * Create the journal, replaying what earlier runs left in it
+     * @param config The journal settings, or null for the defaults
+     * @return The journal
+     */
+    private ToolJournal createJournal(ConfigurationSection config) {
+        int segmentSizeMb = config != null ? config.getInt("segment-size-mb", 4) : 4;
+        long syncInterval = config != null ? config.getLong("sync-interval-ms", 50) : 50;
+
+        ToolJournal toolJournal = new ToolJournal(plugin, new File(plugin.getDataFolder(), "journal"),
+                segmentSizeMb * 1024 * 1024, syncInterval);
+        toolJournal.replay(storage, toolIndex);
+        return toolJournal;
+    }
+
+    /**
+     * Rebuild the tool index from storage in the background, for when its file
+     * is missing or can't be trusted
+     */
+    private void rebuildToolIndex() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            int indexed = toolIndex.rebuild(storage);
+            plugin.getLogger().info("Indexed tool data of " + indexed + " players.");
+        });
+    }
+
+    /**
+     * Get the index of all saved tools, which answers queries about offline
+     * players without loading their data
+     * @return The tool index
+     */
+    public ToolIndex getToolIndex() {
+        return toolIndex;
+    }
+
+    /**
+     * Get the registry of which online player holds each tool
+     * @return The owner registry
+     */
+    public ToolOwnerRegistry getOwnerRegistry() {
+        return ownerRegistry;
+    }
+
+    /**
+     * Get the write-ahead journal
+     * @return The journal, or null if disabled
+     */
+    public ToolJournal getJournal() {
+        return journal;
+    }
+
     /**
      * Load configuration settings for the persistence system
      */
@@ -81,7 +195,8 @@ public class ToolPersistenceManager {
 
         // Start new task
         if (autoSaveInterval > 0) {
-            autoSaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin,
+            // Runs on the main thread to take the snapshots, the writes happen on the save executor
+            autoSaveTask = Bukkit.getScheduler().runTaskTimer(plugin,
                     this::saveAllPendingData,
                     autoSaveInterval * 20L,
                     autoSaveInterval * 20L);
@@ -174,15 +289,17 @@ public class ToolPersistenceManager {
             return;
         }
 
+        ownerRegistry.setOwner(uniqueId, player.getUniqueId());
+
         // Create tool data
         SavedToolData toolData = createToolData(item);
 
-        // Add to player's tool data
-        PlayerToolData playerData = getPlayerData(player.getUniqueId());
-        playerData.addOrUpdateTool(toolData);
-
-        // Mark for saving
-        markPlayerForSave(player.getUniqueId());
+        // Add to player's tool data, journal and mark for saving if anything changed
+        withPlayerData(player.getUniqueId(), playerData -> {
+            playerData.addOrUpdateTool(toolData);
+            recordChange(player.getUniqueId(), playerData, toolData);
+        });
+        noteDeferredUpdate(player.getUniqueId(), toolData);
 
         if (debugMode) {
             plugin.getLogger().info("Registered tool for player " + player.getName() + ": " + toolData.getToolId());
@@ -201,7 +318,7 @@ public class ToolPersistenceManager {
 
         String toolId = GensTool.getToolId(item);
         int level = GensTool.getLevel(item);
-        int exp = GensTool.getExperience(item);
+        long exp = GensTool.getExperience(item);
         String uniqueId = getOrCreateUniqueId(item);
         Map<String, Integer> enchants = GensTool.getEnchantments(item);
 
@@ -209,26 +326,166 @@ public class ToolPersistenceManager {
     }
 
     /**
-     * Get player tool data, loading from storage if needed
+     * Run work on a player's tool data. With the data cached it runs right away,
+     * otherwise the data is loaded off the main thread and the work runs on the
+     * main thread afterwards, in the order it was submitted. Must be called on
+     * the main thread.
      * @param playerUuid The player UUID
-     * @return PlayerToolData object
+     * @param work The work to run
      */
-    private PlayerToolData getPlayerData(UUID playerUuid) {
-        // Check cache first
-        if (playerToolCache.containsKey(playerUuid)) {
-            return playerToolCache.get(playerUuid);
+    private void withPlayerData(UUID playerUuid, Consumer<PlayerToolData> work) {
+        List<Consumer<PlayerToolData>> deferred = deferredWork.get(playerUuid);
+        if (deferred != null) {
+            // Queue behind the earlier work
+            deferred.add(work);
+            return;
         }
 
-        // Load from storage
-        PlayerToolData data = storage.loadPlayerData(playerUuid);
+        CompletableFuture<PlayerToolData> load = loadAsync(playerUuid);
+        if (load.isDone()) {
+            work.accept(load.join());
+            return;
+        }
+
+        deferred = new ArrayList<>();
+        deferred.add(work);
+        deferredWork.put(playerUuid, deferred);
+        load.thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> runDeferredWork(playerUuid)));
+    }
+
+    private void runDeferredWork(UUID playerUuid) {
+        List<Consumer<PlayerToolData>> deferred = deferredWork.remove(playerUuid);
+        if (deferred == null) {
+            return;
+        }
+
+        // Normally still cached, unless the player quit and the cache expired meanwhile
+        PlayerToolData data = playerToolCache.get(playerUuid);
         if (data == null) {
-            // Create new data if none exists
-            data = new PlayerToolData(playerUuid);
+            data = cacheLoaded(playerUuid, loadFromStorage(playerUuid));
         }
+        for (Consumer<PlayerToolData> work : deferred) {
+            work.accept(data);
+        }
+        updatedWhileLoading.remove(playerUuid);
+    }
 
-        // Add to cache
-        playerToolCache.put(playerUuid, data);
-        return data;
+    /**
+     * Remember that a tool's item state was recorded while its owner's data was
+     * still loading, so stored data applied by earlier queued work can't roll it back
+     */
+    private void noteDeferredUpdate(UUID playerUuid, SavedToolData toolData) {
+        if (deferredWork.containsKey(playerUuid)) {
+            updatedWhileLoading.computeIfAbsent(playerUuid, uuid -> ConcurrentHashMap.newKeySet()).add(toolData.getKey());
+        }
+    }
+
+    /**
+     * Load a player's tool data off the main thread and cache it
+     * @param playerUuid The player UUID
+     * @return A future completed with the cached data
+     */
+    public CompletableFuture<PlayerToolData> loadAsync(UUID playerUuid) {
+        PlayerToolData cached = playerToolCache.get(playerUuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return pendingLoads.computeIfAbsent(playerUuid, uuid -> {
+            CompletableFuture<PlayerToolData> future = new CompletableFuture<>();
+            // Read only after the player's queued saves, storage is stale until they ran
+            saveExecutor.afterSaves(uuid).thenRun(() -> Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    future.complete(cacheLoaded(uuid, loadFromStorage(uuid)));
+                } catch (Throwable t) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to load tool data for player: " + uuid, t);
+                    future.complete(cacheLoaded(uuid, new PlayerToolData(uuid)));
+                } finally {
+                    pendingLoads.remove(uuid, future);
+                }
+            }));
+            return future;
+        });
+    }
+
+    /**
+     * Read a player's data from storage, recording the latency
+     */
+    private PlayerToolData loadFromStorage(UUID playerUuid) {
+        long start = System.nanoTime();
+        PlayerToolData data = storage.loadPlayerData(playerUuid);
+        loadLatency.record(System.nanoTime() - start);
+
+        // Create new data if none exists
+        return data != null ? data : new PlayerToolData(playerUuid);
+    }
+
+    /**
+     * Add loaded data to the cache, unless another load got there first
+     * @return The cached data
+     */
+    private PlayerToolData cacheLoaded(UUID playerUuid, PlayerToolData data) {
+        PlayerToolData existing = playerToolCache.putIfAbsent(playerUuid, data);
+        return existing != null ? existing : data;
+    }
+
+    /**
+     * Forget preloaded data of a player whose login was denied
+     * @param playerUuid The player UUID
+     */
+    public void discardPreload(UUID playerUuid) {
+        CompletableFuture<PlayerToolData> pending = pendingLoads.get(playerUuid);
+        if (pending != null) {
+            pending.thenRun(() -> discardPreload(playerUuid));
+            return;
+        }
+
+        PlayerToolData data = playerToolCache.get(playerUuid);
+        if (data != null && !data.isDirty() && Bukkit.getPlayer(playerUuid) == null) {
+            playerToolCache.remove(playerUuid, data);
+        }
+    }
+
+    /**
+     * Get the backup scheduler
+     * @return The backup scheduler
+     */
+    public BackupScheduler getBackupScheduler() {
+        return backupScheduler;
+    }
+
+    /**
+     * Get the save executor, for its queue and latency metrics
+     * @return The save executor
+     */
+    public SaveExecutor getSaveExecutor() {
+        return saveExecutor;
+    }
+
+    /**
+     * Get the latency of tool data loads from storage
+     * @return The load latency recorder
+     */
+    public LatencyRecorder getLoadLatency() {
+        return loadLatency;
+    }
+
+    /**
+     * Journal a tool's new state and mark its owner for saving, if the tool changed
+     * @param playerUuid The owner
+     * @param playerData The owner's data, already updated
+     * @param toolData The tool's current state
+     */
+    private void recordChange(UUID playerUuid, PlayerToolData playerData, SavedToolData toolData) {
+        SavedToolData stored = playerData.getToolByKey(toolData.getKey());
+        if (stored == null || !stored.isDirty()) {
+            return;
+        }
+
+        if (journal != null) {
+            journal.append(playerUuid, toolData);
+        }
+        markPlayerForSave(playerUuid);
     }
 
     /**
@@ -240,40 +497,36 @@ public class ToolPersistenceManager {
     }
 
     /**
-     * Save data for a specific player
+     * Save the changes of a specific player
      * @param playerUuid The player UUID
      */
     public void savePlayerData(UUID playerUuid) {
         // Check if player has data in cache
-        if (!playerToolCache.containsKey(playerUuid)) {
+        PlayerToolData data = playerToolCache.get(playerUuid);
+        if (data == null) {
             return;
         }
 
-        // Get the data
-        PlayerToolData data = playerToolCache.get(playerUuid);
-
-        // Save asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                storage.savePlayerData(data);
-
-                if (debugMode) {
-                    plugin.getLogger().info("Saved tool data for player: " + playerUuid);
-                }
+        pendingSaves.remove(playerUuid);
+        ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+        if (delta.isEmpty()) {
+            return;
+        }
 
-                // Remove from pending saves
-                pendingSaves.remove(playerUuid);
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save tool data for player: " + playerUuid, e);
+        // Save on the save executor, after any earlier save of this player
+        saveExecutor.submit(Collections.singletonList(playerUuid), () -> {
+            if (writeDeltas(Collections.singletonList(delta)) && debugMode) {
+                plugin.getLogger().info("Saved tool data for player: " + playerUuid);
             }
         });
     }
 
     /**
-     * Save all pending player data
+     * Save the changes of all pending players as one batch. The changes are
+     * copied on the calling thread, which should be the main thread.
      */
     public void saveAllPendingData() {
-        if (pendingSaves.isEmpty()) {
+        if (pendingSaves.isEmpty() && (journal == null || journal.getPendingBytes() == 0)) {
             return;
         }
 
@@ -281,12 +534,91 @@ public class ToolPersistenceManager {
             plugin.getLogger().info("Saving tool data for " + pendingSaves.size() + " players");
         }
 
-        // Create a copy to avoid concurrent modification
-        List<UUID> playersToSave = new ArrayList<>(pendingSaves);
+        // Seal the journal first, everything in it is covered by the deltas taken after
+        List<ToolJournal.Segment> sealed = journal != null ? journal.rotate() : Collections.emptyList();
+
+        // Take the pending players now, anything marked during the save is kept for the next one
+        List<UUID> playersToSave;
+        synchronized (pendingSaves) {
+            playersToSave = new ArrayList<>(pendingSaves);
+            pendingSaves.clear();
+        }
+
+        List<ToolDataDelta> deltas = takeDeltas(playersToSave);
+
+        // The journal can only be dropped once every earlier save is stored too
+        saveExecutor.submitAfterAll(playersToSave, () -> compact(deltas, sealed));
+    }
+
+    /**
+     * Write deltas to storage and drop the journal segments they cover. The segments
+     * are kept if any save failed since the last compaction, as the failed changes
+     * may be in them and not in the deltas.
+     * @param deltas The deltas to write
+     * @param sealed Journal segments sealed before the deltas were taken
+     * @return true if the deltas were written
+     */
+    private boolean compact(List<ToolDataDelta> deltas, List<ToolJournal.Segment> sealed) {
+        boolean saved = deltas.isEmpty() || writeDeltas(deltas);
+        boolean earlierFailed = saveFailed.getAndSet(false);
+        if (journal != null && saved && !earlierFailed) {
+            // The journal holds the index changes since the index file was written, write it before dropping them
+            toolIndex.save();
+        }
+        if (journal != null && !sealed.isEmpty()) {
+            if (saved && !earlierFailed) {
+                journal.discard(sealed);
+            } else {
+                journal.restore(sealed);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Take the unsaved changes of players
+     * @param playerUuids The players
+     * @return The non-empty deltas
+     */
+    private List<ToolDataDelta> takeDeltas(Collection<UUID> playerUuids) {
+        List<ToolDataDelta> deltas = new ArrayList<>(playerUuids.size());
+        for (UUID playerUuid : playerUuids) {
+            PlayerToolData data = playerToolCache.get(playerUuid);
+            if (data == null) {
+                continue;
+            }
+
+            ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
 
-        // Save each player's data
-        for (UUID playerUuid : playersToSave) {
-            savePlayerData(playerUuid);
+    /**
+     * Write deltas to storage, marking them dirty again if that fails
+     * @param deltas The deltas to write
+     * @return true if they were written
+     */
+    private boolean writeDeltas(List<ToolDataDelta> deltas) {
+        try {
+            storage.saveDeltas(deltas);
+            // Levels and experience are not indexed
+            for (ToolDataDelta delta : deltas) {
+                if (delta.hasToolOrEnchantChanges()) {
+                    toolIndex.update(delta.getPlayerData());
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save tool data for " + deltas.size() + " players", e);
+            saveFailed.set(true);
+            for (ToolDataDelta delta : deltas) {
+                delta.getSource().restoreDelta(delta);
+                pendingSaves.add(delta.getPlayerUuid());
+            }
+            return false;
         }
     }
 
@@ -294,7 +626,8 @@ public class ToolPersistenceManager {
      * Update a tool from storage based on its unique ID
      * @param player The player who owns the tool
      * @param item The tool item to update
-     * @return true if the tool was updated, false otherwise
+     * @return true if the tool was updated, or will be updated or registered once the
+     * player's data has loaded, false if it is not in storage
      */
     public boolean updateToolFromStorage(Player player, ItemStack item) {
         if (!GensTool.isGensTool(item)) {
@@ -307,8 +640,22 @@ public class ToolPersistenceManager {
             return false;
         }
 
-        // Get player data
-        PlayerToolData playerData = getPlayerData(player.getUniqueId());
+        // Get player data, without waiting for it on the main thread
+        PlayerToolData playerData = playerToolCache.get(player.getUniqueId());
+        if (playerData == null || deferredWork.containsKey(player.getUniqueId())) {
+            withPlayerData(player.getUniqueId(), data -> {
+                Set<UUID> updated = updatedWhileLoading.get(player.getUniqueId());
+                if (updated != null && updated.contains(SavedToolData.keyOf(uniqueId))) {
+                    // The item progressed while loading, the update queued after this records it
+                    ownerRegistry.setOwner(uniqueId, player.getUniqueId());
+                    return;
+                }
+                if (!updateToolFromStorage(player, item)) {
+                    registerTool(player, item);
+                }
+            });
+            return true;
+        }
 
         // Find the tool
         SavedToolData toolData = playerData.getToolByUniqueId(uniqueId);
@@ -317,8 +664,10 @@ public class ToolPersistenceManager {
             return false;
         }
 
+        ownerRegistry.setOwner(uniqueId, player.getUniqueId());
+
         // Update the item from saved data
-        applyToolData(item, toolData);
+        applyToolData(player, item, toolData);
 
         if (debugMode) {
             plugin.getLogger().info("Updated tool from storage for player " + player.getName() +
@@ -331,44 +680,34 @@ public class ToolPersistenceManager {
 
     /**
      * Apply saved tool data to an item
+     * @param owner The player holding the item
      * @param item The tool item to update
      * @param toolData The saved tool data
      */
-    private void applyToolData(ItemStack item, SavedToolData toolData) {
-        // Set level
-        GensTool.setLevel(item, toolData.getLevel());
-
-        // Set experience
-        GensTool.setExperience(item, toolData.getExperience());
-
-        // Clear and re-add enchantments
-        Map<String, Integer> currentEnchants = GensTool.getEnchantments(item);
-
-        // First remove existing enchantments
-        for (String enchantId : new ArrayList<>(currentEnchants.keySet())) {
-            GensTool.removeEnchantment(item, enchantId, false);
-        }
-
-        // Then add saved enchantments
-        for (Map.Entry<String, Integer> entry : toolData.getEnchantments().entrySet()) {
-            GensTool.addEnchantment(item, entry.getKey(), entry.getValue(), false);
-        }
-
-        // Update lore once at the end
-        GensTool.updateEnchantmentLore(item);
+    private void applyToolData(Player owner, ItemStack item, SavedToolData toolData) {
+        // Replace level, experience and enchantments in one write
+        ToolEditor editor = GensTool.edit(item)
+                .owner(owner)
+                .level(toolData.getLevel())
+                .experience(toolData.getExperience())
+                .clearEnchantments();
+        toolData.forEachEnchant((id, level) -> editor.enchantment(EnchantIdRegistry.name(id), level));
+        editor.commit();
     }
 
     /**
-     * Called when a player joins the server
+     * Called when a player joins the server. The data is usually preloaded
+     * already, otherwise loading starts here.
      * @param player The player who joined
+     * @return A future completed when the player's data is cached
      */
-    public void handlePlayerJoin(Player player) {
-        // Load player data (this will cache it for future use)
-        getPlayerData(player.getUniqueId());
+    public CompletableFuture<PlayerToolData> handlePlayerJoin(Player player) {
+        CompletableFuture<PlayerToolData> future = loadAsync(player.getUniqueId());
 
         if (debugMode) {
-            plugin.getLogger().info("Loaded tool data for player: " + player.getName());
+            future.thenRun(() -> plugin.getLogger().info("Loaded tool data for player: " + player.getName()));
         }
+        return future;
     }
 
     /**
@@ -378,17 +717,54 @@ public class ToolPersistenceManager {
     public void handlePlayerQuit(Player player) {
         // Save player data
         savePlayerData(player.getUniqueId());
+        ownerRegistry.removePlayer(player.getUniqueId());
+
+        // Remove from cache after a delay, unless they came back
+        scheduleEviction(player.getUniqueId(), player.getName());
+    }
+
+    /**
+     * Remove an offline player's data from the cache in 5 seconds, or later if it
+     * isn't saved by then. Data whose save failed stays cached until a retry succeeds.
+     * @param playerUuid The player UUID
+     * @param playerName The player name, for debug messages
+     */
+    private void scheduleEviction(UUID playerUuid, String playerName) {
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            if (Bukkit.getPlayer(playerUuid) != null) {
+                return;
+            }
 
-        // Remove from cache after a delay
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
-            playerToolCache.remove(player.getUniqueId());
+            PlayerToolData data = playerToolCache.get(playerUuid);
+            if (data == null) {
+                return;
+            }
+            if (!isSaved(playerUuid, data)) {
+                scheduleEviction(playerUuid, playerName);
+                return;
+            }
+            playerToolCache.remove(playerUuid, data);
 
             if (debugMode) {
-                plugin.getLogger().info("Removed cached tool data for player: " + player.getName());
+                plugin.getLogger().info("Removed cached tool data for player: " + playerName);
             }
         }, 100L); // 5 second delay
     }
 
+    /**
+     * Check whether cached data can be dropped without losing changes
+     * @param playerUuid The player UUID
+     * @param data The player's cached data
+     * @return true if nothing is unsaved, queued or waiting for a load
+     */
+    private boolean isSaved(UUID playerUuid, PlayerToolData data) {
+        // Check the save first, a failed save marks its changes dirty again before it completes
+        return !saveExecutor.hasPendingSave(playerUuid)
+                && !pendingSaves.contains(playerUuid)
+                && !deferredWork.containsKey(playerUuid)
+                && !data.isDirty();
+    }
+
     /**
      * Called when a tool is updated (enchantments, level, etc.)
      * @param player The player who owns the tool
@@ -404,13 +780,15 @@ public class ToolPersistenceManager {
         if (toolData == null) {
             return;
         }
+        ownerRegistry.setOwner(toolData.getUniqueId(), player.getUniqueId());
 
-        // Update in player data
-        PlayerToolData playerData = getPlayerData(player.getUniqueId());
-        playerData.addOrUpdateTool(toolData);
-
-        // Mark for saving
-        markPlayerForSave(player.getUniqueId());
+        // Update in player data, only the fields that differ become dirty,
+        // then journal and mark for saving if anything changed
+        withPlayerData(player.getUniqueId(), playerData -> {
+            playerData.addOrUpdateTool(toolData);
+            recordChange(player.getUniqueId(), playerData, toolData);
+        });
+        noteDeferredUpdate(player.getUniqueId(), toolData);
 
         if (debugMode) {
             plugin.getLogger().info("Updated tool data for player " + player.getName() +
@@ -418,21 +796,98 @@ public class ToolPersistenceManager {
         }
     }
 
+    /**
+     * Called when a tool leaves a player's inventory by being dropped
+     * @param player The player who dropped the tool
+     * @param item The dropped tool
+     */
+    public void handleToolDrop(Player player, ItemStack item) {
+        String uniqueId = GensTool.getUniqueId(item);
+        if (uniqueId != null) {
+            ownerRegistry.removeOwner(uniqueId, player.getUniqueId());
+        }
+    }
+
+    /**
+     * Register the tools a player took from another inventory, such as a chest
+     * or a trade, as theirs
+     * @param player The player whose inventory to check
+     */
+    public void claimInventoryTools(Player player) {
+        for (ItemStack item : player.getInventory().getContents()) {
+            String uniqueId = GensTool.getUniqueId(item);
+            if (uniqueId != null && !player.getUniqueId().equals(ownerRegistry.getOwner(uniqueId))) {
+                registerTool(player, item);
+            }
+        }
+    }
+
+    /**
+     * Copy the tool data in data/*.yml into the configured storage. Players that
+     * already have data there are skipped. This does blocking I/O and should not
+     * run on the main thread.
+     * @return The number of players migrated, or -1 if the storage is YAML itself
+     */
+    public int migrateFromYaml() {
+        if (storage instanceof YamlStorage) {
+            return -1;
+        }
+
+        YamlStorage yamlStorage = new YamlStorage(plugin);
+        int migrated = 0;
+        for (UUID playerUuid : yamlStorage.getStoredPlayers()) {
+            PlayerToolData yamlData = yamlStorage.loadPlayerData(playerUuid);
+            if (yamlData.getToolCount() == 0) {
+                continue;
+            }
+
+            PlayerToolData cached = playerToolCache.get(playerUuid);
+            PlayerToolData existing = cached != null ? cached : storage.loadPlayerData(playerUuid);
+            if (existing.getToolCount() > 0) {
+                continue;
+            }
+
+            if (cached != null) {
+                // Online players get the tools through their cached data and the next save
+                for (SavedToolData tool : yamlData.getTools()) {
+                    cached.addOrUpdateTool(tool);
+                }
+                markPlayerForSave(playerUuid);
+            } else {
+                try {
+                    storage.savePlayerData(yamlData);
+                } catch (RuntimeException e) {
+                    // Not counted, running the migration again retries the player
+                    plugin.getLogger().log(Level.SEVERE, "Failed to migrate YAML tool data of player: " + playerUuid, e);
+                    continue;
+                }
+                toolIndex.update(yamlData);
+            }
+            migrated++;
+        }
+
+        if (journal != null && migrated > 0) {
+            // Migrated offline players are not in the journal
+            toolIndex.save();
+        }
+
+        if (debugMode) {
+            plugin.getLogger().info("Migrated YAML tool data of " + migrated + " players");
+        }
+        return migrated;
+    }
+
     /**
      * Save all player data (used on server shutdown)
      */
     public void saveAllData() {
         plugin.getLogger().info("Saving all tool data...");
 
-        // Save all players in cache
-        for (UUID playerUuid : new ArrayList<>(playerToolCache.keySet())) {
-            try {
-                PlayerToolData data = playerToolCache.get(playerUuid);
-                storage.savePlayerData(data);
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save tool data for player: " + playerUuid, e);
-            }
-        }
+        // Save the changes of all players in cache as one batch, after the saves already queued
+        List<ToolJournal.Segment> sealed = journal != null ? journal.rotate() : Collections.emptyList();
+        List<UUID> players = new ArrayList<>(playerToolCache.keySet());
+        List<ToolDataDelta> deltas = takeDeltas(players);
+        saveExecutor.submitAfterAll(players, () -> compact(deltas, sealed)).join();
 
         plugin.getLogger().info("All tool data saved successfully.");
     }
@@ -447,11 +902,14 @@ public class ToolPersistenceManager {
         // Reload configuration
         loadConfiguration();
 
-        // Restart auto-save task with new settings
+        // Restart auto-save and backup tasks with new settings
         startAutoSaveTask();
+        backupScheduler.start();
 
-        // Clear caches
-        playerToolCache.clear();
+        // Clear cached data of offline players that is saved, online players keep
+        // theirs so a reload can't read data older than the saves still queued
+        playerToolCache.entrySet().removeIf(entry -> Bukkit.getPlayer(entry.getKey()) == null
+                && isSaved(entry.getKey(), entry.getValue()));
 
         plugin.getLogger().info("Tool persistence system reloaded.");
     }
@@ -463,8 +921,21 @@ public class ToolPersistenceManager {
         // Stop auto-save task
         stopAutoSaveTask();
 
+        // Apply updates still waiting for a load, there are no more ticks to run them on.
+        // Data that isn't cached yet is loaded right here, no new tasks can start now.
+        for (UUID playerUuid : new ArrayList<>(deferredWork.keySet())) {
+            runDeferredWork(playerUuid);
+        }
+
         // Save all data
         saveAllData();
+        saveExecutor.shutdown(30);
+        backupScheduler.shutdown();
+        toolIndex.save();
+        if (journal != null) {
+            journal.close();
+        }
+        storage.close();
 
         // Clear caches
         playerToolCache.clear();
@@ -5,6 +5,8 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Level;
@@ -18,8 +20,12 @@ public class YamlStorage implements Storage {
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 
     public YamlStorage(GensTools plugin) {
+        this(plugin, new File(plugin.getDataFolder(), "data"));
+    }
+
+    public YamlStorage(GensTools plugin, File dataFolder) {
         this.plugin = plugin;
-        this.dataFolder = new File(plugin.getDataFolder(), "data");
+        this.dataFolder = dataFolder;
 
         // Create data folder if it doesn't exist
         if (!dataFolder.exists()) {
@@ -53,17 +59,15 @@ public class YamlStorage implements Storage {
 
             // Save enchantments
             ConfigurationSection enchantsSection = toolSection.createSection("enchantments");
-            for (Map.Entry<String, Integer> entry : tool.getEnchantments().entrySet()) {
-                enchantsSection.set(entry.getKey(), entry.getValue());
-            }
+            tool.forEachEnchant((id, level) -> enchantsSection.set(EnchantIdRegistry.name(id), level));
         }
 
         // Save the file
         try {
             File playerFile = getPlayerFile(data.getPlayerUuid());
             config.save(playerFile);
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save player tool data: " + data.getPlayerUuid(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save player tool data: " + data.getPlayerUuid(), e);
         }
     }
 
@@ -93,7 +97,7 @@ public class YamlStorage implements Storage {
                 // Load tool properties
                 String toolId = toolSection.getString("tool-id");
                 int level = toolSection.getInt("level", 1);
-                int experience = toolSection.getInt("experience", 0);
+                long experience = toolSection.getLong("experience", 0);
 
                 // Load enchantments
                 Map<String, Integer> enchantments = new HashMap<>();
@@ -107,7 +111,7 @@ public class YamlStorage implements Storage {
 
                 // Create tool data and add to player data
                 SavedToolData toolData = new SavedToolData(uniqueId, toolId, level, experience, enchantments);
-                playerData.addOrUpdateTool(toolData);
+                playerData.addLoadedTool(toolData);
             }
         }
 
@@ -117,28 +121,12 @@ public class YamlStorage implements Storage {
     @Override
     public boolean createBackup() {
         try {
-            // Create backup folder if it doesn't exist
-            File backupFolder = new File(plugin.getDataFolder(), "backups");
-            if (!backupFolder.exists()) {
-                backupFolder.mkdirs();
-            }
-
-            // Create timestamp folder for this backup
-            String timestamp = dateFormat.format(new Date());
-            File backupTimestampFolder = new File(backupFolder, timestamp);
-            backupTimestampFolder.mkdirs();
-
-            // Copy all player files to backup
-            File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".yml"));
-            if (playerFiles != null) {
-                for (File playerFile : playerFiles) {
-                    YamlConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-                    File backupFile = new File(backupTimestampFolder, playerFile.getName());
-                    config.save(backupFile);
-                }
-            }
+            // Copies the files as they are, only the ones changed since the last backup
+            IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, ".yml",
+                    new File(plugin.getDataFolder(), "backups"), dateFormat.format(new Date()));
 
-            plugin.getLogger().info("Created tool data backup: " + timestamp);
+            plugin.getLogger().info("Created tool data backup: " + result.getName() + " (" + result.getCopied()
+                    + " files copied, " + result.getLinked() + " unchanged)");
             return true;
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to create tool data backup", e);
@@ -146,6 +134,27 @@ public class YamlStorage implements Storage {
         }
     }
 
+    /**
+     * Get the UUIDs of all players with saved data
+     * @return The player UUIDs
+     */
+    @Override
+    public List<UUID> getStoredPlayers() {
+        List<UUID> players = new ArrayList<>();
+        File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (playerFiles != null) {
+            for (File playerFile : playerFiles) {
+                String name = playerFile.getName();
+                try {
+                    players.add(UUID.fromString(name.substring(0, name.length() - ".yml".length())));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player file
+                }
+            }
+        }
+        return players;
+    }
+
     /**
      * Get the file for a player's data
      * @param playerUuid The player UUID
@@ -2,6 +2,8 @@ package me.opaque.genstools.tools;
 
 import me.opaque.genstools.GensTools;
 import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.manager.ToolStateCache;
+import me.opaque.genstools.persistence.ToolPersistenceManager;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -15,12 +17,22 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public class GensTool {
     public static final NamespacedKey KEY_TOOL_ID = new NamespacedKey("genstools", "tool_id");
     public static final NamespacedKey KEY_LEVEL = new NamespacedKey("genstools", "level");
     public static final NamespacedKey KEY_EXPERIENCE = new NamespacedKey("genstools", "experience");
     public static final NamespacedKey KEY_ENCHANTMENTS = new NamespacedKey("genstools", "enchantments");
+    public static final NamespacedKey KEY_STATE = new NamespacedKey("genstools", "state");
+    public static final NamespacedKey KEY_UNIQUE_ID = new NamespacedKey("genstools", "tool_unique_id");
+
+    // Legacy storage keys, only read when migrating older items to KEY_STATE
+    private static final NamespacedKey KEY_LEGACY_ENCHANTS = new NamespacedKey("genstools", "enchants");
+    private static final NamespacedKey KEY_LEGACY_CUBES = new NamespacedKey("genstools", "applied_cubes");
+    private static final String LEGACY_ENCHANT_PREFIX = "enchant_";
+    private static final String LEGACY_MULTIPLIER_PREFIX = "enchant_multiplier_";
 
     private final String id;
     private final String displayName;
@@ -74,6 +86,20 @@ public class GensTool {
         return container.get(KEY_TOOL_ID, PersistentDataType.STRING);
     }
 
+    /**
+     * Gets the unique ID of a tool instance
+     *
+     * @param item The item to get the unique ID from
+     * @return The unique ID, or null if the item has none
+     */
+    public static String getUniqueId(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) {
+            return null;
+        }
+
+        return item.getItemMeta().getPersistentDataContainer().get(KEY_UNIQUE_ID, PersistentDataType.STRING);
+    }
+
     /**
      * Gets the level of a GensTool
      *
@@ -81,12 +107,8 @@ public class GensTool {
      * @return The level, or 0 if the item is not a GensTool
      */
     public static int getLevel(ItemStack item) {
-        if (!isGensTool(item)) {
-            return 0;
-        }
-
-        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
-        return container.getOrDefault(KEY_LEVEL, PersistentDataType.INTEGER, 0);
+        ToolState state = getState(item);
+        return state != null ? state.getLevel() : 0;
     }
 
     /**
@@ -95,13 +117,9 @@ public class GensTool {
      * @param item The item to get the experience from
      * @return The experience, or 0 if the item is not a GensTool
      */
-    public static int getExperience(ItemStack item) {
-        if (!isGensTool(item)) {
-            return 0;
-        }
-
-        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
-        return container.getOrDefault(KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
+    public static long getExperience(ItemStack item) {
+        ToolState state = getState(item);
+        return state != null ? state.getExperience() : 0;
     }
 
     /**
@@ -111,66 +129,234 @@ public class GensTool {
      * @return A map of enchantment IDs to levels
      */
     public static Map<String, Integer> getEnchantments(ItemStack item) {
-        Map<String, Integer> enchantments = new HashMap<>();
+        ToolState state = getState(item);
+        return state != null ? new HashMap<>(state.getEnchantments()) : new HashMap<>();
+    }
 
-        if (!isGensTool(item) || !item.hasItemMeta()) {
-            return enchantments;
+    /**
+     * Gets all applied cubes on a GensTool
+     *
+     * @param item The item to get the cubes from
+     * @return A map of enchantment IDs to boost percentages
+     */
+    public static Map<String, Integer> getAppliedCubes(ItemStack item) {
+        ToolState state = getState(item);
+        return state != null ? new HashMap<>(state.getCubes()) : new HashMap<>();
+    }
+
+    /**
+     * Decodes all GensTools data on an item with a single meta read
+     *
+     * @param item The item to read
+     * @return The decoded state, or null if the item is not a GensTool
+     */
+    public static ToolState getState(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) {
+            return null;
         }
 
-        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
-        NamespacedKey enchantKey = new NamespacedKey(GensTools.getInstance(), "enchants");
+        return readState(item.getItemMeta());
+    }
 
-        // First try to get from consolidated string
-        if (container.has(enchantKey, PersistentDataType.STRING)) {
-            String enchantData = container.get(enchantKey, PersistentDataType.STRING);
-            if (enchantData != null && !enchantData.isEmpty()) {
-                for (String entry : enchantData.split(",")) {
-                    String[] parts = entry.split(":");
-                    if (parts.length == 2) {
-                        try {
-                            enchantments.put(parts[0], Integer.parseInt(parts[1]));
-                        } catch (NumberFormatException e) {
-                            // Handle case where the stored value might be a double
-                            try {
-                                double doubleValue = Double.parseDouble(parts[1]);
-                                enchantments.put(parts[0], (int) doubleValue);
-                            } catch (NumberFormatException e2) {
-                                // Ignore invalid entries
-                            }
-                        }
-                    }
-                }
+    /**
+     * Reads all GensTools data from item meta. If the tool is currently held and
+     * cached, the cached state is returned as it may be newer than the item.
+     *
+     * @param meta The meta to read
+     * @return The tool state, or null if the meta does not belong to a GensTool
+     */
+    public static ToolState readState(ItemMeta meta) {
+        if (meta == null) {
+            return null;
+        }
+
+        ToolStateCache cache = GensTools.getInstance().getToolStateCache();
+        if (cache != null) {
+            String uniqueId = meta.getPersistentDataContainer().get(KEY_UNIQUE_ID, PersistentDataType.STRING);
+            ToolState cached = uniqueId != null ? cache.getCachedState(uniqueId) : null;
+            if (cached != null) {
+                return cached.copy();
+            }
+        }
+
+        return decodeState(meta);
+    }
+
+    /**
+     * Decodes all GensTools data from item meta, migrating the legacy format if needed
+     *
+     * @param meta The meta to read
+     * @return The decoded state, or null if the meta does not belong to a GensTool
+     */
+    public static ToolState decodeState(ItemMeta meta) {
+        if (meta == null) {
+            return null;
+        }
+
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        byte[] data = container.get(KEY_STATE, PersistentDataType.BYTE_ARRAY);
+        if (data != null) {
+            ToolState state = ToolStateCodec.decode(data);
+            if (state != null) {
+                return state;
             }
         }
 
-        // Also check for individual enchantment keys
-        Set<String> allEnchantIds = GensTools.getInstance().getToolManager().getAllEnchantIds();
+        String toolId = container.get(KEY_TOOL_ID, PersistentDataType.STRING);
+        if (toolId == null) {
+            return null;
+        }
+
+        // Older item, decode from the per-key format. It is rewritten on the next change.
+        return readLegacyState(container, toolId);
+    }
+
+    /**
+     * Encodes a tool state onto item meta. The caller must apply the meta to the item.
+     *
+     * @param meta The meta to write to
+     * @param state The state to write
+     */
+    public static void writeState(ItemMeta meta, ToolState state) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        boolean migrating = !container.has(KEY_STATE, PersistentDataType.BYTE_ARRAY);
+
+        container.set(KEY_STATE, PersistentDataType.BYTE_ARRAY, ToolStateCodec.encode(state));
+
+        if (migrating) {
+            container.set(KEY_TOOL_ID, PersistentDataType.STRING, state.getToolId());
+            removeLegacyKeys(container);
+        }
+    }
+
+    /**
+     * Start a batch of changes to a tool, applied with one meta write on {@link ToolEditor#commit()}
+     *
+     * @param item The tool to edit
+     * @return An editor for the tool
+     */
+    public static ToolEditor edit(ItemStack item) {
+        return new ToolEditor(item);
+    }
+
+    /**
+     * Reads, modifies and writes back the state of a tool with a single meta round-trip
+     *
+     * @param item The tool to modify
+     * @param modifier The modification to apply
+     * @return true if the item is a GensTool and was modified, false otherwise
+     */
+    private static boolean modifyState(ItemStack item, Consumer<ToolState> modifier) {
+        if (item == null || !item.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        ToolState state = readState(meta);
+        if (state == null) {
+            return false;
+        }
+
+        modifier.accept(state);
+        saveState(item, meta, state);
+        return true;
+    }
+
+    /**
+     * Writes a modified state to an item and drops any cached copy, which it supersedes
+     */
+    private static void saveState(ItemStack item, ItemMeta meta, ToolState state) {
+        writeState(meta, state);
+        item.setItemMeta(meta);
+
+        ToolStateCache cache = GensTools.getInstance().getToolStateCache();
+        String uniqueId = meta.getPersistentDataContainer().get(KEY_UNIQUE_ID, PersistentDataType.STRING);
+        if (cache != null && uniqueId != null) {
+            cache.invalidate(uniqueId);
+        }
+    }
+
+    private static ToolState readLegacyState(PersistentDataContainer container, String toolId) {
+        int level = container.getOrDefault(KEY_LEVEL, PersistentDataType.INTEGER, 1);
+        int experience = container.getOrDefault(KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
+        ToolState state = new ToolState(toolId, level, experience);
+
+        // Consolidated enchantment string first
+        String enchantData = container.get(KEY_LEGACY_ENCHANTS, PersistentDataType.STRING);
+        parseLegacyPairs(enchantData, state::setEnchantment);
 
-        for (String id : allEnchantIds) {
-            // Skip if we already have this enchantment from the consolidated string
-            if (enchantments.containsKey(id)) {
+        // Cube string
+        String cubesData = container.get(KEY_LEGACY_CUBES, PersistentDataType.STRING);
+        parseLegacyPairs(cubesData, state::setCube);
+
+        // Then individual enchantment and multiplier keys that the strings missed
+        for (NamespacedKey key : container.getKeys()) {
+            if (!key.getNamespace().equals(KEY_TOOL_ID.getNamespace())) {
                 continue;
             }
 
-            NamespacedKey individualKey = new NamespacedKey(GensTools.getInstance(), "enchant_" + id);
+            String name = key.getKey();
+            if (name.startsWith(LEGACY_MULTIPLIER_PREFIX)) {
+                String enchantId = name.substring(LEGACY_MULTIPLIER_PREFIX.length());
+                if (!state.getCubes().containsKey(enchantId) && container.has(key, PersistentDataType.DOUBLE)) {
+                    // Stored as a decimal (0.2 -> 20%)
+                    state.setCube(enchantId, (int) Math.round(container.get(key, PersistentDataType.DOUBLE) * 100));
+                }
+            } else if (name.startsWith(LEGACY_ENCHANT_PREFIX)) {
+                String enchantId = name.substring(LEGACY_ENCHANT_PREFIX.length());
+                if (state.getEnchantments().containsKey(enchantId)) {
+                    continue;
+                }
 
-            // Try INTEGER first
-            if (container.has(individualKey, PersistentDataType.INTEGER)) {
-                int level = container.get(individualKey, PersistentDataType.INTEGER);
-                if (level > 0) {
-                    enchantments.put(id, level);
+                if (container.has(key, PersistentDataType.INTEGER)) {
+                    state.setEnchantment(enchantId, container.get(key, PersistentDataType.INTEGER));
+                } else if (container.has(key, PersistentDataType.DOUBLE)) {
+                    state.setEnchantment(enchantId, (int) (double) container.get(key, PersistentDataType.DOUBLE));
                 }
             }
-            // Then try DOUBLE if INTEGER fails
-            else if (container.has(individualKey, PersistentDataType.DOUBLE)) {
-                double level = container.get(individualKey, PersistentDataType.DOUBLE);
-                if (level > 0) {
-                    enchantments.put(id, (int) level);
+        }
+
+        return state;
+    }
+
+    private static void parseLegacyPairs(String data, ObjIntConsumer<String> consumer) {
+        if (data == null || data.isEmpty()) {
+            return;
+        }
+
+        for (String entry : data.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+
+            try {
+                consumer.accept(parts[0], Integer.parseInt(parts[1]));
+            } catch (NumberFormatException e) {
+                // Handle case where the stored value might be a double
+                try {
+                    consumer.accept(parts[0], (int) Double.parseDouble(parts[1]));
+                } catch (NumberFormatException e2) {
+                    // Ignore invalid entries
                 }
             }
         }
+    }
+
+    private static void removeLegacyKeys(PersistentDataContainer container) {
+        container.remove(KEY_LEVEL);
+        container.remove(KEY_EXPERIENCE);
+        container.remove(KEY_ENCHANTMENTS);
+        container.remove(KEY_LEGACY_ENCHANTS);
+        container.remove(KEY_LEGACY_CUBES);
 
-        return enchantments;
+        List<NamespacedKey> perEnchantKeys = new ArrayList<>();
+        for (NamespacedKey key : container.getKeys()) {
+            if (key.getNamespace().equals(KEY_TOOL_ID.getNamespace()) && key.getKey().startsWith(LEGACY_ENCHANT_PREFIX)) {
+                perEnchantKeys.add(key);
+            }
+        }
+        perEnchantKeys.forEach(container::remove);
     }
 
     /**
@@ -190,6 +376,17 @@ public class GensTool {
         ItemMeta meta = item.getItemMeta();
         PersistentDataContainer container = meta.getPersistentDataContainer();
 
+        // Check the encoded state
+        ToolState state = readState(meta);
+        debug.append("Encoded state: ").append(container.has(KEY_STATE, PersistentDataType.BYTE_ARRAY) ?
+                container.get(KEY_STATE, PersistentDataType.BYTE_ARRAY).length + " bytes" : "Not found (legacy format)").append("\n");
+        if (state != null) {
+            debug.append("Decoded: level=").append(state.getLevel())
+                    .append(", exp=").append(state.getExperience())
+                    .append(", enchants=").append(state.getEnchantments())
+                    .append(", cubes=").append(state.getCubes()).append("\n");
+        }
+
         // Check tool ID
         debug.append("Tool ID: ").append(container.has(KEY_TOOL_ID, PersistentDataType.STRING) ?
                 container.get(KEY_TOOL_ID, PersistentDataType.STRING) : "Not found").append("\n");
@@ -245,10 +442,20 @@ public class GensTool {
      * @return true if the enchantment was added, false otherwise
      */
     public static boolean addEnchantment(ItemStack item, String enchantId, int level, boolean updateLore) {
-        if (!isGensTool(item) || item.getItemMeta() == null) {
-            return false;
-        }
+        return addEnchantment(null, item, enchantId, level, updateLore);
+    }
 
+    /**
+     * Add an enchantment to a tool held by a known player
+     *
+     * @param owner The player holding the tool, or null to look them up
+     * @param item The tool to add the enchantment to
+     * @param enchantId The ID of the enchantment to add
+     * @param level The level of the enchantment
+     * @param updateLore Whether to update the lore immediately
+     * @return true if the enchantment was added, false otherwise
+     */
+    public static boolean addEnchantment(Player owner, ItemStack item, String enchantId, int level, boolean updateLore) {
         // Check if the enchantment exists
         CustomEnchant enchant = GensTools.getInstance().getToolManager().getEnchantById(enchantId);
         if (enchant == null) {
@@ -256,70 +463,18 @@ public class GensTool {
         }
 
         // Cap level to max level
-        int maxLevel = enchant.getMaxLevel();
-        if (level > maxLevel) {
-            level = maxLevel;
-        }
+        int cappedLevel = Math.min(level, enchant.getMaxLevel());
 
-        // Get the existing enchantments
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Store both individual key and update consolidated enchantment string
-        NamespacedKey enchantKey = new NamespacedKey(GensTools.getInstance(), "enchant_" + enchantId);
-        container.set(enchantKey, PersistentDataType.INTEGER, level);
-
-        // Update the consolidated enchantment string
-        Map<String, Integer> enchantments = new HashMap<>();
-
-        // First get existing enchantments from the consolidated string if it exists
-        NamespacedKey enchantmentsKey = new NamespacedKey(GensTools.getInstance(), "enchants");
-        if (container.has(enchantmentsKey, PersistentDataType.STRING)) {
-            String enchantData = container.get(enchantmentsKey, PersistentDataType.STRING);
-            if (enchantData != null && !enchantData.isEmpty()) {
-                for (String entry : enchantData.split(",")) {
-                    String[] parts = entry.split(":");
-                    if (parts.length == 2) {
-                        try {
-                            enchantments.put(parts[0], Integer.parseInt(parts[1]));
-                        } catch (NumberFormatException e) {
-                            // Handle case where the stored value might be a double
-                            try {
-                                double doubleValue = Double.parseDouble(parts[1]);
-                                enchantments.put(parts[0], (int) doubleValue);
-                            } catch (NumberFormatException e2) {
-                                // Ignore invalid entries
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        // Add or update the enchantment
-        enchantments.put(enchantId, level);
-
-        // Convert back to string
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
-            if (!first) {
-                sb.append(",");
-            }
-            sb.append(entry.getKey()).append(":").append(entry.getValue());
-            first = false;
+        if (!modifyState(item, state -> state.setEnchantment(enchantId, cappedLevel))) {
+            return false;
         }
 
-        // Store the consolidated string
-        container.set(enchantmentsKey, PersistentDataType.STRING, sb.toString());
-        item.setItemMeta(meta);
-
         // Update the lore if requested
         if (updateLore) {
             GensTools.getInstance().getLoreManager().updateToolLore(item);
         }
 
-        updatePersistence(item);
+        updatePersistence(owner, item);
         return true;
     }
 
@@ -448,58 +603,68 @@ public class GensTool {
      * @param amount The amount of experience to add
      * @return true if the tool leveled up, false otherwise
      */
-    public static boolean addExperience(ItemStack item, int amount) {
-        if (!isGensTool(item) || item.getItemMeta() == null) {
+    public static boolean addExperience(ItemStack item, long amount) {
+        return addExperience(null, item, amount);
+    }
+
+    /**
+     * Adds experience to a tool held by a known player and checks for level up
+     *
+     * @param owner The player holding the tool, or null to look them up
+     * @param item The tool item to add experience to
+     * @param amount The amount of experience to add
+     * @return true if the tool leveled up, false otherwise
+     */
+    public static boolean addExperience(Player owner, ItemStack item, long amount) {
+        if (item == null || !item.hasItemMeta()) {
             return false;
         }
 
-        // Get current experience and level
         ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-        int currentExp = container.getOrDefault(KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
-        int currentLevel = container.getOrDefault(KEY_LEVEL, PersistentDataType.INTEGER, 1);
-
-        // Calculate new experience
-        int newExp = currentExp + amount;
-
-        // Check for level up
-        boolean leveledUp = false;
-        int requiredExp = calculateRequiredExp(currentLevel);
-
-        while (newExp >= requiredExp) {
-            // Level up
-            currentLevel++;
-            newExp -= requiredExp;
-            leveledUp = true;
-            requiredExp = calculateRequiredExp(currentLevel);
+        ToolState state = readState(meta);
+        if (state == null) {
+            return false;
         }
 
+        boolean leveledUp = applyExperience(state, amount);
+
         // Update the item
-        container.set(KEY_EXPERIENCE, PersistentDataType.INTEGER, newExp);
-        container.set(KEY_LEVEL, PersistentDataType.INTEGER, currentLevel);
-        item.setItemMeta(meta);
+        saveState(item, meta, state);
 
         // Update the lore
         GensTools.getInstance().getLoreManager().updateToolLore(item);
 
-        updatePersistence(item);
+        updatePersistence(owner, item);
 
         return leveledUp;
     }
 
     /**
-     * Calculate required experience for the next level
+     * Adds experience to a tool state and applies any level ups, up to leveling.max-level
+     *
+     * @param state The tool state to modify
+     * @param amount The amount of experience to add
+     * @return true if the tool leveled up, false otherwise
+     */
+    public static boolean applyExperience(ToolState state, long amount) {
+        return GensTools.getInstance().getConfigManager().getLevelCurve().addExperience(state, amount);
+    }
+
+    /**
+     * Calculate required experience for the next level, from the configured level curve
+     *
+     * @param level The current level
+     * @return The experience needed, 0 at the maximum level
      */
-    public static int calculateRequiredExp(int level) {
-        // Base formula: 1000 + (level * 500)
-        return 1000 + (level * 500);
+    public static long calculateRequiredExp(int level) {
+        return GensTools.getInstance().getConfigManager().getLevelCurve().getRequiredExp(level);
     }
 
     /**
      * Update lore with level and experience information
      * This is now public so it can be accessed in commands
      */
-    public static void updateLore(ItemMeta meta, int level, int experience, int requiredExp) {
+    public static void updateLore(ItemMeta meta, int level, long experience, long requiredExp) {
         List<String> lore = meta.getLore();
         if (lore == null) {
             lore = new ArrayList<>();
@@ -539,30 +704,33 @@ public class GensTool {
      * @return true if successful, false otherwise
      */
     public static boolean setLevel(ItemStack item, int level) {
-        if (!isGensTool(item) || item.getItemMeta() == null) {
-            return false;
-        }
+        return setLevel(null, item, level);
+    }
 
-        if (level < 1) {
-            level = 1;
+    /**
+     * Sets the level of a tool held by a known player
+     *
+     * @param owner The player holding the tool, or null to look them up
+     * @param item The tool to modify
+     * @param level The new level
+     * @return true if successful, false otherwise
+     */
+    public static boolean setLevel(Player owner, ItemStack item, int level) {
+        int newLevel = GensTools.getInstance().getConfigManager().getLevelCurve().clampLevel(level);
+
+        // Set the new level and reset experience to 0
+        boolean modified = modifyState(item, state -> {
+            state.setLevel(newLevel);
+            state.setExperience(0);
+        });
+        if (!modified) {
+            return false;
         }
 
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Set the new level
-        container.set(KEY_LEVEL, PersistentDataType.INTEGER, level);
-
-        // Reset experience to 0
-        container.set(KEY_EXPERIENCE, PersistentDataType.INTEGER, 0);
-
-        // Apply the metadata
-        item.setItemMeta(meta);
-
         // Update the lore
         GensTools.getInstance().getLoreManager().updateToolLore(item);
 
-        updatePersistence(item);
+        updatePersistence(owner, item);
 
         return true;
     }
@@ -574,36 +742,32 @@ public class GensTool {
      * @param exp The new experience amount
      * @return true if successful, false otherwise
      */
-    public static boolean setExperience(ItemStack item, int exp) {
-        if (!isGensTool(item) || item.getItemMeta() == null) {
-            return false;
-        }
-
-        if (exp < 0) {
-            exp = 0;
-        }
-
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
+    public static boolean setExperience(ItemStack item, long exp) {
+        return setExperience(null, item, exp);
+    }
 
-        int currentLevel = container.getOrDefault(KEY_LEVEL, PersistentDataType.INTEGER, 1);
-        int requiredExp = calculateRequiredExp(currentLevel);
+    /**
+     * Sets the experience of a tool held by a known player
+     *
+     * @param owner The player holding the tool, or null to look them up
+     * @param item The tool to modify
+     * @param exp The new experience amount
+     * @return true if successful, false otherwise
+     */
+    public static boolean setExperience(Player owner, ItemStack item, long exp) {
+        long newExp = Math.max(exp, 0);
 
         // Cap experience at required amount
-        if (exp > requiredExp) {
-            exp = requiredExp;
+        boolean modified = modifyState(item, state ->
+                state.setExperience(Math.min(newExp, calculateRequiredExp(state.getLevel()))));
+        if (!modified) {
+            return false;
         }
 
-        // Set the new experience
-        container.set(KEY_EXPERIENCE, PersistentDataType.INTEGER, exp);
-
-        // Apply the metadata
-        item.setItemMeta(meta);
-
         // Update the lore
         GensTools.getInstance().getLoreManager().updateToolLore(item);
 
-        updatePersistence(item);
+        updatePersistence(owner, item);
 
         return true;
     }
@@ -620,7 +784,7 @@ public class GensTool {
     /**
      * Alias for getExperience() method to maintain compatibility
      */
-    public static int getToolExp(ItemStack item) {
+    public static long getToolExp(ItemStack item) {
         return getExperience(item);
     }
 
@@ -634,7 +798,7 @@ public class GensTool {
     /**
      * Alias for addExperience() method to maintain compatibility
      */
-    public static boolean addToolExp(ItemStack item, int amount) {
+    public static boolean addToolExp(ItemStack item, long amount) {
         return addExperience(item, amount);
     }
 
@@ -648,7 +812,7 @@ public class GensTool {
     /**
      * Alias for setExperience() method to maintain compatibility
      */
-    public static boolean setToolExp(ItemStack item, int exp) {
+    public static boolean setToolExp(ItemStack item, long exp) {
         return setExperience(item, exp);
     }
 
@@ -660,35 +824,16 @@ public class GensTool {
      * @return true if successful, false otherwise
      */
     public static boolean updateEnchantments(ItemStack item, Map<String, Integer> enchantments) {
-        if (!isGensTool(item)) {
-            return false;
-        }
-
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-
-        // Get existing enchantments and merge with new ones
-        Map<String, Integer> currentEnchants = getEnchantments(item);
-        currentEnchants.putAll(enchantments);
-
-        // Remove any enchantment set to level 0
-        currentEnchants.entrySet().removeIf(entry -> entry.getValue() <= 0);
-
-        // Convert to string
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (Map.Entry<String, Integer> entry : currentEnchants.entrySet()) {
-            if (!first) {
-                sb.append(",");
+        // Merge with existing enchantments, removing any set to level 0
+        boolean modified = modifyState(item, state -> {
+            for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
+                state.setEnchantment(entry.getKey(), entry.getValue());
             }
-            sb.append(entry.getKey()).append(":").append(entry.getValue());
-            first = false;
+        });
+        if (!modified) {
+            return false;
         }
 
-        // Store in the container
-        container.set(KEY_ENCHANTMENTS, PersistentDataType.STRING, sb.toString());
-        item.setItemMeta(meta);
-
         // Update lore once
         updateEnchantmentLore(item);
 
@@ -704,31 +849,41 @@ public class GensTool {
      * @return true if the enchantment was removed, false otherwise
      */
     public static boolean removeEnchantment(ItemStack item, String enchantId, boolean updateLore) {
-        if (!isGensTool(item) || item.getItemMeta() == null) {
+        return removeEnchantment(null, item, enchantId, updateLore);
+    }
+
+    /**
+     * Removes an enchantment from a GensTool held by a known player
+     *
+     * @param owner The player holding the tool, or null to look them up
+     * @param item The item to remove the enchantment from
+     * @param enchantId The ID of the enchantment to remove
+     * @param updateLore Whether to update the lore immediately
+     * @return true if the enchantment was removed, false otherwise
+     */
+    public static boolean removeEnchantment(Player owner, ItemStack item, String enchantId, boolean updateLore) {
+        if (item == null || !item.hasItemMeta()) {
             return false;
         }
 
+        ItemMeta meta = item.getItemMeta();
+        ToolState state = readState(meta);
+
         // Check if the enchantment exists
-        if (!hasEnchantment(item, enchantId)) {
+        if (state == null || state.getEnchantmentLevel(enchantId) <= 0) {
             return false;
         }
 
         // Remove the enchantment
-        ItemMeta meta = item.getItemMeta();
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-        NamespacedKey enchantKey = new NamespacedKey(GensTools.getInstance(), "enchant_" + enchantId);
-
-        // Remove the specific NamespacedKey that stores this enchantment
-        container.remove(enchantKey);
-
-        item.setItemMeta(meta);
+        state.setEnchantment(enchantId, 0);
+        saveState(item, meta, state);
 
         // Update lore if requested
         if (updateLore) {
             updateEnchantmentLore(item);
         }
 
-        updatePersistence(item);
+        updatePersistence(owner, item);
 
         return true;
     }
@@ -752,12 +907,7 @@ public class GensTool {
      * @return true if the item has the enchantment, false otherwise
      */
     public static boolean hasEnchantment(ItemStack item, String enchantId) {
-        if (!isGensTool(item)) {
-            return false;
-        }
-
-        Map<String, Integer> enchantments = getEnchantments(item);
-        return enchantments.containsKey(enchantId);
+        return getEnchantmentLevel(item, enchantId) > 0;
     }
 
     /**
@@ -768,12 +918,20 @@ public class GensTool {
      * @return The level of the enchantment, or 0 if the item doesn't have the enchantment
      */
     public static int getEnchantmentLevel(ItemStack item, String enchantId) {
-        if (!isGensTool(item)) {
-            return 0;
-        }
+        ToolState state = getState(item);
+        return state != null ? state.getEnchantmentLevel(enchantId) : 0;
+    }
 
-        Map<String, Integer> enchantments = getEnchantments(item);
-        return enchantments.getOrDefault(enchantId, 0);
+    /**
+     * Sets the cube boost for an enchantment on a GensTool
+     *
+     * @param item The tool to modify
+     * @param enchantId The ID of the boosted enchantment
+     * @param boostPercent The boost percentage, or 0 to remove the cube
+     * @return true if successful, false otherwise
+     */
+    public static boolean setCubeBoost(ItemStack item, String enchantId, int boostPercent) {
+        return modifyState(item, state -> state.setCube(enchantId, boostPercent));
     }
 
     /**
@@ -782,28 +940,31 @@ public class GensTool {
      * @param item The tool that was modified
      */
     public static void updatePersistence(ItemStack item) {
-        if (!isGensTool(item)) {
+        updatePersistence(null, item);
+    }
+
+    /**
+     * Updates the persistence system when a tool held by a known player is modified
+     *
+     * @param owner The player holding the tool, or null to look them up in the owner registry
+     * @param item The tool that was modified
+     */
+    public static void updatePersistence(Player owner, ItemStack item) {
+        String uniqueId = getUniqueId(item);
+        if (uniqueId == null) {
             return;
         }
 
-        GensTools plugin = GensTools.getInstance();
-
-        // Find the player who has this tool
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            // Check main hand
-            ItemStack mainHand = player.getInventory().getItemInMainHand();
-            if (mainHand.equals(item)) {
-                plugin.getToolPersistenceManager().handleToolUpdate(player, item);
+        ToolPersistenceManager persistence = GensTools.getInstance().getToolPersistenceManager();
+        if (owner == null) {
+            UUID ownerUuid = persistence.getOwnerRegistry().getOwner(uniqueId);
+            owner = ownerUuid != null ? Bukkit.getPlayer(ownerUuid) : null;
+            if (owner == null) {
+                // Not in an online player's inventory
                 return;
             }
-
-            // Check inventory
-            for (ItemStack inventoryItem : player.getInventory().getContents()) {
-                if (inventoryItem != null && inventoryItem.equals(item)) {
-                    plugin.getToolPersistenceManager().handleToolUpdate(player, item);
-                    return;
-                }
-            }
         }
+
+        persistence.handleToolUpdate(owner, item);
     }
-}
\ No newline at end of file
+}
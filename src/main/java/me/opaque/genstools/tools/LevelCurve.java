@@ -0,0 +1,146 @@
+package me.opaque.genstools.tools;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+
+/**
+ * The experience tools need per level, read from leveling.curve in config.yml.
+ * The total experience needed to reach every level up to leveling.max-level is
+ * precomputed, so a grant of any size is applied with one binary search instead
+ * of one step per level. Totals saturate at Long.MAX_VALUE instead of overflowing.
+ */
+public class LevelCurve {
+    private final int maxLevel;
+    // Total experience needed to go from level 1 to each level, indexed by level
+    private final long[] cumulative;
+
+    private LevelCurve(int maxLevel, long[] cumulative) {
+        this.maxLevel = maxLevel;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Build the curve configured in the leveling section
+     * @param leveling The leveling section, or null for the defaults
+     * @return The curve
+     */
+    public static LevelCurve fromConfig(ConfigurationSection leveling) {
+        int maxLevel = leveling != null ? Math.max(1, leveling.getInt("max-level", 100)) : 100;
+        ConfigurationSection curve = leveling != null ? leveling.getConfigurationSection("curve") : null;
+
+        String type = curve != null ? curve.getString("type", "linear").toLowerCase() : "linear";
+        double base = curve != null ? curve.getDouble("base", 1000) : 1000;
+        long[] requirements = new long[maxLevel];
+        switch (type) {
+            case "polynomial" -> {
+                double coefficient = curve.getDouble("coefficient", 500);
+                double exponent = curve.getDouble("exponent", 1.5);
+                for (int level = 1; level < maxLevel; level++) {
+                    requirements[level] = toExp(base + coefficient * Math.pow(level, exponent));
+                }
+            }
+            case "exponential" -> {
+                double growth = curve.getDouble("growth", 1.1);
+                for (int level = 1; level < maxLevel; level++) {
+                    requirements[level] = toExp(base * Math.pow(growth, level - 1));
+                }
+            }
+            case "table" -> {
+                // The last entry repeats for the levels after it
+                List<Long> table = curve.getLongList("table");
+                for (int level = 1; level < maxLevel; level++) {
+                    requirements[level] = table.isEmpty() ? toExp(base)
+                            : toExp(table.get(Math.min(level, table.size()) - 1));
+                }
+            }
+            default -> {
+                // Linear, the default of 1000 + 500 per level matches the original formula
+                double perLevel = curve != null ? curve.getDouble("per-level", 500) : 500;
+                for (int level = 1; level < maxLevel; level++) {
+                    requirements[level] = toExp(base + perLevel * level);
+                }
+            }
+        }
+
+        long[] cumulative = new long[maxLevel + 1];
+        for (int level = 1; level < maxLevel; level++) {
+            cumulative[level + 1] = saturatedAdd(cumulative[level], requirements[level]);
+        }
+        return new LevelCurve(maxLevel, cumulative);
+    }
+
+    private static long toExp(double value) {
+        // Casting saturates at Long.MAX_VALUE, every level needs at least 1
+        return Double.isNaN(value) ? 1 : Math.max(1, (long) value);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Get the experience needed to go from a level to the next
+     * @param level The current level
+     * @return The experience needed, 0 at the maximum level
+     */
+    public long getRequiredExp(int level) {
+        int clamped = clampLevel(level);
+        return clamped >= maxLevel ? 0 : cumulative[clamped + 1] - cumulative[clamped];
+    }
+
+    /**
+     * Keep a level within 1 and the maximum level
+     * @param level The level
+     * @return The clamped level
+     */
+    public int clampLevel(int level) {
+        return Math.max(1, Math.min(level, maxLevel));
+    }
+
+    /**
+     * Add experience to a tool state, applying every level up it reaches at once.
+     * Tools at the maximum level keep 0 experience.
+     * @param state The state to modify
+     * @param amount The experience to add
+     * @return true if the tool leveled up
+     */
+    public boolean addExperience(ToolState state, long amount) {
+        int level = clampLevel(state.getLevel());
+        if (level >= maxLevel) {
+            state.setLevel(level);
+            state.setExperience(0);
+            return false;
+        }
+
+        long total = saturatedAdd(cumulative[level], Math.max(0, state.getExperience()));
+        total = saturatedAdd(total, Math.max(0, amount));
+
+        int newLevel = findLevel(total, level);
+        state.setLevel(newLevel);
+        state.setExperience(newLevel >= maxLevel ? 0 : total - cumulative[newLevel]);
+        return newLevel > level;
+    }
+
+    /**
+     * Find the highest level whose total experience is reached
+     */
+    private int findLevel(long total, int fromLevel) {
+        int low = fromLevel;
+        int high = maxLevel;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (cumulative[mid] <= total) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,154 @@
+package me.opaque.genstools.tools;
+
+import me.opaque.genstools.GensTools;
+import me.opaque.genstools.enchants.CustomEnchant;
+import me.opaque.genstools.manager.ToolStateCache;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects changes to a tool and applies them together with a single meta
+ * write, lore render and persistence update. Obtained from {@link GensTool#edit}.
+ * Changes follow the rules of the matching GensTool methods: levels stay within the level curve,
+ * setting a level resets the experience unless experience is set too, experience
+ * is capped at the level's requirement and unknown enchantments are ignored.
+ */
+public class ToolEditor {
+    private final ItemStack item;
+    private Player owner;
+    private Integer level;
+    private Long experience;
+    private boolean clearEnchantments;
+    // Enchantment ID to level, 0 removes it
+    private final Map<String, Integer> enchantments = new LinkedHashMap<>();
+    // Enchantment ID to cube boost, 0 removes the cube
+    private final Map<String, Integer> cubes = new LinkedHashMap<>();
+    private boolean updateLore = true;
+
+    ToolEditor(ItemStack item) {
+        this.item = item;
+    }
+
+    /**
+     * Set the player holding the tool, saving an owner lookup on commit
+     * @param owner The player holding the tool
+     * @return This editor
+     */
+    public ToolEditor owner(Player owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    public ToolEditor level(int level) {
+        this.level = GensTools.getInstance().getConfigManager().getLevelCurve().clampLevel(level);
+        return this;
+    }
+
+    public ToolEditor experience(long experience) {
+        this.experience = Math.max(experience, 0);
+        return this;
+    }
+
+    /**
+     * Remove all enchantments before applying the enchantments set on this editor
+     * @return This editor
+     */
+    public ToolEditor clearEnchantments() {
+        this.clearEnchantments = true;
+        enchantments.clear();
+        return this;
+    }
+
+    public ToolEditor enchantment(String enchantId, int level) {
+        enchantments.put(enchantId, Math.max(level, 0));
+        return this;
+    }
+
+    public ToolEditor removeEnchantment(String enchantId) {
+        return enchantment(enchantId, 0);
+    }
+
+    public ToolEditor cube(String enchantId, int boostPercent) {
+        cubes.put(enchantId, boostPercent);
+        return this;
+    }
+
+    /**
+     * Set whether to render the lore on commit, on by default
+     * @param updateLore Whether to render the lore
+     * @return This editor
+     */
+    public ToolEditor updateLore(boolean updateLore) {
+        this.updateLore = updateLore;
+        return this;
+    }
+
+    /**
+     * Apply the changes to the item
+     * @return true if the item is a GensTool and was modified, false otherwise
+     */
+    public boolean commit() {
+        if (item == null || !item.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        ToolState state = GensTool.readState(meta);
+        if (state == null) {
+            return false;
+        }
+
+        if (level != null) {
+            state.setLevel(level);
+            if (experience == null) {
+                state.setExperience(0);
+            }
+        }
+        if (experience != null) {
+            state.setExperience(Math.min(experience, GensTool.calculateRequiredExp(state.getLevel())));
+        }
+
+        if (clearEnchantments) {
+            for (String enchantId : state.getEnchantments().keySet().toArray(new String[0])) {
+                state.setEnchantment(enchantId, 0);
+            }
+        }
+        GensTools plugin = GensTools.getInstance();
+        for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
+            int enchantLevel = entry.getValue();
+            if (enchantLevel > 0) {
+                CustomEnchant enchant = plugin.getToolManager().getEnchantById(entry.getKey());
+                if (enchant == null) {
+                    continue;
+                }
+                enchantLevel = Math.min(enchantLevel, enchant.getMaxLevel());
+            }
+            state.setEnchantment(entry.getKey(), enchantLevel);
+        }
+
+        for (Map.Entry<String, Integer> entry : cubes.entrySet()) {
+            state.setCube(entry.getKey(), entry.getValue());
+        }
+
+        GensTool.writeState(meta, state);
+        if (updateLore) {
+            plugin.getLoreManager().renderLore(meta, state, item.getType());
+        }
+        item.setItemMeta(meta);
+
+        // The written state supersedes any cached copy
+        ToolStateCache cache = plugin.getToolStateCache();
+        String uniqueId = meta.getPersistentDataContainer().get(GensTool.KEY_UNIQUE_ID, PersistentDataType.STRING);
+        if (cache != null && uniqueId != null) {
+            cache.invalidate(uniqueId);
+        }
+
+        GensTool.updatePersistence(owner, item);
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+package me.opaque.genstools.tools;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decoded view of all GensTools data stored on a tool item.
+ * Read once from the item's PDC and written back as a single entry.
+ */
+public class ToolState {
+    private final String toolId;
+    private int level;
+    private long experience;
+    private final Map<String, Integer> enchantments;
+    private final Map<String, Integer> cubes;
+
+    public ToolState(String toolId, int level, long experience) {
+        this(toolId, level, experience, new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    public ToolState(String toolId, int level, long experience,
+                     Map<String, Integer> enchantments, Map<String, Integer> cubes) {
+        this.toolId = toolId;
+        this.level = level;
+        this.experience = experience;
+        this.enchantments = new LinkedHashMap<>(enchantments);
+        this.cubes = new LinkedHashMap<>(cubes);
+    }
+
+    public String getToolId() {
+        return toolId;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public long getExperience() {
+        return experience;
+    }
+
+    public void setExperience(long experience) {
+        this.experience = experience;
+    }
+
+    /**
+     * Get all enchantments on the tool
+     * @return A read-only map of enchantment IDs to levels
+     */
+    public Map<String, Integer> getEnchantments() {
+        return Collections.unmodifiableMap(enchantments);
+    }
+
+    /**
+     * Get the level of an enchantment
+     * @param enchantId The enchantment ID
+     * @return The level, or 0 if the tool doesn't have it
+     */
+    public int getEnchantmentLevel(String enchantId) {
+        return enchantments.getOrDefault(enchantId, 0);
+    }
+
+    /**
+     * Set the level of an enchantment, removing it if the level is 0 or less
+     * @param enchantId The enchantment ID
+     * @param level The new level
+     */
+    public void setEnchantment(String enchantId, int level) {
+        if (level <= 0) {
+            enchantments.remove(enchantId);
+        } else {
+            enchantments.put(enchantId, level);
+        }
+    }
+
+    /**
+     * Get all applied cubes on the tool
+     * @return A read-only map of enchantment IDs to boost percentages
+     */
+    public Map<String, Integer> getCubes() {
+        return Collections.unmodifiableMap(cubes);
+    }
+
+    /**
+     * Set the cube boost for an enchantment, removing it if the boost is 0 or less
+     * @param enchantId The enchantment ID
+     * @param boostPercent The boost percentage
+     */
+    public void setCube(String enchantId, int boostPercent) {
+        if (boostPercent <= 0) {
+            cubes.remove(enchantId);
+        } else {
+            cubes.put(enchantId, boostPercent);
+        }
+    }
+
+    /**
+     * Create an independent copy of this state
+     * @return The copy
+     */
+    public ToolState copy() {
+        return new ToolState(toolId, level, experience, enchantments, cubes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ToolState that = (ToolState) o;
+        return level == that.level && experience == that.experience &&
+                Objects.equals(toolId, that.toolId) &&
+                enchantments.equals(that.enchantments) &&
+                cubes.equals(that.cubes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(toolId, level, experience, enchantments, cubes);
+    }
+}
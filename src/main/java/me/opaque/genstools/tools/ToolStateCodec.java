@@ -0,0 +1,104 @@
+package me.opaque.genstools.tools;
+
+import me.opaque.genstools.utils.BinaryCodec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of {@link ToolState} for storage in a single PDC byte array.
+ *
+ * Layout: version, tool id, level, experience, enchant count, (id, level)...,
+ * cube count, (id, boost)... Strings are length-prefixed UTF-8 and all
+ * integers are unsigned varints, written by {@link BinaryCodec}. Experience is
+ * a varlong, which reads varints written by older versions the same way.
+ */
+public final class ToolStateCodec {
+    public static final byte VERSION = 1;
+
+    private ToolStateCodec() {
+    }
+
+    /**
+     * Encode a tool state
+     * @param state The state to encode
+     * @return The encoded bytes
+     */
+    public static byte[] encode(ToolState state) {
+        Map<String, Integer> enchantments = state.getEnchantments();
+        Map<String, Integer> cubes = state.getCubes();
+
+        // Version, level, experience and the two counts, then the strings and their values
+        int bound = 1 + 5 + 10 + 5 + 5 + stringBound(state.getToolId());
+        for (String enchantId : enchantments.keySet()) {
+            bound += stringBound(enchantId) + 5;
+        }
+        for (String enchantId : cubes.keySet()) {
+            bound += stringBound(enchantId) + 5;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(bound);
+        out.put(VERSION);
+        BinaryCodec.putString(out, state.getToolId());
+        BinaryCodec.putVarInt(out, state.getLevel());
+        BinaryCodec.putVarLong(out, state.getExperience());
+
+        BinaryCodec.putVarInt(out, enchantments.size());
+        for (Map.Entry<String, Integer> entry : enchantments.entrySet()) {
+            BinaryCodec.putString(out, entry.getKey());
+            BinaryCodec.putVarInt(out, entry.getValue());
+        }
+
+        BinaryCodec.putVarInt(out, cubes.size());
+        for (Map.Entry<String, Integer> entry : cubes.entrySet()) {
+            BinaryCodec.putString(out, entry.getKey());
+            BinaryCodec.putVarInt(out, entry.getValue());
+        }
+
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Decode a tool state
+     * @param data The encoded bytes
+     * @return The decoded state, or null if the data is malformed or from an unknown version
+     */
+    public static ToolState decode(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != VERSION) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+            String toolId = BinaryCodec.getString(buffer);
+            int level = BinaryCodec.getVarInt(buffer);
+            long experience = BinaryCodec.getVarLong(buffer);
+
+            int enchantCount = BinaryCodec.getVarInt(buffer);
+            Map<String, Integer> enchantments = new LinkedHashMap<>(enchantCount * 2);
+            for (int i = 0; i < enchantCount; i++) {
+                enchantments.put(BinaryCodec.getString(buffer), BinaryCodec.getVarInt(buffer));
+            }
+
+            int cubeCount = BinaryCodec.getVarInt(buffer);
+            Map<String, Integer> cubes = new LinkedHashMap<>(cubeCount * 2);
+            for (int i = 0; i < cubeCount; i++) {
+                cubes.put(BinaryCodec.getString(buffer), BinaryCodec.getVarInt(buffer));
+            }
+
+            return new ToolState(toolId, level, experience, enchantments, cubes);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt data
+            return null;
+        }
+    }
+
+    /**
+     * The most bytes a length-prefixed string can take, 3 per UTF-16 char
+     */
+    private static int stringBound(String value) {
+        return 5 + value.length() * 3;
+    }
+}
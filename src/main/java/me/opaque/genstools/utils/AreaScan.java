@@ -0,0 +1,192 @@
+package me.opaque.genstools.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Finds the blocks of an {@link AreaShape} around an origin. Large areas read block
+ * types from one snapshot per chunk instead of a world lookup per block, small ones
+ * read the few blocks directly rather than copying whole chunks. The result is
+ * ordered by chunk section so callers can walk it one chunk at a time.
+ */
+public final class AreaScan {
+    // Candidate blocks up to which direct reads are cheaper than chunk snapshots
+    private static final int DIRECT_READ_LIMIT = 1024;
+
+    private AreaScan() {
+    }
+
+    /**
+     * Scan an area for blocks matching a filter
+     *
+     * @param origin The block the area is centered on, which is never included
+     * @param shape The shape of the area
+     * @param radius The radius of the area
+     * @param filter Which block types to include
+     * @return Packed offsets from the origin, see {@link AreaShape#pack}, grouped by chunk section
+     */
+    public static int[] scan(Block origin, AreaShape shape, int radius, Predicate<Material> filter) {
+        int[] matches;
+        if (shape == AreaShape.VEIN) {
+            int side = radius * 2 + 1;
+            BlockTypes blockTypes = new BlockTypes(origin.getWorld(), side * side * side > DIRECT_READ_LIMIT);
+            matches = scanVein(origin, radius, filter, blockTypes);
+        } else {
+            int[] offsets = shape.getOffsets(radius);
+            BlockTypes blockTypes = new BlockTypes(origin.getWorld(), offsets.length > DIRECT_READ_LIMIT);
+            matches = scanOffsets(origin, offsets, filter, blockTypes);
+        }
+
+        return sortBySection(origin, matches);
+    }
+
+    private static int[] scanOffsets(Block origin, int[] offsets, Predicate<Material> filter, BlockTypes blockTypes) {
+        int[] matches = new int[offsets.length];
+        int count = 0;
+
+        for (int packed : offsets) {
+            Material type = blockTypes.getType(origin.getX() + AreaShape.unpackX(packed),
+                    origin.getY() + AreaShape.unpackY(packed), origin.getZ() + AreaShape.unpackZ(packed));
+            if (type != null && filter.test(type)) {
+                matches[count++] = packed;
+            }
+        }
+
+        return Arrays.copyOf(matches, count);
+    }
+
+    private static int[] scanVein(Block origin, int radius, Predicate<Material> filter, BlockTypes blockTypes) {
+        Material veinType = origin.getType();
+        if (!filter.test(veinType)) {
+            return new int[0];
+        }
+
+        int side = radius * 2 + 1;
+        boolean[] visited = new boolean[side * side * side];
+        int[] queue = new int[visited.length];
+        int head = 0;
+        int tail = 0;
+
+        // Breadth-first over the 26 neighbours, starting from the origin
+        queue[tail++] = AreaShape.pack(0, 0, 0);
+        visited[index(0, 0, 0, radius)] = true;
+
+        int[] matches = new int[visited.length];
+        int count = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = AreaShape.unpackX(current);
+            int cy = AreaShape.unpackY(current);
+            int cz = AreaShape.unpackZ(current);
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        int x = cx + dx;
+                        int y = cy + dy;
+                        int z = cz + dz;
+                        if (Math.abs(x) > radius || Math.abs(y) > radius || Math.abs(z) > radius) {
+                            continue;
+                        }
+
+                        int index = index(x, y, z, radius);
+                        if (visited[index]) {
+                            continue;
+                        }
+                        visited[index] = true;
+
+                        Material type = blockTypes.getType(origin.getX() + x, origin.getY() + y, origin.getZ() + z);
+                        if (type == veinType) {
+                            int packed = AreaShape.pack(x, y, z);
+                            queue[tail++] = packed;
+                            matches[count++] = packed;
+                        }
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(matches, count);
+    }
+
+    private static int index(int x, int y, int z, int radius) {
+        int side = radius * 2 + 1;
+        return ((x + radius) * side + (y + radius)) * side + (z + radius);
+    }
+
+    /**
+     * Order packed offsets so that blocks in the same chunk section are next to each other
+     */
+    private static int[] sortBySection(Block origin, int[] offsets) {
+        long[] keyed = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            int packed = offsets[i];
+            int chunkX = (origin.getX() + AreaShape.unpackX(packed)) >> 4;
+            int sectionY = (origin.getY() + AreaShape.unpackY(packed)) >> 4;
+            int chunkZ = (origin.getZ() + AreaShape.unpackZ(packed)) >> 4;
+
+            // Section relative to the origin's, so it fits in the upper half of the long
+            long section = ((long) (chunkX - (origin.getX() >> 4) + 64) << 16)
+                    | ((long) (chunkZ - (origin.getZ() >> 4) + 64) << 8)
+                    | (sectionY - (origin.getY() >> 4) + 64);
+            keyed[i] = (section << 32) | (packed & 0xFFFFFFFFL);
+        }
+
+        Arrays.sort(keyed);
+
+        int[] sorted = new int[offsets.length];
+        for (int i = 0; i < keyed.length; i++) {
+            sorted[i] = (int) keyed[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Reads block types directly or from chunk snapshots taken on first use,
+     * skipping chunks that aren't loaded
+     */
+    private static class BlockTypes {
+        private final World world;
+        private final boolean useSnapshots;
+        private final Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+
+        private BlockTypes(World world, boolean useSnapshots) {
+            this.world = world;
+            this.useSnapshots = useSnapshots;
+        }
+
+        private Material getType(int x, int y, int z) {
+            if (y < world.getMinHeight() || y >= world.getMaxHeight()) {
+                return null;
+            }
+
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            if (!useSnapshots) {
+                return world.isChunkLoaded(chunkX, chunkZ) ? world.getBlockAt(x, y, z).getType() : null;
+            }
+
+            long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+
+            ChunkSnapshot snapshot = snapshots.get(key);
+            if (snapshot == null) {
+                if (snapshots.containsKey(key) || !world.isChunkLoaded(chunkX, chunkZ)) {
+                    snapshots.put(key, null);
+                    return null;
+                }
+                snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                snapshots.put(key, snapshot);
+            }
+
+            return snapshot.getBlockType(x & 15, y, z & 15);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package me.opaque.genstools.utils;
+
+import java.util.Arrays;
+
+/**
+ * Shapes for area-of-effect enchantments. The block offsets of each shape are
+ * computed once per radius and shared, packed into a single int per block.
+ */
+public enum AreaShape {
+    /**
+     * All blocks within the radius
+     */
+    SPHERE,
+    /**
+     * All blocks in a cube with the radius as half its side
+     */
+    CUBE,
+    /**
+     * A horizontal square on the origin's level
+     */
+    LAYER,
+    /**
+     * Blocks of the origin's type connected to it, within a cube of the radius.
+     * The offsets are the candidate cube, the connectivity is resolved by {@link AreaScan}.
+     */
+    VEIN;
+
+    public static final int MAX_RADIUS = 32;
+
+    private static final int BITS = 10;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final int[][] offsetsByRadius = new int[MAX_RADIUS + 1][];
+
+    /**
+     * Get the packed offsets of this shape, excluding the origin itself
+     *
+     * @param radius The radius, from 0 to {@link #MAX_RADIUS}
+     * @return The packed offsets, shared and must not be modified
+     */
+    public int[] getOffsets(int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_RADIUS + ": " + radius);
+        }
+
+        int[] offsets = offsetsByRadius[radius];
+        if (offsets == null) {
+            offsets = computeOffsets(radius);
+            offsetsByRadius[radius] = offsets;
+        }
+        return offsets;
+    }
+
+    private int[] computeOffsets(int radius) {
+        int side = radius * 2 + 1;
+        int[] offsets = new int[side * side * side];
+        int count = 0;
+
+        int minY = this == LAYER ? 0 : -radius;
+        int maxY = this == LAYER ? 0 : radius;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (x == 0 && y == 0 && z == 0) {
+                        continue;
+                    }
+                    if (this == SPHERE && x * x + y * y + z * z > radius * radius) {
+                        continue;
+                    }
+                    offsets[count++] = pack(x, y, z);
+                }
+            }
+        }
+
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Pack a block offset into an int, 10 signed bits per axis
+     */
+    public static int pack(int x, int y, int z) {
+        return ((x & MASK) << (BITS * 2)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    public static int unpackX(int packed) {
+        return (packed << (32 - BITS * 3)) >> (32 - BITS);
+    }
+
+    public static int unpackY(int packed) {
+        return (packed << (32 - BITS * 2)) >> (32 - BITS);
+    }
+
+    public static int unpackZ(int packed) {
+        return (packed << (32 - BITS)) >> (32 - BITS);
+    }
+}
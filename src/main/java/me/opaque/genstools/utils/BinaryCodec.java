@@ -0,0 +1,119 @@
+package me.opaque.genstools.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Varint and string encoding shared by the binary persistence formats and the
+ * item data encoding of {@link me.opaque.genstools.tools.ToolStateCodec}
+ */
+public final class BinaryCodec {
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Write an int as an unsigned LEB128 varint, 1 byte for values below 128
+     * @param buffer The buffer to write to
+     * @param value The value
+     */
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Read a varint written by {@link #putVarInt}
+     * @param buffer The buffer to read from
+     * @return The value
+     */
+    public static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint is too long");
+    }
+
+    /**
+     * Write a long as an unsigned LEB128 varint. Values that fit an int are written
+     * exactly as {@link #putVarInt} writes them.
+     * @param buffer The buffer to write to
+     * @param value The value
+     */
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Read a varint written by {@link #putVarLong} or by {@link #putVarInt} for a non-negative int
+     * @param buffer The buffer to read from
+     * @return The value
+     */
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varlong is too long");
+    }
+
+    /**
+     * Write a string as its UTF-8 length followed by the bytes
+     * @param buffer The buffer to write to
+     * @param value The string
+     */
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarInt(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Read a string written by {@link #putString}
+     * @param buffer The buffer to read from
+     * @return The string
+     */
+    public static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("String length " + length + " exceeds the remaining data");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Make sure a growable buffer has room for more bytes
+     * @param buffer The current buffer, in write mode
+     * @param needed The number of bytes about to be written
+     * @return The same buffer, or a larger copy of it
+     */
+    public static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
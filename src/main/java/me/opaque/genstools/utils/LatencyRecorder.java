@@ -0,0 +1,71 @@
+package me.opaque.genstools.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples of an operation for percentile reporting
+ */
+public class LatencyRecorder {
+    private final long[] samples;
+    private int next;
+    private int size;
+    private long count;
+
+    /**
+     * @param capacity How many recent samples to keep
+     */
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Record a sample
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        count++;
+    }
+
+    /**
+     * Get a percentile of the recent samples
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The latency in milliseconds, 0 without samples
+     */
+    public double getPercentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(samples, size);
+        }
+
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of samples recorded since creation
+     *
+     * @return The total count
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Format the count and the 50th, 95th and 99th percentiles
+     *
+     * @return A summary such as "120 (p50 1.2ms, p95 3.4ms, p99 8.0ms)"
+     */
+    public String summary() {
+        return String.format("%d (p50 %.1fms, p95 %.1fms, p99 %.1fms)",
+                getCount(), getPercentile(50), getPercentile(95), getPercentile(99));
+    }
+}
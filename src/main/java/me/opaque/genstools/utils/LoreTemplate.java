@@ -0,0 +1,241 @@
+package me.opaque.genstools.utils;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable compiled form of lore.yml. Every line is split into literal and placeholder
+ * segments once on load, with the literals already colorized.
+ */
+public final class LoreTemplate {
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([^}]+)\\}");
+
+    private final int updateInterval;
+
+    private final boolean customLoreEnabled;
+    private final boolean customLoreColorize;
+    private final boolean customLoreSpacer;
+
+    private final ListSection enchantments;
+    private final ListSection cubes;
+
+    private final boolean statsEnabled;
+    private final Line statsHeader;
+    private final Line levelFormat;
+    private final Line expFormat;
+    private final boolean statsSpacer;
+
+    private final boolean footerEnabled;
+    private final List<Line> footerLines;
+
+    private LoreTemplate(FileConfiguration config) {
+        this.updateInterval = config.getInt("rendering.update-interval", 10);
+
+        this.customLoreEnabled = config.getBoolean("tool-display.custom-lore.enabled", true);
+        this.customLoreColorize = config.getBoolean("tool-display.custom-lore.colorize", true);
+        this.customLoreSpacer = config.getBoolean("tool-display.custom-lore.add-spacer", true);
+
+        this.enchantments = new ListSection(config, "enchantments",
+                "&8❖ &7Enchantments:", " &8• &7{enchant_name} {enchant_level}");
+        this.cubes = new ListSection(config, "cubes",
+                "&8❖ &7Applied Cubes:", " &8• &7{enchant_name} &a+{boost_value}%");
+
+        this.statsEnabled = config.getBoolean("stats.enabled", true);
+        this.statsHeader = Line.compile(config.getString("stats.header", "&8❖ &7Stats:"));
+        this.levelFormat = Line.compile(config.getString("stats.level-format", " &8• &7Level: &e{level}"));
+        this.expFormat = Line.compile(config.getString("stats.exp-format",
+                " &8• &7EXP: &b{current_exp}&7/&b{required_exp} &7(&b{exp_percentage}%&7)"));
+        this.statsSpacer = config.getBoolean("stats.add-spacer", true);
+
+        this.footerEnabled = config.getBoolean("footer.enabled", true);
+        List<Line> footer = new ArrayList<>();
+        for (String line : config.getStringList("footer.lines")) {
+            footer.add(Line.compile(line));
+        }
+        this.footerLines = Collections.unmodifiableList(footer);
+    }
+
+    /**
+     * Compiles the lore configuration
+     *
+     * @param config The loaded lore.yml
+     * @return The compiled template
+     */
+    public static LoreTemplate compile(FileConfiguration config) {
+        return new LoreTemplate(config);
+    }
+
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    public boolean isCustomLoreEnabled() {
+        return customLoreEnabled;
+    }
+
+    public boolean isCustomLoreColorize() {
+        return customLoreColorize;
+    }
+
+    public boolean hasCustomLoreSpacer() {
+        return customLoreSpacer;
+    }
+
+    public ListSection getEnchantments() {
+        return enchantments;
+    }
+
+    public ListSection getCubes() {
+        return cubes;
+    }
+
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    public Line getStatsHeader() {
+        return statsHeader;
+    }
+
+    public Line getLevelFormat() {
+        return levelFormat;
+    }
+
+    public Line getExpFormat() {
+        return expFormat;
+    }
+
+    public boolean hasStatsSpacer() {
+        return statsSpacer;
+    }
+
+    public boolean isFooterEnabled() {
+        return footerEnabled;
+    }
+
+    public List<Line> getFooterLines() {
+        return footerLines;
+    }
+
+    /**
+     * A section with a header, one formatted line per entry and an empty value
+     */
+    public static final class ListSection {
+        private final boolean enabled;
+        private final Line header;
+        private final Line format;
+        private final Line emptyValue;
+        private final boolean spacer;
+
+        private ListSection(FileConfiguration config, String path, String defaultHeader, String defaultFormat) {
+            this.enabled = config.getBoolean(path + ".enabled", true);
+            this.header = Line.compile(config.getString(path + ".header", defaultHeader));
+            this.format = Line.compile(config.getString(path + ".format", defaultFormat));
+            this.emptyValue = Line.compile(config.getString(path + ".empty-value", " &8• &7None"));
+            this.spacer = config.getBoolean(path + ".add-spacer", true);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Line getHeader() {
+            return header;
+        }
+
+        public Line getFormat() {
+            return format;
+        }
+
+        public Line getEmptyValue() {
+            return emptyValue;
+        }
+
+        public boolean hasSpacer() {
+            return spacer;
+        }
+    }
+
+    /**
+     * A single lore line split into literal and placeholder segments.
+     * literals[i] comes before placeholders[i], and the last literal ends the line.
+     */
+    public static final class Line {
+        private final String[] literals;
+        private final String[] placeholders;
+
+        private Line(String[] literals, String[] placeholders) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+        }
+
+        /**
+         * Compiles a configured line
+         *
+         * @param text The raw line with '&' color codes and {placeholders}
+         * @return The compiled line
+         */
+        public static Line compile(String text) {
+            if (text == null) {
+                text = "";
+            }
+
+            List<String> literals = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
+            int last = 0;
+            while (matcher.find()) {
+                literals.add(Utils.colorize(text.substring(last, matcher.start())));
+                placeholders.add(matcher.group(1));
+                last = matcher.end();
+            }
+            literals.add(Utils.colorize(text.substring(last)));
+
+            return new Line(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+        }
+
+        /**
+         * Renders the line without any placeholder values
+         *
+         * @return The rendered line
+         */
+        public String render() {
+            return render(name -> null);
+        }
+
+        /**
+         * Renders the line. Unknown placeholders are left as they are.
+         *
+         * @param values Resolves a placeholder name to its value, or null if unknown
+         * @return The rendered line
+         */
+        public String render(Function<String, String> values) {
+            if (placeholders.length == 0) {
+                return literals[0];
+            }
+
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < placeholders.length; i++) {
+                builder.append(literals[i]);
+
+                String value = values.apply(placeholders[i]);
+                if (value == null) {
+                    builder.append('{').append(placeholders[i]).append('}');
+                } else if (value.indexOf('&') >= 0) {
+                    builder.append(Utils.colorize(value));
+                } else {
+                    builder.append(value);
+                }
+            }
+            builder.append(literals[placeholders.length]);
+            return builder.toString();
+        }
+    }
+}
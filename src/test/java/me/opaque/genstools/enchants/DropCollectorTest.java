@@ -0,0 +1,179 @@
+package me.opaque.genstools.enchants;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DropCollectorTest {
+    private Player player;
+    private PlayerInventory inventory;
+    private World world;
+    private Location location;
+
+    @BeforeAll
+    static void setUpServer() {
+        // ItemStack asks the server's item factory whether a stack has meta
+        if (Bukkit.getServer() == null) {
+            Server server = mock(Server.class);
+            ItemFactory itemFactory = mock(ItemFactory.class);
+            when(server.getLogger()).thenReturn(Logger.getLogger("GensTools-Test"));
+            when(server.getItemFactory()).thenReturn(itemFactory);
+            when(itemFactory.equals(any(), any())).thenAnswer(invocation ->
+                    invocation.getArgument(0) == null && invocation.getArgument(1) == null);
+            Bukkit.setServer(server);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        player = mock(Player.class);
+        inventory = mock(PlayerInventory.class);
+        when(player.isOnline()).thenReturn(true);
+        when(player.getInventory()).thenReturn(inventory);
+        when(inventory.addItem(any(ItemStack[].class))).thenReturn(new HashMap<>());
+
+        world = mock(World.class);
+        location = mock(Location.class);
+        when(location.getWorld()).thenReturn(world);
+    }
+
+    @Test
+    void mergesDropsOfOneMaterial() {
+        DropCollector collector = new DropCollector();
+        collector.add(Material.COBBLESTONE, 3);
+        collector.add(new ItemStack(Material.COBBLESTONE, 5));
+        collector.add(Material.IRON_INGOT, 2);
+        // Nothing to give
+        collector.add(Material.COBBLESTONE, 0);
+        collector.add(new ItemStack(Material.AIR));
+        collector.add(null);
+
+        collector.commit(player, location);
+
+        assertEquals(Map.of(Material.COBBLESTONE, 8, Material.IRON_INGOT, 2), amounts(insertedStacks()));
+        assertEquals(2, insertedStacks().size());
+        assertTrue(collector.isEmpty());
+    }
+
+    @Test
+    void splitsIntoMaxStackSize() {
+        DropCollector collector = new DropCollector();
+        collector.add(Material.COBBLESTONE, 150);
+        collector.add(Material.ENDER_PEARL, 20);
+
+        collector.commit(player, location);
+
+        List<Integer> cobblestone = new ArrayList<>();
+        List<Integer> pearls = new ArrayList<>();
+        for (ItemStack stack : insertedStacks()) {
+            (stack.getType() == Material.COBBLESTONE ? cobblestone : pearls).add(stack.getAmount());
+        }
+        assertEquals(List.of(64, 64, 22), cobblestone);
+        assertEquals(List.of(16, 4), pearls);
+    }
+
+    @Test
+    void leftoversAreMergedAndDropped() {
+        // A full inventory hands back a partial stack and a whole one separately
+        Map<Integer, ItemStack> leftover = new HashMap<>();
+        leftover.put(0, new ItemStack(Material.COBBLESTONE, 10));
+        leftover.put(1, new ItemStack(Material.COBBLESTONE, 64));
+        when(inventory.addItem(any(ItemStack[].class))).thenReturn(leftover);
+
+        DropCollector collector = new DropCollector();
+        collector.add(Material.COBBLESTONE, 128);
+        collector.commit(player, location);
+
+        ArgumentCaptor<ItemStack> dropped = ArgumentCaptor.forClass(ItemStack.class);
+        verify(world, times(2)).dropItemNaturally(eq(location), dropped.capture());
+        List<Integer> amounts = new ArrayList<>();
+        for (ItemStack stack : dropped.getAllValues()) {
+            amounts.add(stack.getAmount());
+        }
+        assertEquals(List.of(64, 10), amounts);
+    }
+
+    @Test
+    void offlinePlayerGetsEverythingDropped() {
+        when(player.isOnline()).thenReturn(false);
+
+        DropCollector collector = new DropCollector();
+        collector.add(Material.COBBLESTONE, 5);
+        collector.commit(player, location);
+
+        verify(inventory, never()).addItem(any(ItemStack[].class));
+        verify(world).dropItemNaturally(eq(location), any(ItemStack.class));
+    }
+
+    @Test
+    void transferredDropsAreNotGiven() {
+        DropCollector collector = new DropCollector();
+        collector.add(Material.COBBLESTONE, 5);
+        collector.add(Material.DIAMOND, 2);
+
+        Map<Material, Integer> sold = new EnumMap<>(Material.class);
+        collector.transferPlainDrops(material -> material == Material.DIAMOND, sold::put);
+        assertEquals(Map.of(Material.DIAMOND, 2), sold);
+        assertFalse(collector.isEmpty());
+
+        collector.commit(player, location);
+        assertEquals(Map.of(Material.COBBLESTONE, 5), amounts(insertedStacks()));
+    }
+
+    private List<ItemStack> insertedStacks() {
+        ArgumentCaptor<ItemStack[]> captor = ArgumentCaptor.forClass(ItemStack[].class);
+        verify(inventory).addItem(captor.capture());
+        return flatten(captor.getAllValues());
+    }
+
+    /**
+     * Varargs captures arrive either as one array or as its elements, depending on the Mockito version
+     */
+    private static List<ItemStack> flatten(List<?> captured) {
+        List<ItemStack> stacks = new ArrayList<>();
+        for (Object value : captured) {
+            if (value instanceof ItemStack[] array) {
+                stacks.addAll(List.of(array));
+            } else {
+                stacks.add((ItemStack) value);
+            }
+        }
+        return stacks;
+    }
+
+    private static Map<Material, Integer> amounts(List<ItemStack> stacks) {
+        Map<Material, Integer> amounts = new EnumMap<>(Material.class);
+        for (ItemStack stack : stacks) {
+            amounts.merge(stack.getType(), stack.getAmount(), Integer::sum);
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,119 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryStorageTest {
+    @TempDir
+    File dataFolder;
+
+    private BinaryStorage storage;
+    private final UUID owner = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        storage = new BinaryStorage(TestPlugins.mockPlugin(dataFolder), dataFolder);
+    }
+
+    @Test
+    void encodedToolsDecodeBack() {
+        String uuidId = UUID.randomUUID().toString();
+        // Tools from older versions have IDs that are not UUIDs
+        String legacyId = "legacy-tool-1";
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(uuidId, "pickaxe", 12, Long.MAX_VALUE,
+                Map.of("efficiency", 5, "fortune", 3)));
+        data.addOrUpdateTool(new SavedToolData(legacyId, "pickaxe", 1, 0, Map.of("fortune", 1)));
+        data.addOrUpdateTool(new SavedToolData(UUID.randomUUID().toString(), "sword", 100, 42, Map.of()));
+        storage.savePlayerData(data);
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        assertEquals(3, loaded.getToolCount());
+
+        SavedToolData tool = loaded.getToolByUniqueId(uuidId);
+        assertNotNull(tool);
+        assertTrue(tool.hasUuidId());
+        assertEquals("pickaxe", tool.getToolId());
+        assertEquals(12, tool.getLevel());
+        assertEquals(Long.MAX_VALUE, tool.getExperience());
+        assertEquals(Map.of("efficiency", 5, "fortune", 3), tool.getEnchantments());
+
+        SavedToolData legacy = loaded.getToolByUniqueId(legacyId);
+        assertNotNull(legacy);
+        assertEquals(legacyId, legacy.getUniqueId());
+        assertEquals(Map.of("fortune", 1), legacy.getEnchantments());
+
+        assertEquals(List.of(owner), storage.getStoredPlayers());
+    }
+
+    @Test
+    void emptyPlayerDecodesBack() {
+        storage.savePlayerData(new PlayerToolData(owner));
+        assertEquals(0, storage.loadPlayerData(owner).getToolCount());
+    }
+
+    @Test
+    void missingFileLoadsEmpty() {
+        assertEquals(0, storage.loadPlayerData(owner).getToolCount());
+    }
+
+    @Test
+    void corruptFileLoadsEmptyAndIsKept() throws IOException {
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(UUID.randomUUID().toString(), "pickaxe", 3, 30, Map.of("efficiency", 2)));
+        storage.savePlayerData(data);
+
+        File file = new File(dataFolder, owner + ".gtd");
+        assertTrue(file.exists());
+
+        // Flip a byte past the header, the checksum no longer matches
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long offset = raf.length() - 6;
+            raf.seek(offset);
+            int value = raf.read();
+            raf.seek(offset);
+            raf.write(value ^ 0xFF);
+        }
+
+        long corruptLength = file.length();
+        assertEquals(0, storage.loadPlayerData(owner).getToolCount());
+
+        // The bad file is set aside, not overwritten by the next save
+        File corrupt = new File(dataFolder, owner + ".gtd.corrupt");
+        assertTrue(corrupt.exists());
+        assertEquals(corruptLength, corrupt.length());
+        assertFalse(file.exists());
+
+        storage.savePlayerData(new PlayerToolData(owner));
+        assertTrue(corrupt.exists());
+        assertEquals(List.of(owner), storage.getStoredPlayers());
+    }
+
+    @Test
+    void loadedFileCanBeReplaced() {
+        String uniqueId = UUID.randomUUID().toString();
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(uniqueId, "pickaxe", 1, 10, Map.of()));
+        storage.savePlayerData(data);
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        loaded.getToolByUniqueId(uniqueId).setLevel(2);
+        storage.savePlayerData(loaded);
+
+        assertEquals(2, storage.loadPlayerData(owner).getToolByUniqueId(uniqueId).getLevel());
+    }
+}
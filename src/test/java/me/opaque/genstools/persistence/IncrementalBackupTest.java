@@ -0,0 +1,107 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalBackupTest {
+    @TempDir
+    File root;
+
+    private File dataFolder;
+    private File backupFolder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataFolder = new File(root, "data");
+        backupFolder = new File(root, "backups");
+        assertTrue(dataFolder.mkdirs());
+        write("first.gtd", "one");
+        write("second.gtd", "two");
+        write("notes.txt", "not data");
+    }
+
+    @Test
+    void firstSnapshotCopiesEveryDataFile() throws IOException {
+        IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-01");
+        assertEquals("2026-01-01", result.getName());
+        assertEquals(2, result.getCopied());
+        assertEquals(0, result.getLinked());
+
+        Path snapshot = backupFolder.toPath().resolve("2026-01-01");
+        assertEquals("one", Files.readString(snapshot.resolve("first.gtd")));
+        assertEquals("two", Files.readString(snapshot.resolve("second.gtd")));
+        assertFalse(Files.exists(snapshot.resolve("notes.txt")));
+        assertTrue(Files.exists(snapshot.resolve("manifest.txt")));
+    }
+
+    @Test
+    void unchangedFilesAreLinked() throws IOException {
+        IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-01");
+        File second = write("second.gtd", "changed");
+        assertTrue(second.setLastModified(second.lastModified() + 5000));
+
+        IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-02");
+        assertEquals(1, result.getCopied());
+        assertEquals(1, result.getLinked());
+
+        Path previous = backupFolder.toPath().resolve("2026-01-01");
+        Path snapshot = backupFolder.toPath().resolve("2026-01-02");
+        assertTrue(Files.isSameFile(previous.resolve("first.gtd"), snapshot.resolve("first.gtd")));
+        assertEquals("changed", Files.readString(snapshot.resolve("second.gtd")));
+        // The older snapshot keeps its own copy
+        assertEquals("two", Files.readString(previous.resolve("second.gtd")));
+    }
+
+    @Test
+    void incompleteSnapshotIsNotLinkedAgainst() throws IOException {
+        IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-01");
+        // Left behind by a snapshot that failed before writing its manifest
+        assertTrue(new File(backupFolder, "2026-01-02").mkdirs());
+
+        IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-03");
+        assertEquals(0, result.getCopied());
+        assertEquals(2, result.getLinked());
+    }
+
+    @Test
+    void sameNameGetsSuffix() throws IOException {
+        IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-01");
+        IncrementalBackup.Result result = IncrementalBackup.create(dataFolder, ".gtd", backupFolder, "2026-01-01");
+        assertEquals("2026-01-01_1", result.getName());
+        assertEquals(2, result.getLinked());
+    }
+
+    @Test
+    void pruneDeletesOldestSnapshots() throws IOException {
+        for (String name : new String[]{"2026-01-03", "2026-01-01", "2026-01-02"}) {
+            IncrementalBackup.create(dataFolder, ".gtd", backupFolder, name);
+        }
+
+        assertEquals(0, IncrementalBackup.prune(backupFolder, 0));
+        assertEquals(0, IncrementalBackup.prune(backupFolder, 3));
+        assertEquals(2, IncrementalBackup.prune(backupFolder, 1));
+
+        String[] left = backupFolder.list();
+        assertEquals(1, left.length);
+        assertEquals("2026-01-03", left[0]);
+        // Linked files outlive the snapshots they were linked from
+        assertEquals("one", Files.readString(backupFolder.toPath().resolve("2026-01-03/first.gtd")));
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(dataFolder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,122 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerToolDataTest {
+    private final String pickaxeId = UUID.randomUUID().toString();
+    private final String swordId = UUID.randomUUID().toString();
+    private PlayerToolData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new PlayerToolData(UUID.randomUUID());
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 1, 0, Map.of("efficiency", 1)));
+        data.addOrUpdateTool(new SavedToolData(swordId, "sword", 1, 0, Map.of()));
+        data.takeDelta(true);
+    }
+
+    @Test
+    void newToolsAreFullChanges() {
+        PlayerToolData fresh = new PlayerToolData(UUID.randomUUID());
+        fresh.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 2, 10, Map.of("efficiency", 3)));
+
+        ToolDataDelta delta = fresh.takeDelta(false);
+        assertTrue(delta.hasToolOrEnchantChanges());
+        assertNotNull(delta.getPlayerData());
+        ToolDataDelta.ToolChange change = delta.getChanges().get(0);
+        assertTrue(change.isNew());
+        assertEquals(Map.of("efficiency", 3), change.getEnchantments());
+        assertFalse(fresh.isDirty());
+    }
+
+    @Test
+    void statsOnlyDeltaSkipsSnapshot() {
+        SavedToolData pickaxe = data.getToolByUniqueId(pickaxeId);
+        pickaxe.setLevel(4);
+        pickaxe.setExperience(900);
+
+        ToolDataDelta delta = data.takeDelta(false);
+        assertFalse(delta.hasToolOrEnchantChanges());
+        assertNull(delta.getPlayerData());
+        assertEquals(1, delta.getChanges().size());
+        ToolDataDelta.ToolChange change = delta.getChanges().get(0);
+        assertEquals(SavedToolData.FIELD_LEVEL | SavedToolData.FIELD_EXPERIENCE, change.getFields());
+        assertEquals(4, change.getLevel());
+        assertEquals(900, change.getExperience());
+        assertTrue(change.getEnchantments().isEmpty());
+        assertFalse(data.isDirty());
+
+        // Storages writing whole players always get the snapshot
+        pickaxe.setLevel(5);
+        assertNotNull(data.takeDelta(true).getPlayerData());
+    }
+
+    @Test
+    void snapshotIsNotChangedByLaterUpdates() {
+        data.getToolByUniqueId(pickaxeId).setEnchantment("efficiency", 2);
+
+        ToolDataDelta delta = data.takeDelta(false);
+        assertTrue(delta.hasToolOrEnchantChanges());
+        assertEquals(Map.of("efficiency", 2), delta.getChanges().get(0).getEnchantments());
+        PlayerToolData snapshot = delta.getPlayerData();
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.getToolCount());
+
+        data.getToolByUniqueId(pickaxeId).setEnchantment("efficiency", 7);
+        assertEquals(2, snapshot.getToolByUniqueId(pickaxeId).getEnchantLevel("efficiency"));
+    }
+
+    @Test
+    void emptyDeltaWhenNothingChanged() {
+        assertFalse(data.isDirty());
+        assertTrue(data.takeDelta(false).isEmpty());
+    }
+
+    @Test
+    void restoredDeltaIsTakenAgain() {
+        SavedToolData pickaxe = data.getToolByUniqueId(pickaxeId);
+        pickaxe.setLevel(3);
+        pickaxe.setEnchantment("fortune", 2);
+        assertTrue(data.removeTool(swordId));
+
+        ToolDataDelta failed = data.takeDelta(false);
+        assertFalse(data.isDirty());
+        data.restoreDelta(failed);
+        assertTrue(data.isDirty());
+
+        // Changes made after the failed delta are merged into the retry
+        pickaxe.setExperience(50);
+        ToolDataDelta retry = data.takeDelta(false);
+        ToolDataDelta.ToolChange change = retry.getChanges().get(0);
+        assertEquals(SavedToolData.FIELD_LEVEL | SavedToolData.FIELD_EXPERIENCE | SavedToolData.FIELD_ENCHANTMENTS,
+                change.getFields());
+        assertEquals(3, change.getLevel());
+        assertEquals(50, change.getExperience());
+        assertEquals(Map.of("fortune", 2), change.getEnchantments());
+        assertEquals(Set.of(swordId), retry.getRemovedTools());
+    }
+
+    @Test
+    void restoreKeepsToolsAddedBack() {
+        assertTrue(data.removeTool(swordId));
+        ToolDataDelta failed = data.takeDelta(false);
+
+        data.addOrUpdateTool(new SavedToolData(swordId, "sword", 1, 0, Map.of()));
+        data.restoreDelta(failed);
+
+        ToolDataDelta retry = data.takeDelta(false);
+        assertTrue(retry.getRemovedTools().isEmpty());
+        assertTrue(retry.getChanges().get(0).isNew());
+    }
+}
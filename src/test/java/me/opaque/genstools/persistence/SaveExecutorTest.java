@@ -0,0 +1,144 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SaveExecutorTest {
+    @TempDir
+    File dataFolder;
+
+    private SaveExecutor executor;
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        executor = new SaveExecutor(TestPlugins.mockPlugin(dataFolder), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown(5);
+    }
+
+    @Test
+    void savesOfOnePlayerRunInOrder() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 50; i++) {
+            int number = i;
+            last = executor.submit(List.of(first), () -> {
+                // Give later saves the chance to overtake if they could
+                sleep(number % 3);
+                order.add(number);
+            });
+        }
+        last.join();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, order);
+    }
+
+    @Test
+    void savesOfDifferentPlayersRunInParallel() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        Runnable save = () -> {
+            bothRunning.countDown();
+            try {
+                if (!bothRunning.await(5, TimeUnit.SECONDS)) {
+                    overlapped.set(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        CompletableFuture.allOf(executor.submit(List.of(first), save), executor.submit(List.of(second), save)).join();
+        assertTrue(overlapped.get());
+    }
+
+    @Test
+    void submitAfterAllWaitsForEverySave() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.submit(List.of(first), () -> {
+            await(release);
+            order.add("first");
+        });
+
+        // Covers a different player, yet still runs after the blocked save
+        CompletableFuture<Void> afterAll = executor.submitAfterAll(List.of(second), () -> order.add("after-all"));
+        Thread.sleep(50);
+        assertFalse(afterAll.isDone());
+
+        release.countDown();
+        afterAll.join();
+        assertEquals(List.of("first", "after-all"), order);
+    }
+
+    @Test
+    void failedSaveDoesNotBlockLaterSaves() {
+        executor.submit(List.of(first), () -> {
+            throw new IllegalStateException("Storage is down");
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.submit(List.of(first), () -> ran.set(true)).join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void pendingSaveIsReportedUntilItRan() throws InterruptedException {
+        assertFalse(executor.hasPendingSave(first));
+        assertTrue(executor.afterSaves(first).isDone());
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> save = executor.submit(List.of(first), () -> await(release));
+        CompletableFuture<Void> afterSaves = executor.afterSaves(first);
+        Thread.sleep(50);
+        assertTrue(executor.hasPendingSave(first));
+        assertFalse(executor.hasPendingSave(second));
+        assertFalse(afterSaves.isDone());
+
+        release.countDown();
+        save.join();
+        afterSaves.join();
+        assertFalse(executor.hasPendingSave(first));
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SavedToolDataTest {
+    private final String uniqueId = UUID.randomUUID().toString();
+
+    @Test
+    void updateEnchantmentsMarksOnlyDifferences() {
+        SavedToolData tool = saved(Map.of("efficiency", 1, "fortune", 2, "unbreaking", 3));
+
+        tool.updateEnchantments(new SavedToolData(uniqueId, "pickaxe", 1, 0,
+                Map.of("efficiency", 1, "fortune", 5, "smelting", 1)));
+
+        assertEquals(SavedToolData.FIELD_ENCHANTMENTS, tool.getDirtyFields());
+        // Changed, removed and added, but not the unchanged efficiency
+        assertEquals(Set.of("fortune", "unbreaking", "smelting"), tool.getDirtyEnchantments());
+        assertEquals(Map.of("efficiency", 1, "fortune", 5, "smelting", 1), tool.getEnchantments());
+        assertEquals(0, tool.getEnchantLevel("unbreaking"));
+    }
+
+    @Test
+    void updateEnchantmentsWithSameLevelsStaysClean() {
+        SavedToolData tool = saved(Map.of("efficiency", 1, "fortune", 2));
+
+        tool.updateEnchantments(new SavedToolData(uniqueId, "pickaxe", 1, 0, Map.of("fortune", 2, "efficiency", 1)));
+
+        assertFalse(tool.isDirty());
+        assertTrue(tool.getDirtyEnchantments().isEmpty());
+    }
+
+    @Test
+    void updateEnchantmentsRemovesAll() {
+        SavedToolData tool = saved(Map.of("efficiency", 1, "fortune", 2));
+
+        tool.updateEnchantments(new SavedToolData(uniqueId, "pickaxe", 1, 0, Map.of()));
+
+        assertEquals(Set.of("efficiency", "fortune"), tool.getDirtyEnchantments());
+        assertEquals(0, tool.getEnchantCount());
+    }
+
+    @Test
+    void clearDirtyResetsTracking() {
+        SavedToolData tool = saved(Map.of());
+        tool.setLevel(2);
+        tool.setExperience(50);
+        tool.setEnchantment("efficiency", 1);
+        assertEquals(SavedToolData.FIELD_LEVEL | SavedToolData.FIELD_EXPERIENCE | SavedToolData.FIELD_ENCHANTMENTS,
+                tool.getDirtyFields());
+
+        tool.clearDirty();
+
+        assertFalse(tool.isDirty());
+        assertTrue(tool.getDirtyEnchantments().isEmpty());
+    }
+
+    @Test
+    void settersIgnoreUnchangedValues() {
+        SavedToolData tool = saved(Map.of("efficiency", 1));
+        tool.setLevel(1);
+        tool.setExperience(0);
+        tool.setEnchantment("efficiency", 1);
+        tool.setEnchantment("fortune", 0);
+
+        assertFalse(tool.isDirty());
+    }
+
+    private SavedToolData saved(Map<String, Integer> enchantments) {
+        SavedToolData tool = new SavedToolData(uniqueId, "pickaxe", 1, 0, enchantments);
+        tool.clearDirty();
+        return tool;
+    }
+}
@@ -0,0 +1,217 @@
+package me.opaque.genstools.persistence;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStorageTest {
+    @TempDir
+    File dataFolder;
+
+    private String jdbcUrl;
+    private SqlStorage storage;
+    private final UUID owner = UUID.randomUUID();
+    private final String pickaxeId = UUID.randomUUID().toString();
+    private final String swordId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        // A fresh in-memory database per test, kept until the JVM exits
+        jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    @Test
+    void savedPlayerDataLoadsBack() {
+        storage = open();
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 5, 5_000_000_000L,
+                Map.of("efficiency", 3, "fortune", 2)));
+        data.addOrUpdateTool(new SavedToolData(swordId, "sword", 1, 0, Map.of()));
+        storage.savePlayerData(data);
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        assertEquals(2, loaded.getToolCount());
+
+        SavedToolData pickaxe = loaded.getToolByUniqueId(pickaxeId);
+        assertNotNull(pickaxe);
+        assertEquals("pickaxe", pickaxe.getToolId());
+        assertEquals(5, pickaxe.getLevel());
+        assertEquals(5_000_000_000L, pickaxe.getExperience());
+        assertEquals(Map.of("efficiency", 3, "fortune", 2), pickaxe.getEnchantments());
+        assertFalse(pickaxe.isDirty());
+
+        SavedToolData sword = loaded.getToolByUniqueId(swordId);
+        assertNotNull(sword);
+        assertTrue(sword.getEnchantments().isEmpty());
+
+        assertEquals(List.of(owner), storage.getStoredPlayers());
+        assertEquals(0, storage.loadPlayerData(UUID.randomUUID()).getToolCount());
+    }
+
+    @Test
+    void deltaWritesNewTool() {
+        storage = open();
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 2, 300, Map.of("efficiency", 1)));
+        ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+        assertTrue(delta.getChanges().get(0).isNew());
+        storage.saveDeltas(List.of(delta));
+
+        SavedToolData pickaxe = storage.loadPlayerData(owner).getToolByUniqueId(pickaxeId);
+        assertNotNull(pickaxe);
+        assertEquals(2, pickaxe.getLevel());
+        assertEquals(300, pickaxe.getExperience());
+        assertEquals(Map.of("efficiency", 1), pickaxe.getEnchantments());
+    }
+
+    @Test
+    void deltaWritesLevelAndExperienceOnly() {
+        storage = open();
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 2, 300, Map.of("efficiency", 1)));
+        storage.saveDeltas(List.of(data.takeDelta(storage.writesWholePlayers())));
+
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 7, 4_000_000_000L, Map.of("efficiency", 1)));
+        ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+        // Nothing but the stats changed, so no copy of the player's tools is taken
+        assertFalse(delta.hasToolOrEnchantChanges());
+        assertNull(delta.getPlayerData());
+        assertTrue(delta.getChanges().get(0).getEnchantments().isEmpty());
+        storage.saveDeltas(List.of(delta));
+
+        SavedToolData pickaxe = storage.loadPlayerData(owner).getToolByUniqueId(pickaxeId);
+        assertNotNull(pickaxe);
+        assertEquals(7, pickaxe.getLevel());
+        assertEquals(4_000_000_000L, pickaxe.getExperience());
+        assertEquals(Map.of("efficiency", 1), pickaxe.getEnchantments());
+    }
+
+    @Test
+    void deltaRemovesEnchantment() {
+        storage = open();
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 3, 10,
+                Map.of("efficiency", 3, "fortune", 2)));
+        storage.saveDeltas(List.of(data.takeDelta(storage.writesWholePlayers())));
+
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 3, 10, Map.of("efficiency", 4)));
+        ToolDataDelta delta = data.takeDelta(storage.writesWholePlayers());
+        assertEquals(Map.of("efficiency", 4, "fortune", 0), delta.getChanges().get(0).getEnchantments());
+        storage.saveDeltas(List.of(delta));
+
+        SavedToolData pickaxe = storage.loadPlayerData(owner).getToolByUniqueId(pickaxeId);
+        assertNotNull(pickaxe);
+        assertEquals(Map.of("efficiency", 4), pickaxe.getEnchantments());
+    }
+
+    @Test
+    void deltaRemovesTool() {
+        storage = open();
+
+        PlayerToolData data = new PlayerToolData(owner);
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 1, 0, Map.of("efficiency", 1)));
+        data.addOrUpdateTool(new SavedToolData(swordId, "sword", 1, 0, Map.of()));
+        storage.saveDeltas(List.of(data.takeDelta(storage.writesWholePlayers())));
+
+        assertTrue(data.removeTool(pickaxeId));
+        storage.saveDeltas(List.of(data.takeDelta(storage.writesWholePlayers())));
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        assertEquals(1, loaded.getToolCount());
+        assertNull(loaded.getToolByUniqueId(pickaxeId));
+        assertNotNull(loaded.getToolByUniqueId(swordId));
+    }
+
+    @Test
+    void widensIntExperienceColumn() throws SQLException {
+        // A table from before experience became a long
+        try (Connection connection = DriverManager.getConnection(jdbcUrl);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE genstools_tools ("
+                    + "unique_id VARCHAR(36) NOT NULL PRIMARY KEY, "
+                    + "owner_uuid VARCHAR(36) NOT NULL, "
+                    + "tool_id VARCHAR(64) NOT NULL, "
+                    + "level INT NOT NULL, "
+                    + "experience INT NOT NULL, "
+                    + "last_saved BIGINT NOT NULL)");
+            statement.executeUpdate("INSERT INTO genstools_tools VALUES ('" + pickaxeId + "', '" + owner
+                    + "', 'pickaxe', 4, 1500, 0)");
+        }
+        assertEquals(Types.INTEGER, experienceColumnType());
+
+        storage = open();
+        assertEquals(Types.BIGINT, experienceColumnType());
+
+        PlayerToolData data = storage.loadPlayerData(owner);
+        SavedToolData pickaxe = data.getToolByUniqueId(pickaxeId);
+        assertNotNull(pickaxe);
+        assertEquals(1500, pickaxe.getExperience());
+
+        data.addOrUpdateTool(new SavedToolData(pickaxeId, "pickaxe", 4, 3_000_000_000L, Map.of()));
+        storage.saveDeltas(List.of(data.takeDelta(storage.writesWholePlayers())));
+        assertEquals(3_000_000_000L, storage.loadPlayerData(owner).getToolByUniqueId(pickaxeId).getExperience());
+    }
+
+    @Test
+    void unsupportedDatabaseIsRejected() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("jdbc-url", "jdbc:postgresql://localhost:5432/genstools");
+        assertThrows(IllegalArgumentException.class,
+                () -> new SqlStorage(TestPlugins.mockPlugin(dataFolder), config));
+    }
+
+    @Test
+    void tableCreationFailureIsRejected() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("jdbc-url", jdbcUrl);
+        // Not a valid table name
+        config.set("table-prefix", "bad prefix ");
+        assertThrows(IllegalStateException.class,
+                () -> new SqlStorage(TestPlugins.mockPlugin(dataFolder), config));
+    }
+
+    private SqlStorage open() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("jdbc-url", jdbcUrl);
+        return new SqlStorage(TestPlugins.mockPlugin(dataFolder), config);
+    }
+
+    private int experienceColumnType() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl);
+             ResultSet columns = connection.getMetaData().getColumns(null, null, "GENSTOOLS_TOOLS", "EXPERIENCE")) {
+            assertTrue(columns.next());
+            return columns.getInt("DATA_TYPE");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plugin mocks for storage tests, which only need a logger and a data folder
+ */
+final class TestPlugins {
+    private TestPlugins() {
+    }
+
+    static GensTools mockPlugin(File dataFolder) {
+        GensTools plugin = mock(GensTools.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("GensTools-Test"));
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        return plugin;
+    }
+}
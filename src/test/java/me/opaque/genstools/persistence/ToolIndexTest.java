@@ -0,0 +1,186 @@
+package me.opaque.genstools.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolIndexTest {
+    @TempDir
+    File dataFolder;
+
+    private File file;
+    private ToolIndex index;
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        file = new File(dataFolder, "tool-index.dat");
+        index = open();
+    }
+
+    @Test
+    void queriesReflectUpdates() {
+        index.update(player(first,
+                tool("pickaxe", Map.of("efficiency", 3)),
+                tool("pickaxe", Map.of("efficiency", 5, "fortune", 1))));
+        index.update(player(second, tool("sword", Map.of("efficiency", 2))));
+
+        assertEquals(Map.of(first, 2), index.findToolOwners("pickaxe"));
+        assertEquals(2, index.countTools("pickaxe"));
+        assertEquals(0, index.countTools("axe"));
+        assertEquals(2, index.getPlayerCount());
+
+        // Highest level first, players below the minimum left out
+        assertEquals(List.of(first, second), new ArrayList<>(index.findEnchantOwners("efficiency", 1).keySet()));
+        assertEquals(Map.of(first, 5), index.findEnchantOwners("efficiency", 3));
+
+        // A later save replaces what was indexed of the player
+        index.update(player(first, tool("axe", Map.of())));
+        assertTrue(index.findToolOwners("pickaxe").isEmpty());
+        assertEquals(Map.of(first, 1), index.findToolOwners("axe"));
+        assertEquals(Map.of(second, 2), index.findEnchantOwners("efficiency", 1));
+        assertTrue(index.findEnchantOwners("fortune", 1).isEmpty());
+
+        // Players without tools are dropped
+        index.update(player(second));
+        assertEquals(1, index.getPlayerCount());
+    }
+
+    @Test
+    void savedIndexLoadsBack() {
+        index.update(player(first, tool("pickaxe", Map.of("efficiency", 4))));
+        index.save();
+
+        ToolIndex loaded = open();
+        assertTrue(loaded.load(true));
+        assertEquals(Map.of(first, 1), loaded.findToolOwners("pickaxe"));
+        assertEquals(Map.of(first, 4), loaded.findEnchantOwners("efficiency", 1));
+        // Kept for the next start, the journal replays later saves on top of it
+        assertTrue(file.exists());
+    }
+
+    @Test
+    void unjournaledIndexIsRemovedOnLoad() {
+        index.update(player(first, tool("pickaxe", Map.of())));
+        index.save();
+
+        assertTrue(open().load(false));
+        assertFalse(file.exists());
+        assertFalse(open().load(false));
+    }
+
+    @Test
+    void corruptIndexIsRebuilt() throws IOException {
+        index.update(player(first, tool("pickaxe", Map.of())));
+        index.save();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            int value = raf.read();
+            raf.seek(8);
+            raf.write(value ^ 0xFF);
+        }
+
+        ToolIndex loaded = open();
+        assertFalse(loaded.load(true));
+        assertEquals(0, loaded.getPlayerCount());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void rebuildKeepsPlayersSavedWhileItRuns() {
+        Map<UUID, PlayerToolData> stored = Map.of(
+                first, player(first, tool("pickaxe", Map.of())),
+                second, player(second, tool("pickaxe", Map.of())));
+        Storage storage = new MapStorage(stored) {
+            @Override
+            public PlayerToolData loadPlayerData(UUID playerUuid) {
+                PlayerToolData data = super.loadPlayerData(playerUuid);
+                // The player saves after the rebuild read their older data
+                index.update(player(playerUuid, tool("sword", Map.of())));
+                assertTrue(index.isRebuilding());
+                return data;
+            }
+        };
+
+        assertEquals(2, index.rebuild(storage));
+        assertFalse(index.isRebuilding());
+        assertTrue(index.findToolOwners("pickaxe").isEmpty());
+        assertEquals(2, index.countTools("sword"));
+    }
+
+    @Test
+    void saveIsSkippedDuringRebuild() {
+        Storage storage = new MapStorage(Map.of(first, player(first, tool("pickaxe", Map.of())))) {
+            @Override
+            public PlayerToolData loadPlayerData(UUID playerUuid) {
+                index.save();
+                return super.loadPlayerData(playerUuid);
+            }
+        };
+
+        index.rebuild(storage);
+        assertFalse(file.exists());
+        index.save();
+        assertTrue(file.exists());
+    }
+
+    private ToolIndex open() {
+        return new ToolIndex(TestPlugins.mockPlugin(dataFolder), file);
+    }
+
+    private static PlayerToolData player(UUID playerUuid, SavedToolData... tools) {
+        PlayerToolData data = new PlayerToolData(playerUuid);
+        for (SavedToolData tool : tools) {
+            data.addOrUpdateTool(tool);
+        }
+        return data;
+    }
+
+    private static SavedToolData tool(String toolId, Map<String, Integer> enchantments) {
+        return new SavedToolData(UUID.randomUUID().toString(), toolId, 1, 0, enchantments);
+    }
+
+    /**
+     * Read-only storage over a fixed set of players
+     */
+    private static class MapStorage implements Storage {
+        private final Map<UUID, PlayerToolData> players;
+
+        MapStorage(Map<UUID, PlayerToolData> players) {
+            this.players = players;
+        }
+
+        @Override
+        public void savePlayerData(PlayerToolData data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PlayerToolData loadPlayerData(UUID playerUuid) {
+            return players.getOrDefault(playerUuid, new PlayerToolData(playerUuid));
+        }
+
+        @Override
+        public List<UUID> getStoredPlayers() {
+            return new ArrayList<>(players.keySet());
+        }
+
+        @Override
+        public boolean createBackup() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package me.opaque.genstools.persistence;
+
+import me.opaque.genstools.GensTools;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolJournalTest {
+    // Segment header size, see ToolJournal
+    private static final int HEADER_SIZE = 16;
+
+    @TempDir
+    File dataFolder;
+
+    private GensTools plugin;
+    private File journalFolder;
+    private BinaryStorage storage;
+    private final UUID owner = UUID.randomUUID();
+    private final String firstId = UUID.randomUUID().toString();
+    private final String secondId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        plugin = TestPlugins.mockPlugin(dataFolder);
+        journalFolder = new File(dataFolder, "journal");
+        storage = new BinaryStorage(plugin, new File(dataFolder, "data"));
+    }
+
+    @Test
+    void replaysLatestStateOfEachTool() {
+        ToolJournal journal = open();
+        journal.append(owner, new SavedToolData(firstId, "pickaxe", 1, 100, Map.of("efficiency", 1)));
+        journal.append(owner, new SavedToolData(secondId, "sword", 2, 200, Map.of()));
+        journal.append(owner, new SavedToolData(firstId, "pickaxe", 3, 5_000_000_000L, Map.of("efficiency", 2)));
+        journal.close();
+
+        assertEquals(2, replay());
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        SavedToolData first = loaded.getToolByUniqueId(firstId);
+        assertNotNull(first);
+        assertEquals(3, first.getLevel());
+        assertEquals(5_000_000_000L, first.getExperience());
+        assertEquals(Map.of("efficiency", 2), first.getEnchantments());
+        assertNotNull(loaded.getToolByUniqueId(secondId));
+
+        // Replayed segments are removed
+        assertEquals(0, segmentFiles().length);
+    }
+
+    @Test
+    void replayStopsAtTornRecord() throws IOException {
+        ToolJournal journal = open();
+        journal.append(owner, new SavedToolData(firstId, "pickaxe", 4, 40, Map.of()));
+        journal.append(owner, new SavedToolData(secondId, "sword", 5, 50, Map.of()));
+        journal.close();
+
+        // Cut the file in the middle of the second record's payload
+        File segment = onlySegment();
+        int secondStart = secondRecordStart(segment);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(secondStart + 4 + 3);
+        }
+
+        assertEquals(1, replay());
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        SavedToolData first = loaded.getToolByUniqueId(firstId);
+        assertNotNull(first);
+        assertEquals(4, first.getLevel());
+        assertNull(loaded.getToolByUniqueId(secondId));
+    }
+
+    @Test
+    void replayStopsAtCorruptRecord() throws IOException {
+        ToolJournal journal = open();
+        journal.append(owner, new SavedToolData(firstId, "pickaxe", 4, 40, Map.of()));
+        journal.append(owner, new SavedToolData(secondId, "sword", 5, 50, Map.of()));
+        journal.close();
+
+        // Flip a byte of the second record's payload, its checksum no longer matches
+        File segment = onlySegment();
+        int secondStart = secondRecordStart(segment);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(secondStart + 4 + 1);
+            int value = raf.read();
+            raf.seek(secondStart + 4 + 1);
+            raf.write(value ^ 0xFF);
+        }
+
+        assertEquals(1, replay());
+
+        PlayerToolData loaded = storage.loadPlayerData(owner);
+        assertNotNull(loaded.getToolByUniqueId(firstId));
+        assertNull(loaded.getToolByUniqueId(secondId));
+    }
+
+    @Test
+    void replaySkipsUnrecognizedSegment() throws IOException {
+        assertTrue(journalFolder.mkdirs());
+        File garbage = new File(journalFolder, "journal-0.log");
+        try (RandomAccessFile raf = new RandomAccessFile(garbage, "rw")) {
+            raf.write(new byte[64]);
+        }
+
+        assertEquals(0, replay());
+        assertTrue(garbage.exists());
+        assertTrue(storage.getStoredPlayers().isEmpty());
+    }
+
+    @Test
+    void discardedSegmentsAreNotReplayed() {
+        ToolJournal journal = open();
+        journal.append(owner, new SavedToolData(firstId, "pickaxe", 1, 10, Map.of()));
+        journal.discard(journal.rotate());
+        journal.close();
+
+        assertEquals(0, replay());
+        assertFalse(new File(dataFolder, "data/" + owner + ".gtd").exists());
+    }
+
+    private ToolJournal open() {
+        return new ToolJournal(plugin, journalFolder, 64 * 1024, 1000);
+    }
+
+    private int replay() {
+        ToolJournal journal = open();
+        try {
+            return journal.replay(storage, new ToolIndex(plugin, new File(dataFolder, "tool-index.dat")));
+        } finally {
+            journal.close();
+        }
+    }
+
+    private File[] segmentFiles() {
+        File[] files = journalFolder.listFiles((dir, name) -> name.endsWith(".log"));
+        return files != null ? files : new File[0];
+    }
+
+    private File onlySegment() {
+        File[] files = segmentFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    /**
+     * Records are a length, the payload and a checksum
+     */
+    private static int secondRecordStart(File segment) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+            raf.seek(HEADER_SIZE);
+            int firstLength = raf.readInt();
+            return HEADER_SIZE + 4 + firstLength + 4;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package me.opaque.genstools.tools;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelCurveTest {
+
+    @Test
+    void defaultCurveMatchesOriginalFormula() {
+        LevelCurve curve = LevelCurve.fromConfig(null);
+
+        assertEquals(100, curve.getMaxLevel());
+        assertEquals(1500, curve.getRequiredExp(1));
+        assertEquals(2000, curve.getRequiredExp(2));
+        assertEquals(50_500, curve.getRequiredExp(99));
+        assertEquals(0, curve.getRequiredExp(100));
+    }
+
+    @Test
+    void singleGrantAppliesEveryLevelUp() {
+        LevelCurve curve = LevelCurve.fromConfig(null);
+        ToolState state = new ToolState("pickaxe", 1, 100);
+
+        // 1400 to reach level 2, then 2000 and 2500 for levels 3 and 4, 7 left over
+        assertTrue(curve.addExperience(state, 1400 + 2000 + 2500 + 7));
+
+        assertEquals(4, state.getLevel());
+        assertEquals(7, state.getExperience());
+    }
+
+    @Test
+    void grantBelowNextLevelOnlyAddsExperience() {
+        LevelCurve curve = LevelCurve.fromConfig(null);
+        ToolState state = new ToolState("pickaxe", 3, 10);
+
+        assertFalse(curve.addExperience(state, 2489));
+
+        assertEquals(3, state.getLevel());
+        assertEquals(2499, state.getExperience());
+    }
+
+    @Test
+    void grantPastMaxLevelClamps() {
+        LevelCurve curve = LevelCurve.fromConfig(leveling(5));
+        ToolState state = new ToolState("pickaxe", 3, 0);
+
+        assertTrue(curve.addExperience(state, Long.MAX_VALUE));
+
+        assertEquals(5, state.getLevel());
+        assertEquals(0, state.getExperience());
+        assertEquals(0, curve.getRequiredExp(5));
+
+        // Nothing more happens at the maximum level
+        assertFalse(curve.addExperience(state, 1000));
+        assertEquals(5, state.getLevel());
+        assertEquals(0, state.getExperience());
+    }
+
+    @Test
+    void levelsOutOfRangeAreClamped() {
+        LevelCurve curve = LevelCurve.fromConfig(leveling(5));
+
+        assertEquals(1, curve.clampLevel(0));
+        assertEquals(5, curve.clampLevel(12));
+        assertEquals(curve.getRequiredExp(1), curve.getRequiredExp(-3));
+
+        // A tool above a lowered maximum drops to it
+        ToolState state = new ToolState("pickaxe", 9, 400);
+        assertFalse(curve.addExperience(state, 10));
+        assertEquals(5, state.getLevel());
+        assertEquals(0, state.getExperience());
+    }
+
+    @Test
+    void hugeRequirementsSaturate() {
+        YamlConfiguration leveling = leveling(60);
+        leveling.set("curve.type", "exponential");
+        leveling.set("curve.growth", 10.0);
+        LevelCurve curve = LevelCurve.fromConfig(leveling);
+
+        assertEquals(1000, curve.getRequiredExp(1));
+        assertEquals(10_000, curve.getRequiredExp(2));
+
+        ToolState state = new ToolState("pickaxe", 1, Long.MAX_VALUE);
+        curve.addExperience(state, Long.MAX_VALUE);
+        assertTrue(state.getLevel() >= 1 && state.getLevel() <= 60);
+        assertTrue(state.getExperience() >= 0);
+    }
+
+    @Test
+    void tableRepeatsLastEntry() {
+        YamlConfiguration leveling = leveling(10);
+        leveling.set("curve.type", "table");
+        leveling.set("curve.table", List.of(100L, 200L));
+        LevelCurve curve = LevelCurve.fromConfig(leveling);
+
+        assertEquals(100, curve.getRequiredExp(1));
+        assertEquals(200, curve.getRequiredExp(2));
+        assertEquals(200, curve.getRequiredExp(9));
+
+        ToolState state = new ToolState("pickaxe", 1, 0);
+        assertTrue(curve.addExperience(state, 100 + 200 * 3 + 50));
+        assertEquals(5, state.getLevel());
+        assertEquals(50, state.getExperience());
+    }
+
+    private static YamlConfiguration leveling(int maxLevel) {
+        YamlConfiguration leveling = new YamlConfiguration();
+        leveling.set("max-level", maxLevel);
+        return leveling;
+    }
+}
@@ -0,0 +1,55 @@
+package me.opaque.genstools.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ToolStateCodecTest {
+
+    @Test
+    void encodedStateDecodesBack() {
+        Map<String, Integer> enchantments = new LinkedHashMap<>();
+        enchantments.put("efficiency", 5);
+        enchantments.put("fortune", 300);
+        Map<String, Integer> cubes = new LinkedHashMap<>();
+        cubes.put("fortune", 25);
+
+        ToolState state = new ToolState("pickaxe", 42, 9_000_000_000L, enchantments, cubes);
+        assertEquals(state, ToolStateCodec.decode(ToolStateCodec.encode(state)));
+    }
+
+    @Test
+    void emptyStateDecodesBack() {
+        ToolState state = new ToolState("sword", 1, 0);
+        assertEquals(state, ToolStateCodec.decode(ToolStateCodec.encode(state)));
+    }
+
+    @Test
+    void extremeValuesDecodeBack() {
+        // Multi-byte UTF-8 and the largest values
+        ToolState state = new ToolState("pioche_é✓", Integer.MAX_VALUE, Long.MAX_VALUE,
+                Map.of("ünbreaking", Integer.MAX_VALUE), Map.of());
+        assertEquals(state, ToolStateCodec.decode(ToolStateCodec.encode(state)));
+    }
+
+    @Test
+    void malformedDataDecodesToNull() {
+        assertNull(ToolStateCodec.decode(null));
+        assertNull(ToolStateCodec.decode(new byte[0]));
+
+        byte[] data = ToolStateCodec.encode(new ToolState("pickaxe", 3, 100, Map.of("efficiency", 1), Map.of()));
+
+        byte[] unknownVersion = data.clone();
+        unknownVersion[0] = (byte) (ToolStateCodec.VERSION + 1);
+        assertNull(ToolStateCodec.decode(unknownVersion));
+
+        for (int length = 1; length < data.length; length++) {
+            assertNull(ToolStateCodec.decode(Arrays.copyOf(data, length)), "truncated to " + length + " bytes");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package me.opaque.genstools.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AreaShapeTest {
+
+    @Test
+    void packedOffsetsUnpackBack() {
+        for (int x = -AreaShape.MAX_RADIUS; x <= AreaShape.MAX_RADIUS; x++) {
+            for (int y = -AreaShape.MAX_RADIUS; y <= AreaShape.MAX_RADIUS; y += 7) {
+                for (int z = -AreaShape.MAX_RADIUS; z <= AreaShape.MAX_RADIUS; z += 5) {
+                    int packed = AreaShape.pack(x, y, z);
+                    assertEquals(x, AreaShape.unpackX(packed));
+                    assertEquals(y, AreaShape.unpackY(packed));
+                    assertEquals(z, AreaShape.unpackZ(packed));
+                }
+            }
+        }
+    }
+
+    @Test
+    void offsetCountsMatchShapes() {
+        assertEquals(26, AreaShape.CUBE.getOffsets(1).length);
+        assertEquals(124, AreaShape.CUBE.getOffsets(2).length);
+        assertEquals(6, AreaShape.SPHERE.getOffsets(1).length);
+        // 33 blocks lie within a radius of 2, less the origin
+        assertEquals(32, AreaShape.SPHERE.getOffsets(2).length);
+        assertEquals(8, AreaShape.LAYER.getOffsets(1).length);
+        assertEquals(24, AreaShape.LAYER.getOffsets(2).length);
+        assertEquals(26, AreaShape.VEIN.getOffsets(1).length);
+        assertEquals(0, AreaShape.SPHERE.getOffsets(0).length);
+    }
+
+    @Test
+    void offsetsStayWithinShape() {
+        int radius = 5;
+        for (AreaShape shape : AreaShape.values()) {
+            Set<Integer> seen = new HashSet<>();
+            for (int packed : shape.getOffsets(radius)) {
+                int x = AreaShape.unpackX(packed);
+                int y = AreaShape.unpackY(packed);
+                int z = AreaShape.unpackZ(packed);
+
+                assertFalse(x == 0 && y == 0 && z == 0, shape + " includes the origin");
+                assertTrue(Math.abs(x) <= radius && Math.abs(y) <= radius && Math.abs(z) <= radius);
+                if (shape == AreaShape.SPHERE) {
+                    assertTrue(x * x + y * y + z * z <= radius * radius);
+                }
+                if (shape == AreaShape.LAYER) {
+                    assertEquals(0, y);
+                }
+                assertTrue(seen.add(packed), shape + " repeats an offset");
+            }
+        }
+    }
+
+    @Test
+    void offsetsAreComputedOnce() {
+        assertSame(AreaShape.SPHERE.getOffsets(4), AreaShape.SPHERE.getOffsets(4));
+    }
+
+    @Test
+    void radiusOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AreaShape.CUBE.getOffsets(-1));
+        assertThrows(IllegalArgumentException.class, () -> AreaShape.CUBE.getOffsets(AreaShape.MAX_RADIUS + 1));
+    }
+}